@@ -0,0 +1,129 @@
+import javax.swing.*;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Runs {@link InventoryService} and {@link DBHelper} calls off the Event Dispatch Thread.
+ *
+ * Every call returns a CompletableFuture and executes on a background executor: virtual threads on
+ * JDKs that have them, otherwise a small fixed pool. At most maxPending calls may be outstanding;
+ * beyond that calls fail fast with RejectedExecutionException instead of queueing without bound.
+ * Continue on the EDT with {@code future.whenCompleteAsync(..., AsyncDB.EDT)}.
+ *
+ * Setting -Dinventory.syncDb=true runs every call on the calling thread instead, which restores the
+ * old blocking behaviour; together with {@link EdtLatencyMonitor} that gives the before/after numbers.
+ */
+public class AsyncDB implements AutoCloseable {
+
+    /** Executor that runs continuations on the Swing Event Dispatch Thread. */
+    public static final Executor EDT = SwingUtilities::invokeLater;
+
+    private final DBHelper db;
+    private final InventoryService service;
+    private final LoginGuard logins;
+    private final ExecutorService executor;
+    private final Semaphore pending;
+
+    public AsyncDB(DBHelper db) {
+        this(db, 4, 256);
+    }
+
+    public AsyncDB(DBHelper db, int threads, int maxPending) {
+        this.db = db;
+        this.service = new InventoryService(db);
+        this.logins = new LoginGuard(db::authenticateRole);
+        this.executor = Boolean.getBoolean("inventory.syncDb") ? null : newExecutor(threads, "db-async");
+        this.pending = new Semaphore(maxPending);
+    }
+
+    /** A thread per task on JDKs with virtual threads, otherwise a fixed pool of daemon threads. */
+    static ExecutorService newExecutor(int threads, String name) {
+        try {
+            // Executors.newVirtualThreadPerTaskExecutor() exists from JDK 21 on; this still compiles on 17
+            Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtual.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, name);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /** Runs work against the DBHelper in the background. */
+    public <T> CompletableFuture<T> submit(Function<DBHelper, T> work) {
+        if (!pending.tryAcquire()) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Too many database calls in flight"));
+        }
+        CompletableFuture<T> f = new CompletableFuture<>();
+        Runnable task = () -> {
+            try {
+                f.complete(work.apply(db));
+            } catch (Throwable t) {
+                f.completeExceptionally(t);
+            } finally {
+                pending.release();
+            }
+        };
+        if (executor == null) {
+            task.run();
+        } else {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                pending.release();
+                f.completeExceptionally(e);
+            }
+        }
+        return f;
+    }
+
+    // ---------- DBHelper operations ----------
+    /** Logs in through the {@link LoginGuard}: cached sessions, per-user throttling, bounded hashing. */
+    public CompletableFuture<LoginGuard.Result> login(String username, String password) {
+        return submit(d -> logins.login(username, password));
+    }
+
+    /** The headless service the typed calls below go through; see {@link InventoryService}. */
+    public InventoryService service() {
+        return service;
+    }
+
+    /** Re-reads the service's catalogue from the database; resolves to the number of items. */
+    public CompletableFuture<Integer> load() {
+        return submit(d -> service.load());
+    }
+
+    public CompletableFuture<InventoryService.Item> addItem(String name, int qty, double cost, double sell, String cat, String loc, int min) {
+        return submit(d -> service.addItem(name, qty, cost, sell, cat, loc, min));
+    }
+
+    public CompletableFuture<Integer> restock(String sku, int qty) {
+        return submit(d -> service.restock(sku, qty));
+    }
+
+    public CompletableFuture<Integer> sell(String sku, int qty) {
+        return submit(d -> service.sell(sku, qty));
+    }
+
+    public CompletableFuture<Boolean> delete(String sku) {
+        return submit(d -> service.delete(sku));
+    }
+
+    public CompletableFuture<Double> inventoryValue() {
+        return submit(d -> service.inventoryValue());
+    }
+
+    public CompletableFuture<Map<String, Double>> revenueByCategory(int days) {
+        return submit(d -> service.revenueByCategory(days));
+    }
+
+    /** Stops the background threads; calls already running are allowed to finish. */
+    @Override
+    public void close() {
+        if (executor != null) executor.shutdown();
+    }
+}
@@ -0,0 +1,155 @@
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Per-category totals over an {@link InventoryTableModel}: stock value (quantity * cost) and quantity.
+ *
+ * Totals are kept up to date from the model's TableModelEvents instead of being recomputed on every
+ * paint. Each row's last contribution is mirrored so a delete or quantity update can subtract exactly
+ * what that row added; only whole-table events trigger a full rescan. Categories are indexed by the
+ * model's dictionary code, so they come out in first-seen order. Must be used on the EDT, like the model.
+ */
+public class CategoryAggregates implements TableModelListener {
+
+    private final InventoryTableModel model;
+    private final CopyOnWriteArrayList<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    // per category code
+    private double[] value = new double[8];
+    private long[] quantity = new long[8];
+    private int[] rows = new int[8];
+
+    // per model row: what the row currently contributes
+    private int size;
+    private int[] rowCategory = new int[16];
+    private int[] rowQuantity = new int[16];
+    private double[] rowValue = new double[16];
+
+    private long version;
+
+    public CategoryAggregates(InventoryTableModel model) {
+        this.model = model;
+        rebuild();
+        model.addTableModelListener(this);
+    }
+
+    /** Bumped on every change to the totals; lets callers cache anything derived from them. */
+    public long version() { return version; }
+
+    /** Number of category codes seen so far; categories with no rows left report rowCount 0. */
+    public int categoryCount() { return model.categoryCount(); }
+    public String categoryName(int code) { return model.categoryName(code); }
+    public int rowCount(int code) { return code < rows.length ? rows[code] : 0; }
+    public double value(int code) { return code < value.length ? value[code] : 0; }
+    public long quantity(int code) { return code < quantity.length ? quantity[code] : 0; }
+
+    public long totalQuantity() {
+        long total = 0;
+        for (int c = 0; c < categoryCount(); c++) total += quantity(c);
+        return total;
+    }
+
+    public void addChangeListener(ChangeListener l) { listeners.add(l); }
+    public void removeChangeListener(ChangeListener l) { listeners.remove(l); }
+
+    // ---------- TableModelListener ----------
+    public void tableChanged(TableModelEvent e) {
+        int first = e.getFirstRow(), last = e.getLastRow();
+        if (first == TableModelEvent.HEADER_ROW || last == Integer.MAX_VALUE) {
+            rebuild();
+        } else {
+            switch (e.getType()) {
+                case TableModelEvent.INSERT: inserted(first, last); break;
+                case TableModelEvent.DELETE: deleted(first, last); break;
+                default:
+                    if (e.getColumn() != TableModelEvent.ALL_COLUMNS && e.getColumn() != InventoryTableModel.COL_QUANTITY
+                            && e.getColumn() != InventoryTableModel.COL_COST && e.getColumn() != InventoryTableModel.COL_CATEGORY) {
+                        return; // nothing we aggregate moved
+                    }
+                    for (int r = first; r <= last; r++) { subtract(r); contribute(r); }
+            }
+        }
+        changed();
+    }
+
+    private void rebuild() {
+        Arrays.fill(value, 0);
+        Arrays.fill(quantity, 0);
+        Arrays.fill(rows, 0);
+        size = 0;
+        inserted(0, model.getRowCount() - 1);
+    }
+
+    private void inserted(int first, int last) {
+        int n = last - first + 1;
+        if (n <= 0) return;
+        ensureRowCapacity(size + n);
+        int tail = size - first;
+        if (tail > 0) {
+            System.arraycopy(rowCategory, first, rowCategory, first + n, tail);
+            System.arraycopy(rowQuantity, first, rowQuantity, first + n, tail);
+            System.arraycopy(rowValue, first, rowValue, first + n, tail);
+        }
+        size += n;
+        for (int r = first; r <= last; r++) contribute(r);
+    }
+
+    private void deleted(int first, int last) {
+        int n = last - first + 1;
+        for (int r = first; r <= last; r++) subtract(r);
+        int tail = size - last - 1;
+        if (tail > 0) {
+            System.arraycopy(rowCategory, last + 1, rowCategory, first, tail);
+            System.arraycopy(rowQuantity, last + 1, rowQuantity, first, tail);
+            System.arraycopy(rowValue, last + 1, rowValue, first, tail);
+        }
+        size -= n;
+    }
+
+    private void contribute(int r) {
+        int code = model.getCategoryCode(r);
+        int qty = model.getQuantity(r);
+        double v = qty * model.getCostPrice(r);
+        ensureCategoryCapacity(code + 1);
+        rowCategory[r] = code;
+        rowQuantity[r] = qty;
+        rowValue[r] = v;
+        value[code] += v;
+        quantity[code] += qty;
+        rows[code]++;
+    }
+
+    private void subtract(int r) {
+        int code = rowCategory[r];
+        value[code] -= rowValue[r];
+        quantity[code] -= rowQuantity[r];
+        // the last row of a category leaves exactly zero rather than rounding residue
+        if (--rows[code] == 0) value[code] = 0;
+    }
+
+    private void ensureRowCapacity(int n) {
+        if (n <= rowCategory.length) return;
+        int cap = Math.max(n, rowCategory.length * 2);
+        rowCategory = Arrays.copyOf(rowCategory, cap);
+        rowQuantity = Arrays.copyOf(rowQuantity, cap);
+        rowValue = Arrays.copyOf(rowValue, cap);
+    }
+
+    private void ensureCategoryCapacity(int n) {
+        if (n <= value.length) return;
+        int cap = Math.max(n, value.length * 2);
+        value = Arrays.copyOf(value, cap);
+        quantity = Arrays.copyOf(quantity, cap);
+        rows = Arrays.copyOf(rows, cap);
+    }
+
+    private void changed() {
+        version++;
+        ChangeEvent ev = new ChangeEvent(this);
+        for (ChangeListener l : listeners) l.stateChanged(ev);
+    }
+}
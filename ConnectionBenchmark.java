@@ -0,0 +1,88 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Latency of each DBHelper call with a connection opened per call ({@link DirectConnectionProvider},
+ * as DBHelper used to work) and with the long-lived connections of {@link SQLiteConnectionPool}.
+ *
+ *   java -cp .;sqlite-jdbc-3.43.0.0.jar ConnectionBenchmark [items] [calls]     (defaults: 1000, 2000)
+ *
+ * Both helpers work on the same fresh database file, seeded with items; each call is first run
+ * calls / 10 times to warm up, then calls times, one helper after the other. Reported per call and
+ * helper: mean, median and 99th percentile in microseconds, and how many times faster the pool is
+ * at the median. authenticateRole runs only a few times: it verifies a password hash on every call,
+ * which costs far more than either way of getting a connection.
+ */
+public class ConnectionBenchmark {
+
+    private interface Call {
+        void run(DBHelper db, int i);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int calls = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        Path dir = Files.createTempDirectory("connection-bench");
+        Path file = dir.resolve("inventory.db");
+        String url = "jdbc:sqlite:" + file;
+        DBHelper pooled = new DBHelper(new SQLiteConnectionPool(url));
+        DBHelper direct = new DBHelper(new DirectConnectionProvider(url));
+        try {
+            pooled.importInventory(sink -> {
+                for (int i = 0; i < items; i++) sink.accept(sku(i), "Item " + i, 1_000_000, 1.5, 2.5, "Other", "Warehouse A", 10);
+            });
+            System.out.printf("%,d items, %,d calls each; microseconds per call%n%n", items, calls);
+            System.out.printf("  %-20s %10s %6s %6s   %10s %6s %6s %8s%n", "", "per call", "p50", "p99", "pooled", "p50", "p99", "p50 x");
+            compare("fetchInventory", direct, pooled, Math.max(1, calls / 10), (db, i) -> db.fetchInventory());
+            compare("totalInventoryValue", direct, pooled, calls, (db, i) -> db.totalInventoryValue());
+            compare("fetchInventoryPage", direct, pooled, calls, (db, i) -> db.fetchInventoryPage(sku(i % items), 50, (s, n, q, c, p, cat, l, m) -> {}));
+            compare("updateQuantity", direct, pooled, calls, (db, i) -> db.updateQuantity(sku(i % items), 500_000 + i));
+            compare("insertSale", direct, pooled, calls, (db, i) -> db.insertSale(sku(i % items), "Item", "Other", 1, 2.5, "2026-01-01 12:00:00"));
+            compare("sell", direct, pooled, calls, (db, i) -> db.sell(sku(i % items), 1, 2.5, "2026-01-01 12:00:00"));
+            compare("authenticateRole", direct, pooled, 5, (db, i) -> db.authenticateRole("admin", "admin123"));
+        } finally {
+            direct.close();
+            pooled.close();
+            for (String suffix : new String[]{"", "-wal", "-shm", "-journal"}) {
+                Files.deleteIfExists(dir.resolve("inventory.db" + suffix));
+            }
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private static void compare(String label, DBHelper direct, DBHelper pooled, int calls, Call call) {
+        long[] before = time(direct, calls, call);
+        long[] after = time(pooled, calls, call);
+        System.out.printf("  %-20s %10.0f %6.0f %6.0f   %10.0f %6.0f %6.0f %7.1fx%n", label,
+                mean(before), pct(before, 50), pct(before, 99), mean(after), pct(after, 50), pct(after, 99),
+                pct(before, 50) / Math.max(0.001, pct(after, 50)));
+    }
+
+    /** Nanoseconds per call, sorted. */
+    private static long[] time(DBHelper db, int calls, Call call) {
+        for (int i = 0; i < Math.max(1, calls / 10); i++) call.run(db, i);
+        long[] nanos = new long[calls];
+        for (int i = 0; i < calls; i++) {
+            long start = System.nanoTime();
+            call.run(db, i);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    private static double mean(long[] sorted) {
+        long sum = 0;
+        for (long n : sorted) sum += n;
+        return sum / 1e3 / sorted.length;
+    }
+
+    private static double pct(long[] sorted, int p) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * p / 100)] / 1e3;
+    }
+
+    private static String sku(int i) {
+        return String.format("UQ%06d", i);
+    }
+}
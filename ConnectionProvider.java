@@ -0,0 +1,19 @@
+import java.sql.SQLException;
+
+/**
+ * Source of SQLite connections for {@link DBHelper}.
+ * Statements that modify the database borrow the {@link #writer()}, everything else a {@link #reader()}.
+ * Closing the returned {@link PooledConnection} hands it back to the provider.
+ */
+public interface ConnectionProvider extends AutoCloseable {
+
+    PooledConnection reader() throws SQLException;
+
+    PooledConnection writer() throws SQLException;
+
+    /** Prepared-statement cache counters across all connections of this provider. */
+    StatementCacheStats statementCacheStats();
+
+    @Override
+    void close();
+}
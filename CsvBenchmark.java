@@ -0,0 +1,146 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Times CSV export and import of the inventory and sales tables against throwaway databases.
+ *
+ *   java -cp .;sqlite-jdbc-3.43.0.0.jar CsvBenchmark [rows] [rounds]     (defaults: 1000000, 3)
+ *
+ * Each round seeds a fresh database with synthetic rows, exports both tables, imports the files into
+ * a second fresh database and checks the row counts. Names contain commas and quotes so the quoting
+ * path is exercised. The best time of each step over all rounds is printed.
+ *
+ * The second database restocks one of its sample items before the import, so the stock journal's ids
+ * run ahead of the inventory rowids. After the import, every thousandth imported SKU (and the last
+ * one) must come back from a full-text search as exactly that item under its own name.
+ */
+public class CsvBenchmark {
+
+    private static final String[] CATEGORIES = {"Electronics", "Clothing", "Food", "Other"};
+    private static final String[] LOCATIONS = {"Warehouse A", "Warehouse B", "Shelf 1", "Shelf 2"};
+    private static final String[] STEPS = {"seed", "export inventory", "import inventory", "export sales", "import sales"};
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        Path dir = Files.createTempDirectory("csv-bench");
+        long[] best = new long[STEPS.length];
+        Arrays.fill(best, Long.MAX_VALUE);
+
+        for (int round = 1; round <= rounds; round++) {
+            Path source = dir.resolve("source-" + round + ".db"), target = dir.resolve("target-" + round + ".db");
+            Path inventoryCsv = dir.resolve("inventory.csv"), salesCsv = dir.resolve("sales.csv");
+            DBHelper src = open(source), dst = open(target);
+            try {
+                long[] t = new long[STEPS.length];
+                long start = System.nanoTime();
+                seed(src, rows);
+                t[0] = System.nanoTime() - start;
+
+                CsvTransfer out = new CsvTransfer(src, ',');
+                CsvTransfer in = new CsvTransfer(dst, ',');
+                dst.updateQuantity("UQ001", 130);
+                dst.updateQuantity("UQ001", 140);
+                start = System.nanoTime();
+                long exported = out.exportInventory(inventoryCsv, CsvTransfer.NO_PROGRESS);
+                t[1] = System.nanoTime() - start;
+                start = System.nanoTime();
+                in.importInventory(inventoryCsv, CsvTransfer.NO_PROGRESS);
+                t[2] = System.nanoTime() - start;
+                start = System.nanoTime();
+                long exportedSales = out.exportSales(salesCsv, SalesFilter.ALL, CsvTransfer.NO_PROGRESS);
+                t[3] = System.nanoTime() - start;
+                start = System.nanoTime();
+                in.importSales(salesCsv, CsvTransfer.NO_PROGRESS);
+                t[4] = System.nanoTime() - start;
+
+                check("inventory", exported, dst.countInventory());
+                check("sales", exportedSales, dst.countSales(SalesFilter.ALL));
+                checkSearch(dst, rows);
+                for (int i = 0; i < t.length; i++) best[i] = Math.min(best[i], t[i]);
+                System.out.printf("round %d: %s%n", round, summary(t));
+            } finally {
+                src.close();
+                dst.close();
+                deleteDatabase(source);
+                deleteDatabase(target);
+                Files.deleteIfExists(inventoryCsv);
+                Files.deleteIfExists(salesCsv);
+            }
+        }
+        Files.deleteIfExists(dir);
+
+        System.out.printf("%nbest of %d, %,d rows per table%n", rounds, rows);
+        for (int i = 0; i < STEPS.length; i++) {
+            System.out.printf("  %-17s %8.0f ms  %,12.0f rows/s%n", STEPS[i], best[i] / 1e6, rows / (best[i] / 1e9));
+        }
+    }
+
+    private static DBHelper open(Path file) {
+        return new DBHelper(new SQLiteConnectionPool("jdbc:sqlite:" + file));
+    }
+
+    /** Fills both tables through the bulk import path, so seeding is not the bottleneck. */
+    private static void seed(DBHelper db, int rows) {
+        db.importInventory(sink -> {
+            for (int i = 0; i < rows; i++) {
+                sink.accept(String.format("SKU%07d", i), name(i), i % 500, 1.25 + i % 100,
+                        2.5 + i % 100, CATEGORIES[i % CATEGORIES.length], LOCATIONS[i % LOCATIONS.length], i % 20);
+            }
+        });
+        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        LocalDateTime first = LocalDateTime.now().minusYears(1);
+        long step = Math.max(1, 365L * 24 * 3600 / rows);
+        db.importSales(sink -> {
+            for (int i = 0; i < rows; i++) {
+                sink.accept(new SaleLine(String.format("SKU%07d", i % 5000), name(i % 5000),
+                        CATEGORIES[i % CATEGORIES.length], 1 + i % 5, 2.5 + i % 100,
+                        first.plusSeconds(i * step).format(fmt)));
+            }
+        });
+    }
+
+    private static void check(String table, long expected, long actual) {
+        if (expected != actual) throw new IllegalStateException(table + ": exported " + expected + " rows but imported " + actual);
+    }
+
+    /** The full-text index must map imported SKUs to their own rows. */
+    private static void checkSearch(DBHelper db, int rows) {
+        for (int i = 0; i < rows; i += 1000) checkSearchFinds(db, i);
+        if (rows > 0) checkSearchFinds(db, rows - 1);
+    }
+
+    private static void checkSearchFinds(DBHelper db, int i) {
+        String sku = String.format("SKU%07d", i);
+        List<String> found = new ArrayList<>();
+        db.searchInventory(sku, 2, 0, (s, n, qty, cost, sell, cat, loc, min) -> found.add(s + " / " + n));
+        if (!found.equals(List.of(sku + " / " + name(i)))) {
+            throw new IllegalStateException("search for imported " + sku + " found " + found);
+        }
+    }
+
+    private static String name(int i) {
+        return "Item " + i + ", \"large\"";
+    }
+
+    private static String summary(long[] t) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < t.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(STEPS[i]).append(' ').append(t[i] / 1_000_000).append(" ms");
+        }
+        return sb.toString();
+    }
+
+    private static void deleteDatabase(Path db) throws IOException {
+        for (String suffix : new String[]{"", "-wal", "-shm", "-journal"}) {
+            Files.deleteIfExists(db.resolveSibling(db.getFileName() + suffix));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads RFC 4180 delimited text one record at a time.
+ *
+ * Quoted fields may contain the delimiter, doubled quotes and line breaks; records may end in CRLF,
+ * LF or CR; a leading UTF-8 byte order mark is skipped. Input is decoded from a FileChannel into a
+ * 64 KiB char buffer that is reused for the whole file, and the field array is reused between
+ * records, so only the field strings themselves are allocated.
+ */
+public class CsvReader implements AutoCloseable {
+
+    private final Reader in;
+    private final char delimiter;
+    private final char[] buf = new char[1 << 16];
+    private int pos, len;
+    private boolean eof;
+
+    private final StringBuilder field = new StringBuilder(64);
+    private String[] fields = new String[16];
+    private int fieldCount;
+    private long line = 1, recordLine;
+
+    public CsvReader(Path file, char delimiter) throws IOException {
+        this.in = Channels.newReader(FileChannel.open(file, StandardOpenOption.READ), StandardCharsets.UTF_8);
+        this.delimiter = delimiter;
+        if (peek() == '\uFEFF') pos++;
+    }
+
+    /**
+     * Advances to the next record. Blank lines are skipped.
+     *
+     * @return false at end of input
+     */
+    public boolean next() throws IOException {
+        do {
+            if (peek() < 0) return false;
+            recordLine = line;
+            readRecord();
+        } while (fieldCount == 1 && fields[0].isEmpty());
+        return true;
+    }
+
+    public int fieldCount() { return fieldCount; }
+
+    public String field(int i) { return fields[i]; }
+
+    /** 1-based line number on which the current record starts, for error messages. */
+    public long line() { return recordLine; }
+
+    private void readRecord() throws IOException {
+        fieldCount = 0;
+        while (true) {
+            field.setLength(0);
+            int c = read();
+            if (c == '"') {
+                readQuoted();
+                c = read();
+                if (c != delimiter && c != '\n' && c != '\r' && c >= 0)
+                    throw new IOException("Line " + line + ": unexpected '" + (char) c + "' after closing quote");
+            } else {
+                while (c != delimiter && c != '\n' && c != '\r' && c >= 0) {
+                    field.append((char) c);
+                    c = read();
+                }
+            }
+            add(field.toString());
+            if (c == delimiter) continue;
+            if (c == '\r' && peek() == '\n') pos++;
+            if (c >= 0) line++;
+            return;
+        }
+    }
+
+    private void readQuoted() throws IOException {
+        long start = line;
+        while (true) {
+            int c = read();
+            if (c < 0) throw new IOException("Line " + start + ": unterminated quoted field");
+            if (c == '"') {
+                if (peek() != '"') return;
+                pos++;
+            } else if (c == '\n' || (c == '\r' && peek() != '\n')) {
+                line++;
+            }
+            field.append((char) c);
+        }
+    }
+
+    private void add(String value) {
+        if (fieldCount == fields.length) fields = Arrays.copyOf(fields, fieldCount * 2);
+        fields[fieldCount++] = value;
+    }
+
+    private int read() throws IOException {
+        if (pos == len && !fill()) return -1;
+        return buf[pos++];
+    }
+
+    private int peek() throws IOException {
+        if (pos == len && !fill()) return -1;
+        return buf[pos];
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) return false;
+        int n = in.read(buf, 0, buf.length);
+        if (n <= 0) {
+            eof = true;
+            return false;
+        }
+        pos = 0;
+        len = n;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,252 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Moves the inventory and sales tables to and from delimited text files.
+ *
+ * Exports stream keyset pages straight from SQLite into a {@link CsvWriter}; imports parse with a
+ * {@link CsvReader} and feed {@link DBHelper#importInventory} / {@link DBHelper#importSales}, which
+ * write in batches inside one transaction. Neither direction holds more than a page of rows in memory.
+ * Every method blocks, so call it off the EDT (e.g. through {@link AsyncDB#submit}); progress is
+ * reported from the calling thread every {@value #PROGRESS_EVERY} rows and once at the end.
+ *
+ * Imports match header names case-insensitively, in any column order. Inventory files may also use
+ * the table headings shown in the apps ("Item Name", "Cost Price", ...).
+ */
+public class CsvTransfer {
+
+    /** Receives the number of rows done so far and the expected total, or -1 when it is not known. */
+    public interface Progress {
+        void update(long rows, long total);
+    }
+
+    public static final Progress NO_PROGRESS = (rows, total) -> {};
+
+    private static final int PROGRESS_EVERY = 10_000;
+    private static final int PAGE_SIZE = 5_000;
+
+    static final String[] INVENTORY_HEADER = {
+            "sku", "name", "quantity", "cost_price", "sell_price", "category", "location", "min_stock"
+    };
+    static final String[] SALES_HEADER = {"id", "timestamp", "sku", "name", "category", "qty", "price"};
+
+    // the only shape sales.timestamp takes; anything else would leave the sale without a ts
+    private static final DateTimeFormatter TIMESTAMP =
+            DateTimeFormatter.ofPattern("uuuu-MM-dd HH:mm:ss").withResolverStyle(ResolverStyle.STRICT);
+
+    private static final Map<String, String> INVENTORY_ALIASES = Map.of(
+            "item name", "name", "cost price", "cost_price", "selling price", "sell_price",
+            "min stock threshold", "min_stock", "min stock", "min_stock");
+
+    private final DBHelper db;
+    private final char delimiter;
+
+    public CsvTransfer(DBHelper db, char delimiter) {
+        this.db = db;
+        this.delimiter = delimiter;
+    }
+
+    /** Tab-delimited for .tsv and .tab files, comma-delimited otherwise. */
+    public static CsvTransfer forFile(DBHelper db, Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return new CsvTransfer(db, name.endsWith(".tsv") || name.endsWith(".tab") ? '\t' : ',');
+    }
+
+    // ---------- Export ----------
+
+    /** @return the number of items written */
+    public long exportInventory(Path file, Progress progress) throws IOException {
+        long total = db.countInventory();
+        try (CsvWriter out = new CsvWriter(file, delimiter)) {
+            out.record(INVENTORY_HEADER);
+            long[] n = {0};
+            try {
+                db.streamInventory(PAGE_SIZE, (sku, name, qty, cost, sell, cat, loc, min) -> {
+                    try {
+                        out.field(sku).field(name).field(qty).field(cost).field(sell)
+                                .field(cat).field(loc).field(min).endRecord();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    if (++n[0] % PROGRESS_EVERY == 0) progress.update(n[0], total);
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            progress.update(n[0], total);
+            return n[0];
+        }
+    }
+
+    /** Writes the sales the filter matches, newest first. @return the number of sales written */
+    public long exportSales(Path file, SalesFilter filter, Progress progress) throws IOException {
+        long total = db.countSales(filter);
+        try (CsvWriter out = new CsvWriter(file, delimiter)) {
+            out.record(SALES_HEADER);
+            long[] n = {0};
+            DBHelper.SalesRowConsumer sink = (id, ts, timestamp, sku, name, category, qty, price) -> {
+                try {
+                    out.field(id).field(timestamp).field(sku).field(name).field(category)
+                            .field(qty).field(price).endRecord();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (++n[0] % PROGRESS_EVERY == 0) progress.update(n[0], total);
+            };
+            try {
+                long[] key = {Long.MAX_VALUE, Long.MAX_VALUE};
+                while (key != null) key = db.fetchSalesPage(filter, key[0], key[1], PAGE_SIZE, sink);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            progress.update(n[0], total);
+            return n[0];
+        }
+    }
+
+    // ---------- Import ----------
+
+    /**
+     * Inserts every item in the file, overwriting existing SKUs. category, location and min_stock
+     * are optional columns; quantities, prices and min_stock must not be negative. Nothing is written
+     * unless the whole file loads.
+     *
+     * @return the number of items written
+     */
+    public int importInventory(Path file, Progress progress) throws IOException {
+        try (CsvReader in = new CsvReader(file, delimiter)) {
+            Map<String, Integer> cols = header(in, file, INVENTORY_ALIASES);
+            int sku = column(cols, "sku"), name = column(cols, "name"), qty = column(cols, "quantity");
+            int cost = column(cols, "cost_price"), sell = column(cols, "sell_price");
+            int cat = cols.getOrDefault("category", -1), loc = cols.getOrDefault("location", -1);
+            int min = cols.getOrDefault("min_stock", -1);
+            return unwrap(() -> db.importInventory(sink -> {
+                long n = 0;
+                while (in.next()) {
+                    sink.accept(text(in, sku), text(in, name), nonNegative(in, qty, toInt(in, qty)),
+                            nonNegative(in, cost, toDouble(in, cost)), nonNegative(in, sell, toDouble(in, sell)),
+                            text(in, cat), text(in, loc), nonNegative(in, min, optionalInt(in, min, 0)));
+                    if (++n % PROGRESS_EVERY == 0) progress.update(n, -1);
+                }
+                progress.update(n, n);
+            }));
+        }
+    }
+
+    /**
+     * Appends every sale in the file. The id column, if present, is ignored and fresh ids are assigned.
+     * Timestamps must be local times in the form yyyy-MM-dd HH:mm:ss. Nothing is written unless the
+     * whole file loads.
+     *
+     * @return the number of sales written
+     */
+    public int importSales(Path file, Progress progress) throws IOException {
+        try (CsvReader in = new CsvReader(file, delimiter)) {
+            Map<String, Integer> cols = header(in, file, Map.of());
+            int timestamp = column(cols, "timestamp"), sku = column(cols, "sku"), name = column(cols, "name");
+            int qty = column(cols, "qty"), price = column(cols, "price");
+            int cat = cols.getOrDefault("category", -1);
+            return unwrap(() -> db.importSales(sink -> {
+                long n = 0;
+                while (in.next()) {
+                    sink.accept(new SaleLine(text(in, sku), text(in, name), text(in, cat),
+                            toInt(in, qty), toDouble(in, price), timestamp(in, timestamp)));
+                    if (++n % PROGRESS_EVERY == 0) progress.update(n, -1);
+                }
+                progress.update(n, n);
+            }));
+        }
+    }
+
+    private interface Import {
+        int run();
+    }
+
+    private static int unwrap(Import work) throws IOException {
+        try {
+            return work.run();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /** Reads the header record into lower-cased column name -> index, applying the aliases. */
+    private static Map<String, Integer> header(CsvReader in, Path file, Map<String, String> aliases) throws IOException {
+        if (!in.next()) throw new IOException(file.getFileName() + " is empty");
+        Map<String, Integer> cols = new HashMap<>();
+        for (int i = 0; i < in.fieldCount(); i++) {
+            String h = in.field(i).trim().toLowerCase(Locale.ROOT);
+            cols.putIfAbsent(aliases.getOrDefault(h, h), i);
+        }
+        return cols;
+    }
+
+    private static int column(Map<String, Integer> cols, String name) throws IOException {
+        Integer i = cols.get(name);
+        if (i == null) throw new IOException("Missing column: " + name);
+        return i;
+    }
+
+    /** The field, or null when it is empty, the column is absent from the file or the record is short. */
+    private static String text(CsvReader in, int col) {
+        String s = col >= 0 && col < in.fieldCount() ? in.field(col) : null;
+        return s == null || s.isEmpty() ? null : s;
+    }
+
+    private static int optionalInt(CsvReader in, int col, int absent) throws IOException {
+        String s = text(in, col);
+        return s == null || s.isBlank() ? absent : toInt(in, col);
+    }
+
+    private static int toInt(CsvReader in, int col) throws IOException {
+        String s = text(in, col);
+        if (s == null || s.isBlank()) throw new IOException("Line " + in.line() + ": column " + (col + 1) + " is empty");
+        try {
+            return Integer.parseInt(s.trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Line " + in.line() + ": '" + s + "' is not a whole number");
+        }
+    }
+
+    private static int nonNegative(CsvReader in, int col, int value) throws IOException {
+        if (value < 0) throw new IOException("Line " + in.line() + ": column " + (col + 1) + " is negative (" + value + ")");
+        return value;
+    }
+
+    private static double nonNegative(CsvReader in, int col, double value) throws IOException {
+        if (value < 0) throw new IOException("Line " + in.line() + ": column " + (col + 1) + " is negative (" + value + ")");
+        return value;
+    }
+
+    private static String timestamp(CsvReader in, int col) throws IOException {
+        String s = text(in, col);
+        if (s == null) throw new IOException("Line " + in.line() + ": missing timestamp");
+        try {
+            LocalDateTime.parse(s, TIMESTAMP);
+        } catch (DateTimeParseException e) {
+            throw new IOException("Line " + in.line() + ": '" + s + "' is not a yyyy-MM-dd HH:mm:ss timestamp");
+        }
+        return s;
+    }
+
+    private static double toDouble(CsvReader in, int col) throws IOException {
+        String s = text(in, col);
+        if (s == null || s.isBlank()) throw new IOException("Line " + in.line() + ": column " + (col + 1) + " is empty");
+        double v;
+        try {
+            v = Double.parseDouble(s.trim());
+        } catch (NumberFormatException e) {
+            v = Double.NaN;
+        }
+        if (!Double.isFinite(v)) throw new IOException("Line " + in.line() + ": '" + s + "' is not a number");
+        return v;
+    }
+}
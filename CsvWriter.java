@@ -0,0 +1,94 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes RFC 4180 delimited text: records end in CRLF, and a field is quoted only when it contains the
+ * delimiter, a double quote, CR or LF, with inner quotes doubled. null is written as an empty field.
+ *
+ * Output goes through a 64 KiB char buffer into a UTF-8 encoder on a FileChannel, so the channel sees a
+ * few large writes however many small fields are appended.
+ */
+public class CsvWriter implements AutoCloseable {
+
+    private final Writer out;
+    private final char delimiter;
+    private boolean firstField = true;
+
+    public CsvWriter(Path file, char delimiter) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.out = new BufferedWriter(Channels.newWriter(ch, StandardCharsets.UTF_8), 1 << 16);
+        this.delimiter = delimiter;
+    }
+
+    public CsvWriter field(String value) throws IOException {
+        separate();
+        if (value == null || value.isEmpty()) return this;
+        if (needsQuotes(value)) {
+            out.write('"');
+            int from = 0;
+            for (int q; (q = value.indexOf('"', from)) >= 0; from = q + 1) {
+                out.write(value, from, q + 1 - from);
+                out.write('"');
+            }
+            out.write(value, from, value.length() - from);
+            out.write('"');
+        } else {
+            out.write(value);
+        }
+        return this;
+    }
+
+    public CsvWriter field(int value) throws IOException {
+        separate();
+        out.write(Integer.toString(value));
+        return this;
+    }
+
+    public CsvWriter field(long value) throws IOException {
+        separate();
+        out.write(Long.toString(value));
+        return this;
+    }
+
+    public CsvWriter field(double value) throws IOException {
+        separate();
+        out.write(Double.toString(value));
+        return this;
+    }
+
+    /** Writes a whole record of text fields. */
+    public void record(String... fields) throws IOException {
+        for (String f : fields) field(f);
+        endRecord();
+    }
+
+    public void endRecord() throws IOException {
+        out.write("\r\n");
+        firstField = true;
+    }
+
+    private void separate() throws IOException {
+        if (!firstField) out.write(delimiter);
+        firstField = false;
+    }
+
+    private boolean needsQuotes(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == delimiter || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
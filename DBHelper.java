@@ -1,10 +1,21 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
 
 public class DBHelper {
     private static final String DB_URL = "jdbc:sqlite:inventory.db";
 
+    /** Returned by {@link #sell} when the SKU does not have enough stock (or does not exist). */
+    public static final int INSUFFICIENT_STOCK = -1;
+
     static {
         try {
             // Ensure SQLite JDBC driver is loaded
@@ -14,143 +25,861 @@ public class DBHelper {
         }
     }
 
+    private final ConnectionProvider connections;
+
     public DBHelper() {
+        this(new SQLiteConnectionPool(DB_URL));
+    }
+
+    public DBHelper(ConnectionProvider connections) {
+        this.connections = connections;
         init();
     }
 
-    private void init() {
-        try (Connection con = getConnection();
-             Statement st = con.createStatement()) {
-
-            st.execute("""
-                CREATE TABLE IF NOT EXISTS users(
-                    id INTEGER PRIMARY KEY AUTOINCREMENT,
-                    username TEXT UNIQUE NOT NULL,
-                    password TEXT NOT NULL,
-                    role TEXT NOT NULL CHECK(role IN ('Admin','Manager','Staff'))
-                )
-            """);
-
-            st.execute("""
-                CREATE TABLE IF NOT EXISTS inventory(
-                    sku TEXT PRIMARY KEY,
-                    name TEXT NOT NULL,
-                    quantity INTEGER NOT NULL,
-                    cost_price REAL NOT NULL,
-                    sell_price REAL NOT NULL,
-                    category TEXT,
-                    location TEXT,
-                    min_stock INTEGER DEFAULT 0
-                )
-            """);
-
-            st.execute("""
-                CREATE TABLE IF NOT EXISTS sales(
-                    id INTEGER PRIMARY KEY AUTOINCREMENT,
-                    sku TEXT NOT NULL,
-                    name TEXT NOT NULL,
-                    category TEXT,
-                    qty INTEGER NOT NULL,
-                    price REAL NOT NULL,
-                    timestamp TEXT NOT NULL
-                )
-            """);
-
-            // Seed users if empty
-            try (ResultSet rs = st.executeQuery("SELECT COUNT(*) AS c FROM users")) {
-                if (rs.next() && rs.getInt("c") == 0) {
-                    st.executeUpdate("INSERT INTO users(username,password,role) VALUES" +
-                            "('admin','admin123','Admin')," +
-                            "('manager','manager123','Manager')," +
-                            "('staff','staff123','Staff')");
-                }
-            }
+    /** One schema step. Each runs once, in its own transaction, in list order. */
+    private interface Migration {
+        void apply(Statement st) throws SQLException;
+    }
 
-            // Seed inventory if empty
-            try (ResultSet rs = st.executeQuery("SELECT COUNT(*) AS c FROM inventory")) {
-                if (rs.next() && rs.getInt("c") == 0) {
-                    st.executeUpdate("INSERT INTO inventory(sku,name,quantity,cost_price,sell_price,category,location,min_stock) VALUES" +
-                            "('UQ001','USB Cable',120,1.5,3.5,'Electronics','Shelf 1',10)," +
-                            "('UQ002','T-Shirt',30,5.0,12.0,'Clothing','Shelf 2',5)," +
-                            "('UQ003','Chips',200,0.5,1.2,'Food','Warehouse A',20)");
-                }
+    // MIGRATIONS.get(i) takes the database from user_version i to i + 1.
+    // Append new steps at the end; never edit or reorder one that has shipped.
+    private static final List<Migration> MIGRATIONS = List.of(
+            DBHelper::createBaseSchema,
+            DBHelper::addSalesTimestamps,
+            DBHelper::addSalesRollups,
+            DBHelper::indexSalesByTime,
+            DBHelper::addInventorySearch,
+            DBHelper::indexLowStock,
+            DBHelper::hashPasswords,
+            DBHelper::addStockJournal
+    );
+
+    private void init() {
+        try {
+            // fast path: a current database needs no DDL, no seed checks and no write lock
+            int current = schemaVersion();
+            for (int v = current; v < MIGRATIONS.size(); v++) {
+                int target = v + 1;
+                Migration step = MIGRATIONS.get(v);
+                inWriteTransaction(con -> {
+                    try (Statement st = con.createStatement()) {
+                        step.apply(st);
+                        st.execute("PRAGMA user_version = " + target);
+                    }
+                    return null;
+                });
             }
         } catch (SQLException e) {
             throw new RuntimeException("DB init failed: " + e.getMessage(), e);
         }
     }
 
-    public Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL);
+    /** The PRAGMA user_version of the database, i.e. how many migrations it has been through. */
+    public int schemaVersion() throws SQLException {
+        try (PooledConnection con = connections.reader();
+             Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // ---------- Migrations ----------
+    // Databases created before versioning sit at user_version 0 with some of these already applied,
+    // so every step must tolerate finding its work done.
+
+    private static void createBaseSchema(Statement st) throws SQLException {
+        st.execute("""
+            CREATE TABLE IF NOT EXISTS users(
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                username TEXT UNIQUE NOT NULL,
+                password TEXT NOT NULL,
+                role TEXT NOT NULL CHECK(role IN ('Admin','Manager','Staff'))
+            )
+        """);
+
+        st.execute("""
+            CREATE TABLE IF NOT EXISTS inventory(
+                sku TEXT PRIMARY KEY,
+                name TEXT NOT NULL,
+                quantity INTEGER NOT NULL,
+                cost_price REAL NOT NULL,
+                sell_price REAL NOT NULL,
+                category TEXT,
+                location TEXT,
+                min_stock INTEGER DEFAULT 0
+            )
+        """);
+
+        st.execute("""
+            CREATE TABLE IF NOT EXISTS sales(
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                sku TEXT NOT NULL,
+                name TEXT NOT NULL,
+                category TEXT,
+                qty INTEGER NOT NULL,
+                price REAL NOT NULL,
+                timestamp TEXT NOT NULL
+            )
+        """);
+
+        // Seed users if empty
+        try (ResultSet rs = st.executeQuery("SELECT COUNT(*) AS c FROM users")) {
+            if (rs.next() && rs.getInt("c") == 0) {
+                st.executeUpdate("INSERT INTO users(username,password,role) VALUES" +
+                        "('admin','admin123','Admin')," +
+                        "('manager','manager123','Manager')," +
+                        "('staff','staff123','Staff')");
+            }
+        }
+
+        // Seed inventory if empty
+        try (ResultSet rs = st.executeQuery("SELECT COUNT(*) AS c FROM inventory")) {
+            if (rs.next() && rs.getInt("c") == 0) {
+                st.executeUpdate("INSERT INTO inventory(sku,name,quantity,cost_price,sell_price,category,location,min_stock) VALUES" +
+                        "('UQ001','USB Cable',120,1.5,3.5,'Electronics','Shelf 1',10)," +
+                        "('UQ002','T-Shirt',30,5.0,12.0,'Clothing','Shelf 2',5)," +
+                        "('UQ003','Chips',200,0.5,1.2,'Food','Warehouse A',20)");
+            }
+        }
+    }
+
+    /**
+     * Gives sales an epoch-millis ts column next to the text timestamp, backfilled for existing rows,
+     * plus the (sku, ts) and (category, ts) indexes that range queries need.
+     */
+    private static void addSalesTimestamps(Statement st) throws SQLException {
+        if (!hasColumn(st, "sales", "ts")) {
+            st.execute("ALTER TABLE sales ADD COLUMN ts INTEGER");
+            // timestamp holds local time; the 'utc' modifier converts it before taking epoch seconds
+            st.executeUpdate("UPDATE sales SET ts = CAST(strftime('%s', timestamp, 'utc') AS INTEGER) * 1000");
+        }
+        st.execute("CREATE INDEX IF NOT EXISTS idx_sales_sku_ts ON sales(sku, ts)");
+        st.execute("CREATE INDEX IF NOT EXISTS idx_sales_category_ts ON sales(category, ts)");
+    }
+
+    /**
+     * Summary tables kept current by triggers on every sales insert, so reports read a few rollup rows
+     * instead of scanning the sales history. Days and hours come from the local-time timestamp column;
+     * sales without a category count under ''. Existing sales are folded in once here.
+     */
+    private static void addSalesRollups(Statement st) throws SQLException {
+        st.execute("""
+            CREATE TABLE IF NOT EXISTS sales_daily(
+              day TEXT PRIMARY KEY, revenue REAL NOT NULL, units INTEGER NOT NULL, sales INTEGER NOT NULL)""");
+        st.execute("""
+            CREATE TABLE IF NOT EXISTS sales_hourly(
+              hour TEXT PRIMARY KEY, revenue REAL NOT NULL, units INTEGER NOT NULL, sales INTEGER NOT NULL)""");
+        st.execute("""
+            CREATE TABLE IF NOT EXISTS sales_by_sku(
+              sku TEXT PRIMARY KEY, revenue REAL NOT NULL, units INTEGER NOT NULL, sales INTEGER NOT NULL)""");
+        st.execute("""
+            CREATE TABLE IF NOT EXISTS sales_category_daily(
+              day TEXT NOT NULL, category TEXT NOT NULL, revenue REAL NOT NULL, units INTEGER NOT NULL,
+              sales INTEGER NOT NULL, PRIMARY KEY(day, category)) WITHOUT ROWID""");
+
+        st.execute("DELETE FROM sales_daily");
+        st.execute("DELETE FROM sales_hourly");
+        st.execute("DELETE FROM sales_by_sku");
+        st.execute("DELETE FROM sales_category_daily");
+        foldSalesIntoRollups(st, 0);
+        st.execute(SALES_ROLLUP_TRIGGER);
+    }
+
+    private static final String SALES_ROLLUP_TRIGGER = """
+            CREATE TRIGGER IF NOT EXISTS trg_sales_rollup AFTER INSERT ON sales BEGIN
+              INSERT INTO sales_daily VALUES(substr(NEW.timestamp, 1, 10), NEW.qty * NEW.price, NEW.qty, 1)
+                ON CONFLICT(day) DO UPDATE SET revenue = revenue + excluded.revenue,
+                  units = units + excluded.units, sales = sales + 1;
+              INSERT INTO sales_hourly VALUES(substr(NEW.timestamp, 1, 13), NEW.qty * NEW.price, NEW.qty, 1)
+                ON CONFLICT(hour) DO UPDATE SET revenue = revenue + excluded.revenue,
+                  units = units + excluded.units, sales = sales + 1;
+              INSERT INTO sales_by_sku VALUES(NEW.sku, NEW.qty * NEW.price, NEW.qty, 1)
+                ON CONFLICT(sku) DO UPDATE SET revenue = revenue + excluded.revenue,
+                  units = units + excluded.units, sales = sales + 1;
+              INSERT INTO sales_category_daily VALUES(substr(NEW.timestamp, 1, 10), COALESCE(NEW.category, ''), NEW.qty * NEW.price, NEW.qty, 1)
+                ON CONFLICT(day, category) DO UPDATE SET revenue = revenue + excluded.revenue,
+                  units = units + excluded.units, sales = sales + 1;
+            END""";
+
+    /** Adds every sale with id > afterId to the rollup tables with one grouped pass per table. */
+    private static void foldSalesIntoRollups(Statement st, long afterId) throws SQLException {
+        String add = " DO UPDATE SET revenue = revenue + excluded.revenue, " +
+                "units = units + excluded.units, sales = sales + excluded.sales";
+        st.executeUpdate("INSERT INTO sales_daily SELECT substr(timestamp, 1, 10), SUM(qty * price), SUM(qty), COUNT(*) " +
+                "FROM sales WHERE id > " + afterId + " GROUP BY 1 ON CONFLICT(day)" + add);
+        st.executeUpdate("INSERT INTO sales_hourly SELECT substr(timestamp, 1, 13), SUM(qty * price), SUM(qty), COUNT(*) " +
+                "FROM sales WHERE id > " + afterId + " GROUP BY 1 ON CONFLICT(hour)" + add);
+        st.executeUpdate("INSERT INTO sales_by_sku SELECT sku, SUM(qty * price), SUM(qty), COUNT(*) " +
+                "FROM sales WHERE id > " + afterId + " GROUP BY sku ON CONFLICT(sku)" + add);
+        st.executeUpdate("INSERT INTO sales_category_daily SELECT substr(timestamp, 1, 10), COALESCE(category, ''), SUM(qty * price), SUM(qty), COUNT(*) " +
+                "FROM sales WHERE id > " + afterId + " GROUP BY 1, 2 ON CONFLICT(day, category)" + add);
+    }
+
+    /** Lets the sales report walk the whole history newest-first by (ts, id) without sorting. */
+    private static void indexSalesByTime(Statement st) throws SQLException {
+        st.execute("CREATE INDEX IF NOT EXISTS idx_sales_ts ON sales(ts)");
+    }
+
+    /**
+     * Full-text index over inventory(sku, name, category, location) for catalogues too large to hold
+     * in the client. It is an external-content FTS5 table keyed by the inventory rowid, so the text is
+     * not stored twice, and triggers keep it in step; quantity-only updates (restock, sell) skip it.
+     * Prefix indexes for 2 and 3 characters keep short search-as-you-type prefixes cheap. inventory
+     * has no INTEGER PRIMARY KEY, so a VACUUM could renumber its rowids; follow any VACUUM with
+     * INSERT INTO inventory_fts(inventory_fts) VALUES('rebuild').
+     */
+    private static void addInventorySearch(Statement st) throws SQLException {
+        st.execute("""
+            CREATE VIRTUAL TABLE IF NOT EXISTS inventory_fts USING fts5(
+              sku, name, category, location, content='inventory', content_rowid='rowid',
+              tokenize='unicode61 remove_diacritics 2', prefix='2 3')""");
+        for (String trigger : INVENTORY_FTS_TRIGGERS) st.execute(trigger);
+        st.execute("INSERT INTO inventory_fts(inventory_fts) VALUES ('rebuild')");
+    }
+
+    // Convenient for single edits, but FTS5 flushes its pending terms at every statement savepoint, which
+    // a trigger body runs inside, so each fired row writes its own index segment. Bulk paths drop these
+    // and write the index with plain VALUES statements instead (see importInventory).
+    private static final String[] INVENTORY_FTS_TRIGGERS = {
+            """
+            CREATE TRIGGER IF NOT EXISTS trg_inventory_fts_insert AFTER INSERT ON inventory BEGIN
+              INSERT INTO inventory_fts(rowid, sku, name, category, location)
+                VALUES (NEW.rowid, NEW.sku, NEW.name, NEW.category, NEW.location);
+            END""",
+            """
+            CREATE TRIGGER IF NOT EXISTS trg_inventory_fts_delete AFTER DELETE ON inventory BEGIN
+              INSERT INTO inventory_fts(inventory_fts, rowid, sku, name, category, location)
+                VALUES ('delete', OLD.rowid, OLD.sku, OLD.name, OLD.category, OLD.location);
+            END""",
+            """
+            CREATE TRIGGER IF NOT EXISTS trg_inventory_fts_update AFTER UPDATE OF sku, name, category, location ON inventory BEGIN
+              INSERT INTO inventory_fts(inventory_fts, rowid, sku, name, category, location)
+                VALUES ('delete', OLD.rowid, OLD.sku, OLD.name, OLD.category, OLD.location);
+              INSERT INTO inventory_fts(rowid, sku, name, category, location)
+                VALUES (NEW.rowid, NEW.sku, NEW.name, NEW.category, NEW.location);
+            END"""
+    };
+
+    /**
+     * Partial index holding only the items at or below their minimum stock, so listing or counting them
+     * reads k index entries instead of scanning the table. Queries must use the same
+     * "quantity <= min_stock" term for the planner to pick it.
+     */
+    private static void indexLowStock(Statement st) throws SQLException {
+        st.execute("CREATE INDEX IF NOT EXISTS idx_inventory_low_stock ON inventory(sku) WHERE quantity <= min_stock");
+    }
+
+    /**
+     * Replaces every plaintext password in users with a salted {@link PasswordHasher} hash of it. The
+     * column keeps its name and type; rows already hashed are left alone.
+     */
+    private static void hashPasswords(Statement st) throws SQLException {
+        Map<Long, String> plain = new LinkedHashMap<>();
+        try (ResultSet rs = st.executeQuery("SELECT id, password FROM users")) {
+            while (rs.next()) {
+                String password = rs.getString(2);
+                if (!PasswordHasher.isHashed(password)) plain.put(rs.getLong(1), password);
+            }
+        }
+        try (PreparedStatement ps = st.getConnection().prepareStatement("UPDATE users SET password=? WHERE id=?")) {
+            for (Map.Entry<Long, String> e : plain.entrySet()) {
+                ps.setString(1, PasswordHasher.DEFAULT.hash(e.getValue()));
+                ps.setLong(2, e.getKey());
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * The stock journal: every change to an item's quantity is appended to stock_movements in the same
+     * transaction as the change itself, and snapshots hold all quantities as of some movement so they
+     * can be rebuilt without replaying the whole history (see {@link StockJournal}). The journal opens
+     * with one adjustment per existing item, for the stock it has now.
+     */
+    private static void addStockJournal(Statement st) throws SQLException {
+        st.execute("""
+            CREATE TABLE IF NOT EXISTS stock_movements(
+                id INTEGER PRIMARY KEY,
+                ts INTEGER NOT NULL,
+                sku TEXT NOT NULL,
+                kind INTEGER NOT NULL,
+                delta INTEGER NOT NULL
+            )
+        """);
+        st.execute("CREATE INDEX IF NOT EXISTS idx_stock_movements_sku ON stock_movements(sku, id)");
+        st.execute("""
+            CREATE TABLE IF NOT EXISTS stock_snapshots(
+                id INTEGER PRIMARY KEY,
+                through INTEGER NOT NULL,
+                ts INTEGER NOT NULL
+            )
+        """);
+        st.execute("""
+            CREATE TABLE IF NOT EXISTS stock_snapshot_items(
+                snapshot INTEGER NOT NULL,
+                sku TEXT NOT NULL,
+                quantity INTEGER NOT NULL,
+                PRIMARY KEY(snapshot, sku)
+            ) WITHOUT ROWID
+        """);
+        try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM stock_movements")) {
+            if (rs.next() && rs.getLong(1) > 0) return;
+        }
+        st.executeUpdate("INSERT INTO stock_movements(ts, sku, kind, delta) SELECT " + System.currentTimeMillis() +
+                ", sku, " + StockMovement.ADJUSTMENT + ", quantity FROM inventory ORDER BY sku");
+    }
+
+    private static boolean hasColumn(Statement st, String table, String column) throws SQLException {
+        try (ResultSet rs = st.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) return true;
+            }
+            return false;
+        }
+    }
+
+    private interface SqlWork<T> {
+        T run(PooledConnection con) throws SQLException;
+    }
+
+    /** Runs the work on the writer as one transaction: committed if it returns, rolled back if it throws. */
+    private <T> T inWriteTransaction(SqlWork<T> work) throws SQLException {
+        try (PooledConnection con = connections.writer()) {
+            Connection c = con.connection();
+            c.setAutoCommit(false);
+            try {
+                T result = work.run(con);
+                c.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
+        }
+    }
+
+    public StatementCacheStats statementCacheStats() {
+        return connections.statementCacheStats();
+    }
+
+    /** Releases the pooled connections; the helper must not be used afterwards. */
+    public void close() {
+        connections.close();
     }
 
     // ---------- Auth ----------
+    /**
+     * The user's role if the password matches their stored hash, else null. This is deliberately slow
+     * (one {@link PasswordHasher} verification, a few hundred milliseconds), and unknown usernames take
+     * as long as wrong passwords. The connection is held only for the lookup, not while hashing.
+     * Interactive logins should go through a {@link LoginGuard}. A hash made with fewer iterations
+     * than the current default is upgraded in place on success.
+     */
     public String authenticateRole(String username, String password) {
-        String sql = "SELECT role FROM users WHERE username=? AND password=?";
-        try (Connection con = getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
+        String sql = "SELECT password, role FROM users WHERE username=?";
+        String stored = null, role = null;
+        try (PooledConnection con = connections.reader()) {
+            PreparedStatement ps = con.prepareCached(sql);
             ps.setString(1, username);
-            ps.setString(2, password);
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return rs.getString("role");
-                return null;
+                if (rs.next()) {
+                    stored = rs.getString("password");
+                    role = rs.getString("role");
+                }
             }
         } catch (SQLException e) {
             throw new RuntimeException("Auth failed: " + e.getMessage(), e);
         }
+        PasswordHasher hasher = PasswordHasher.DEFAULT;
+        if (stored == null) {
+            hasher.burn(password);
+            return null;
+        }
+        if (!hasher.verify(password, stored)) return null;
+        if (hasher.needsRehash(stored)) setPassword(username, password);
+        return role;
+    }
+
+    /** Adds a user with a hashed password; role is one of Admin, Manager, Staff. */
+    public void addUser(String username, String password, String role) {
+        String hash = PasswordHasher.DEFAULT.hash(password); // before taking the writer
+        try (PooledConnection con = connections.writer()) {
+            PreparedStatement ps = con.prepareCached("INSERT INTO users(username,password,role) VALUES(?,?,?)");
+            ps.setString(1, username);
+            ps.setString(2, hash);
+            ps.setString(3, role);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Add user failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Stores a fresh hash of the user's password; false if there is no such user. A {@link LoginGuard}
+     * in this process keeps accepting the old password until its session is invalidated.
+     */
+    public boolean setPassword(String username, String password) {
+        String hash = PasswordHasher.DEFAULT.hash(password);
+        try (PooledConnection con = connections.writer()) {
+            PreparedStatement ps = con.prepareCached("UPDATE users SET password=? WHERE username=?");
+            ps.setString(1, hash);
+            ps.setString(2, username);
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("Set password failed: " + e.getMessage(), e);
+        }
     }
 
     // ---------- Inventory ----------
+    /** Receives inventory rows one at a time, with numbers as primitives. */
+    public interface InventoryRowConsumer {
+        void accept(String sku, String name, int qty, double cost, double sell, String category, String location, int minStock);
+    }
+
+    /** Receives an item's descriptive columns; its quantity is the stock journal's business. */
+    public interface ItemDetailsConsumer {
+        void accept(String sku, String name, double cost, double sell, String category, String location, int minStock);
+    }
+
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
+    private static final String INVENTORY_COLUMNS = "sku,name,quantity,cost_price,sell_price,category,location,min_stock";
+
     public List<Object[]> fetchInventory() {
-        String sql = "SELECT sku,name,quantity,cost_price,sell_price,category,location,min_stock FROM inventory ORDER BY sku";
         List<Object[]> rows = new ArrayList<>();
-        try (Connection con = getConnection();
-             PreparedStatement ps = con.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
+        streamInventory(DEFAULT_PAGE_SIZE, (sku, name, qty, cost, sell, cat, loc, min) ->
+                rows.add(new Object[]{sku, name, qty, cost, sell, cat, loc, min}));
+        return rows;
+    }
+
+    /**
+     * Feeds the whole inventory to the consumer in SKU order, one keyset page at a time.
+     * A reader connection is held only while a page is read, never while the consumer works on
+     * earlier pages, and nothing is buffered beyond the current page.
+     *
+     * @return the number of rows delivered
+     */
+    public int streamInventory(int pageSize, InventoryRowConsumer consumer) {
+        int total = 0;
+        String after = null;
+        while (true) {
+            int[] n = {0};
+            after = fetchInventoryPage(after, pageSize, (sku, name, qty, cost, sell, cat, loc, min) -> {
+                n[0]++;
+                consumer.accept(sku, name, qty, cost, sell, cat, loc, min);
+            });
+            total += n[0];
+            if (n[0] < pageSize) return total;
+        }
+    }
+
+    /**
+     * Like {@link #streamInventory}, but without the quantity column, for callers that take quantities
+     * from the stock journal instead.
+     *
+     * @return the number of rows delivered
+     */
+    public int streamItemDetails(int pageSize, ItemDetailsConsumer consumer) {
+        String sql = "SELECT sku,name,cost_price,sell_price,category,location,min_stock FROM inventory WHERE sku > ? ORDER BY sku LIMIT ?";
+        int total = 0;
+        String after = "";
+        while (true) {
+            int n = 0;
+            try (PooledConnection con = connections.reader()) {
+                PreparedStatement ps = con.prepareCached(sql);
+                ps.setString(1, after);
+                ps.setInt(2, pageSize);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        n++;
+                        after = rs.getString(1);
+                        consumer.accept(after, rs.getString(2), rs.getDouble(3), rs.getDouble(4),
+                                rs.getString(5), rs.getString(6), rs.getInt(7));
+                    }
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException("Fetch inventory failed: " + e.getMessage(), e);
+            }
+            total += n;
+            if (n < pageSize) return total;
+        }
+    }
+
+    /**
+     * Keyset page: up to limit rows with sku greater than afterSku (null for the first page), in SKU order.
+     * The seek goes through the primary key, so page 10,000 costs the same as page 1.
+     *
+     * @return the last SKU delivered, to pass as afterSku for the next page, or null if the page was empty
+     */
+    public String fetchInventoryPage(String afterSku, int limit, InventoryRowConsumer consumer) {
+        String sql = "SELECT " + INVENTORY_COLUMNS + " FROM inventory WHERE sku > ? ORDER BY sku LIMIT ?";
+        try (PooledConnection con = connections.reader()) {
+            PreparedStatement ps = con.prepareCached(sql);
+            ps.setString(1, afterSku == null ? "" : afterSku);
+            ps.setInt(2, limit);
+            return readInventoryRows(ps, consumer);
+        } catch (SQLException e) {
+            throw new RuntimeException("Fetch inventory failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Keyset page of the items at or below their minimum stock, in SKU order; see {@link #fetchInventoryPage}.
+     * Reads the low-stock partial index, so the cost follows the number of low items, not the catalogue.
+     */
+    public String fetchLowStockPage(String afterSku, int limit, InventoryRowConsumer consumer) {
+        String sql = "SELECT " + INVENTORY_COLUMNS + " FROM inventory WHERE quantity <= min_stock AND sku > ? ORDER BY sku LIMIT ?";
+        try (PooledConnection con = connections.reader()) {
+            PreparedStatement ps = con.prepareCached(sql);
+            ps.setString(1, afterSku == null ? "" : afterSku);
+            ps.setInt(2, limit);
+            return readInventoryRows(ps, consumer);
+        } catch (SQLException e) {
+            throw new RuntimeException("Fetch low stock failed: " + e.getMessage(), e);
+        }
+    }
+
+    /** Positional page for random access (e.g. a scrollbar jump); slower than the keyset version for deep offsets. */
+    public String fetchInventoryPageAt(int offset, int limit, InventoryRowConsumer consumer) {
+        String sql = "SELECT " + INVENTORY_COLUMNS + " FROM inventory ORDER BY sku LIMIT ? OFFSET ?";
+        try (PooledConnection con = connections.reader()) {
+            PreparedStatement ps = con.prepareCached(sql);
+            ps.setInt(1, limit);
+            ps.setInt(2, offset);
+            return readInventoryRows(ps, consumer);
+        } catch (SQLException e) {
+            throw new RuntimeException("Fetch inventory failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static String readInventoryRows(PreparedStatement ps, InventoryRowConsumer consumer) throws SQLException {
+        String last = null;
+        try (ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
-                rows.add(new Object[]{
-                        rs.getString(1), rs.getString(2), rs.getInt(3),
+                last = rs.getString(1);
+                consumer.accept(last, rs.getString(2), rs.getInt(3),
                         rs.getDouble(4), rs.getDouble(5),
-                        rs.getString(6), rs.getString(7), rs.getInt(8)
-                });
+                        rs.getString(6), rs.getString(7), rs.getInt(8));
+            }
+        }
+        return last;
+    }
+
+    // ranking scores every match before the first row comes back; past this many it costs more than it tells
+    private static final int RANK_LIMIT = 10_000;
+
+    private static final String RANKED_SEARCH =
+            "SELECT i.sku, i.name, i.quantity, i.cost_price, i.sell_price, i.category, i.location, i.min_stock " +
+            "FROM (SELECT rowid, bm25(inventory_fts, 10.0, 5.0, 1.0, 1.0) AS score FROM inventory_fts " +
+            "      WHERE inventory_fts MATCH ? ORDER BY score LIMIT ? OFFSET ?) f " +
+            "JOIN inventory i ON i.rowid = f.rowid ORDER BY f.score";
+    private static final String UNRANKED_SEARCH =
+            "SELECT i.sku, i.name, i.quantity, i.cost_price, i.sell_price, i.category, i.location, i.min_stock " +
+            "FROM (SELECT rowid FROM inventory_fts WHERE inventory_fts MATCH ? LIMIT ? OFFSET ?) f " +
+            "JOIN inventory i ON i.rowid = f.rowid ORDER BY f.rowid";
+
+    /**
+     * Full-text search over SKU, name, category and location, best match first.
+     * Every word of the query must start some word of the item ("blu wid" finds "Blue Widget");
+     * anything but letters and digits only separates words, so no input can break the MATCH syntax.
+     * SKU and name hits outrank category and location hits. When more than {@value #RANK_LIMIT} items
+     * match (typically the first letter or two typed) they come in catalogue order instead, so paging
+     * stays fast until the query is narrow enough for ranking to mean something.
+     *
+     * @return the number of rows delivered; 0 for a query with no words
+     */
+    public int searchInventory(String query, int limit, int offset, InventoryRowConsumer consumer) {
+        String match = ftsQuery(query);
+        if (match == null) return 0;
+        try (PooledConnection con = connections.reader()) {
+            PreparedStatement probe = con.prepareCached(
+                    "SELECT COUNT(*) FROM (SELECT rowid FROM inventory_fts WHERE inventory_fts MATCH ? LIMIT ?)");
+            probe.setString(1, match);
+            probe.setInt(2, RANK_LIMIT + 1);
+            boolean ranked;
+            try (ResultSet rs = probe.executeQuery()) {
+                ranked = rs.next() && rs.getInt(1) <= RANK_LIMIT;
             }
+            PreparedStatement ps = con.prepareCached(ranked ? RANKED_SEARCH : UNRANKED_SEARCH);
+            ps.setString(1, match);
+            ps.setInt(2, limit);
+            ps.setInt(3, offset);
+            int[] n = {0};
+            readInventoryRows(ps, (sku, name, qty, cost, sell, cat, loc, min) -> {
+                n[0]++;
+                consumer.accept(sku, name, qty, cost, sell, cat, loc, min);
+            });
+            return n[0];
         } catch (SQLException e) {
-            throw new RuntimeException("Fetch inventory failed: " + e.getMessage(), e);
+            throw new RuntimeException("Search failed: " + e.getMessage(), e);
         }
-        return rows;
     }
 
+    /** Number of items {@link #searchInventory} would page through for the query. */
+    public int countSearchInventory(String query) {
+        String match = ftsQuery(query);
+        if (match == null) return 0;
+        try (PooledConnection con = connections.reader()) {
+            PreparedStatement ps = con.prepareCached("SELECT COUNT(*) FROM inventory_fts WHERE inventory_fts MATCH ?");
+            ps.setString(1, match);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Search failed: " + e.getMessage(), e);
+        }
+    }
+
+    /** Turns free text into an FTS5 expression of quoted prefix terms, ANDed; null if it has no words. */
+    private static String ftsQuery(String text) {
+        StringBuilder sb = new StringBuilder();
+        int n = text == null ? 0 : text.length();
+        for (int i = 0; i < n; ) {
+            if (!Character.isLetterOrDigit(text.charAt(i))) { i++; continue; }
+            int start = i;
+            while (i < n && Character.isLetterOrDigit(text.charAt(i))) i++;
+            if (sb.length() > 0) sb.append(' ');
+            sb.append('"').append(text, start, i).append("\"*");
+        }
+        return sb.length() == 0 ? null : sb.toString();
+    }
+
+    public int countInventory() {
+        String sql = "SELECT COUNT(*) FROM inventory";
+        try (PooledConnection con = connections.reader();
+             ResultSet rs = con.prepareCached(sql).executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("Count inventory failed: " + e.getMessage(), e);
+        }
+    }
+
+    public int countLowStock() {
+        String sql = "SELECT COUNT(*) FROM inventory WHERE quantity <= min_stock";
+        try (PooledConnection con = connections.reader();
+             ResultSet rs = con.prepareCached(sql).executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("Count low stock failed: " + e.getMessage(), e);
+        }
+    }
+
+    /** Pushes rows into the sink it is handed, so a bulk load can stream from a file with no list in between. */
+    public interface BulkSource<T> {
+        void forEach(T sink) throws IOException;
+    }
+
+    private static final int IMPORT_BATCH = 1000;
+
+    /** An imported item's index entry: the text indexed before the import (if any) and after it. */
+    private static final class IndexedText {
+        long rowid;
+        boolean existed;
+        int quantity; // as last written, for the journal
+        String oldName, oldCategory, oldLocation;
+        String name, category, location;
+    }
+
+    /**
+     * Inserts or overwrites (by SKU) every row the source produces, in one transaction. If anything
+     * fails, including the source itself, the whole import is rolled back; a source IOException comes
+     * back as an UncheckedIOException.
+     *
+     * The full-text triggers are dropped for the duration. Instead, every {@value #IMPORT_BATCH} rows the
+     * batch's index entries are replaced directly, once per SKU and in rowid order: FTS5 also flushes
+     * when a write's rowid goes backwards, so unsorted writes cost nearly as much as the triggers.
+     * A new SKU is journalled as a receipt of its quantity, an existing one as an adjustment by the
+     * difference.
+     *
+     * @return the number of rows written
+     */
+    public int importInventory(BulkSource<InventoryRowConsumer> source) {
+        String upsert = "INSERT INTO inventory(" + INVENTORY_COLUMNS + ") VALUES(?,?,?,?,?,?,?,?) " +
+                "ON CONFLICT(sku) DO UPDATE SET name=excluded.name, quantity=excluded.quantity, " +
+                "cost_price=excluded.cost_price, sell_price=excluded.sell_price, category=excluded.category, " +
+                "location=excluded.location, min_stock=excluded.min_stock";
+        try {
+            return inWriteTransaction(con -> {
+                try (Statement st = con.createStatement()) {
+                    st.execute("DROP TRIGGER IF EXISTS trg_inventory_fts_insert");
+                    st.execute("DROP TRIGGER IF EXISTS trg_inventory_fts_update");
+                }
+                PreparedStatement old = con.prepareCached("SELECT rowid, name, category, location, quantity FROM inventory WHERE sku = ?");
+                PreparedStatement ps = con.prepareCached(upsert);
+                PreparedStatement lastRowid = con.prepareCached("SELECT last_insert_rowid()");
+                Map<String, IndexedText> batch = new HashMap<>();
+                int[] n = {0};
+                feed(source, (sku, name, qty, cost, sell, cat, loc, min) -> {
+                    try {
+                        IndexedText t = batch.get(sku);
+                        if (t == null) {
+                            t = new IndexedText();
+                            old.setString(1, sku);
+                            try (ResultSet rs = old.executeQuery()) {
+                                if (rs.next()) {
+                                    t.existed = true;
+                                    t.rowid = rs.getLong(1);
+                                    t.oldName = rs.getString(2);
+                                    t.oldCategory = rs.getString(3);
+                                    t.oldLocation = rs.getString(4);
+                                    t.quantity = rs.getInt(5);
+                                }
+                            }
+                            batch.put(sku, t);
+                        }
+                        ps.setString(1, sku); ps.setString(2, name); ps.setInt(3, qty);
+                        ps.setDouble(4, cost); ps.setDouble(5, sell);
+                        ps.setString(6, cat); ps.setString(7, loc); ps.setInt(8, min);
+                        ps.executeUpdate();
+                        if (t.rowid == 0) {
+                            // before the journal insert below, which moves last_insert_rowid() on
+                            try (ResultSet rs = lastRowid.executeQuery()) {
+                                rs.next();
+                                t.rowid = rs.getLong(1);
+                            }
+                            journal(con, sku, StockMovement.RECEIPT, qty);
+                        } else if (qty != t.quantity) {
+                            journal(con, sku, StockMovement.ADJUSTMENT, qty - t.quantity);
+                        }
+                        t.quantity = qty;
+                        t.name = name;
+                        t.category = cat;
+                        t.location = loc;
+                        if (++n[0] % IMPORT_BATCH == 0) reindex(con, batch);
+                    } catch (SQLException e) {
+                        throw new RuntimeException("Import inventory failed: " + e.getMessage(), e);
+                    }
+                });
+                reindex(con, batch);
+                try (Statement st = con.createStatement()) {
+                    for (String trigger : INVENTORY_FTS_TRIGGERS) st.execute(trigger);
+                }
+                return n[0];
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Import inventory failed: " + e.getMessage(), e);
+        }
+    }
+
+    /** Replaces the full-text entries of the batch's items, in rowid order, and empties the batch. */
+    private static void reindex(PooledConnection con, Map<String, IndexedText> batch) throws SQLException {
+        PreparedStatement unindex = con.prepareCached(
+                "INSERT INTO inventory_fts(inventory_fts, rowid, sku, name, category, location) VALUES ('delete',?,?,?,?,?)");
+        PreparedStatement index = con.prepareCached(
+                "INSERT INTO inventory_fts(rowid, sku, name, category, location) VALUES (?,?,?,?,?)");
+        List<Map.Entry<String, IndexedText>> entries = new ArrayList<>(batch.entrySet());
+        entries.sort(Comparator.comparingLong(e -> e.getValue().rowid));
+        for (Map.Entry<String, IndexedText> e : entries) {
+            IndexedText t = e.getValue();
+            if (t.existed) {
+                unindex.setLong(1, t.rowid); unindex.setString(2, e.getKey()); unindex.setString(3, t.oldName);
+                unindex.setString(4, t.oldCategory); unindex.setString(5, t.oldLocation);
+                unindex.executeUpdate();
+            }
+            index.setLong(1, t.rowid); index.setString(2, e.getKey()); index.setString(3, t.name);
+            index.setString(4, t.category); index.setString(5, t.location);
+            index.executeUpdate();
+        }
+        batch.clear();
+    }
+
+    private static <T> void feed(BulkSource<T> source, T sink) {
+        try {
+            source.forEach(sink);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e.getMessage(), e);
+        }
+    }
+
+    /** Adds the item, journalling its opening stock as a receipt. */
     public void insertItem(String sku, String name, int qty, double cost, double sell, String cat, String loc, int min) {
         String sql = "INSERT INTO inventory(sku,name,quantity,cost_price,sell_price,category,location,min_stock) VALUES(?,?,?,?,?,?,?,?)";
-        try (Connection con = getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
-            ps.setString(1, sku); ps.setString(2, name); ps.setInt(3, qty);
-            ps.setDouble(4, cost); ps.setDouble(5, sell);
-            ps.setString(6, cat); ps.setString(7, loc); ps.setInt(8, min);
-            ps.executeUpdate();
+        try {
+            inWriteTransaction(con -> {
+                PreparedStatement ps = con.prepareCached(sql);
+                ps.setString(1, sku); ps.setString(2, name); ps.setInt(3, qty);
+                ps.setDouble(4, cost); ps.setDouble(5, sell);
+                ps.setString(6, cat); ps.setString(7, loc); ps.setInt(8, min);
+                ps.executeUpdate();
+                journal(con, sku, StockMovement.RECEIPT, qty);
+                return null;
+            });
         } catch (SQLException e) {
             throw new RuntimeException("Insert item failed: " + e.getMessage(), e);
         }
     }
 
+    /** Sets the quantity outright, journalled as an adjustment by the difference. */
     public void updateQuantity(String sku, int newQty) {
+        String current = "SELECT quantity FROM inventory WHERE sku=?";
         String sql = "UPDATE inventory SET quantity=? WHERE sku=?";
-        try (Connection con = getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
-            ps.setInt(1, newQty);
-            ps.setString(2, sku);
-            ps.executeUpdate();
+        try {
+            inWriteTransaction(con -> {
+                PreparedStatement ps = con.prepareCached(current);
+                ps.setString(1, sku);
+                int old;
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) return null;
+                    old = rs.getInt(1);
+                }
+                ps = con.prepareCached(sql);
+                ps.setInt(1, newQty);
+                ps.setString(2, sku);
+                ps.executeUpdate();
+                if (newQty != old) journal(con, sku, StockMovement.ADJUSTMENT, newQty - old);
+                return null;
+            });
         } catch (SQLException e) {
             throw new RuntimeException("Update quantity failed: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Adds qty to the SKU's stock with a relative update, so it cannot lose a concurrent sale.
+     *
+     * @return the new quantity, or -1 if the SKU does not exist
+     */
+    public int restock(String sku, int qty) {
+        String increment = "UPDATE inventory SET quantity = quantity + ? WHERE sku=?";
+        String current = "SELECT quantity FROM inventory WHERE sku=?";
+        try {
+            return inWriteTransaction(con -> {
+                PreparedStatement ps = con.prepareCached(increment);
+                ps.setInt(1, qty); ps.setString(2, sku);
+                if (ps.executeUpdate() == 0) return -1;
+                journal(con, sku, StockMovement.RECEIPT, qty);
+                ps = con.prepareCached(current);
+                ps.setString(1, sku);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : -1;
+                }
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Restock failed: " + e.getMessage(), e);
+        }
+    }
+
+    /** Deletes the item, journalling the stock it had as gone. */
     public void deleteItem(String sku) {
+        String current = "SELECT quantity FROM inventory WHERE sku=?";
         String sql = "DELETE FROM inventory WHERE sku=?";
-        try (Connection con = getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
-            ps.setString(1, sku);
-            ps.executeUpdate();
+        try {
+            inWriteTransaction(con -> {
+                PreparedStatement ps = con.prepareCached(current);
+                ps.setString(1, sku);
+                int old;
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) return null;
+                    old = rs.getInt(1);
+                }
+                ps = con.prepareCached(sql);
+                ps.setString(1, sku);
+                ps.executeUpdate();
+                journal(con, sku, StockMovement.DELETE, -old);
+                return null;
+            });
         } catch (SQLException e) {
             throw new RuntimeException("Delete failed: " + e.getMessage(), e);
         }
@@ -158,9 +887,10 @@ public class DBHelper {
 
     // ---------- Sales ----------
     public void insertSale(String sku, String name, String category, int qty, double price, String ts) {
-        String sql = "INSERT INTO sales(sku,name,category,qty,price,timestamp) VALUES(?,?,?,?,?,?)";
-        try (Connection con = getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
+        String sql = "INSERT INTO sales(sku,name,category,qty,price,timestamp,ts) " +
+                "VALUES(?,?,?,?,?,?, CAST(strftime('%s', ?6, 'utc') AS INTEGER) * 1000)";
+        try (PooledConnection con = connections.writer()) {
+            PreparedStatement ps = con.prepareCached(sql);
             ps.setString(1, sku); ps.setString(2, name); ps.setString(3, category);
             ps.setInt(4, qty); ps.setDouble(5, price); ps.setString(6, ts);
             ps.executeUpdate();
@@ -169,31 +899,478 @@ public class DBHelper {
         }
     }
 
-    public List<String> fetchSalesLines() {
-        String sql = "SELECT timestamp, sku, name, qty, price FROM sales ORDER BY id DESC";
-        List<String> lines = new ArrayList<>();
-        try (Connection con = getConnection();
-             PreparedStatement ps = con.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) {
-                lines.add(
-                        rs.getString(1) + " - " + rs.getString(2) + " - " +
-                                rs.getString(3) + " x" + rs.getInt(4) + " @ " +
-                                String.format("%.2f", rs.getDouble(5))
-                );
+    /**
+     * Appends every sale the source produces, in one transaction, with the same batching and rollback
+     * rules as {@link #importInventory}. The per-row rollup trigger is dropped for the duration and the
+     * new rows are folded into the rollups with one grouped pass per table at the end, which for large
+     * files is several times cheaper than a trigger firing per row. Ids are assigned fresh.
+     *
+     * @return the number of sales written
+     */
+    public int importSales(BulkSource<Consumer<SaleLine>> source) {
+        String sql = "INSERT INTO sales(sku,name,category,qty,price,timestamp,ts) " +
+                "VALUES(?,?,?,?,?,?, CAST(strftime('%s', ?6, 'utc') AS INTEGER) * 1000)";
+        try {
+            return inWriteTransaction(con -> {
+                long lastId;
+                try (Statement st = con.createStatement()) {
+                    try (ResultSet rs = st.executeQuery("SELECT COALESCE(MAX(id), 0) FROM sales")) {
+                        lastId = rs.next() ? rs.getLong(1) : 0;
+                    }
+                    st.execute("DROP TRIGGER IF EXISTS trg_sales_rollup");
+                }
+                PreparedStatement ps = con.prepareCached(sql);
+                int[] n = {0};
+                feed(source, l -> {
+                    try {
+                        ps.setString(1, l.sku); ps.setString(2, l.name); ps.setString(3, l.category);
+                        ps.setInt(4, l.qty); ps.setDouble(5, l.price); ps.setString(6, l.timestamp);
+                        ps.addBatch();
+                        if (++n[0] % IMPORT_BATCH == 0) ps.executeBatch();
+                    } catch (SQLException e) {
+                        throw new RuntimeException("Import sales failed: " + e.getMessage(), e);
+                    }
+                });
+                ps.executeBatch();
+                // AUTOINCREMENT never reuses ids, so everything past lastId was written just now
+                try (Statement st = con.createStatement()) {
+                    foldSalesIntoRollups(st, lastId);
+                    st.execute(SALES_ROLLUP_TRIGGER);
+                }
+                return n[0];
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Import sales failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Decrements stock and records the sale in a single transaction.
+     * The decrement is relative and conditional, so concurrent sellers of the same SKU can neither
+     * overwrite each other's stock level nor drive it below zero.
+     *
+     * @return the remaining quantity, or {@link #INSUFFICIENT_STOCK}
+     */
+    public int sell(String sku, int qty, double price, String ts) {
+        String decrement = "UPDATE inventory SET quantity = quantity - ? WHERE sku=? AND quantity >= ?";
+        String record = "INSERT INTO sales(sku,name,category,qty,price,timestamp,ts) " +
+                "SELECT sku,name,category,?,?,?, CAST(strftime('%s', ?3, 'utc') AS INTEGER) * 1000 " +
+                "FROM inventory WHERE sku=?";
+        String remaining = "SELECT quantity FROM inventory WHERE sku=?";
+        try {
+            return inWriteTransaction(con -> {
+                PreparedStatement ps = con.prepareCached(decrement);
+                ps.setInt(1, qty); ps.setString(2, sku); ps.setInt(3, qty);
+                if (ps.executeUpdate() == 0) return INSUFFICIENT_STOCK;
+                journal(con, sku, StockMovement.SALE, -qty);
+
+                ps = con.prepareCached(record);
+                ps.setInt(1, qty); ps.setDouble(2, price); ps.setString(3, ts); ps.setString(4, sku);
+                ps.executeUpdate();
+
+                ps = con.prepareCached(remaining);
+                ps.setString(1, sku);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : INSUFFICIENT_STOCK;
+                }
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Sell failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Applies the sales and restocks in order in a single transaction, so a batch of them costs one
+     * commit. Each change succeeds or fails on its own, with the same relative, conditional updates as
+     * {@link #sell} and {@link #restock}; a sale is recorded at its {@link StockChange#price}.
+     *
+     * @return per change the new quantity, or {@link #INSUFFICIENT_STOCK} for a sale that could not be
+     *         made and -1 for a restock of a SKU that does not exist
+     */
+    public int[] applyStockChanges(List<StockChange> changes, String ts) {
+        String decrement = "UPDATE inventory SET quantity = quantity - ? WHERE sku=? AND quantity >= ?";
+        String increment = "UPDATE inventory SET quantity = quantity + ? WHERE sku=?";
+        String record = "INSERT INTO sales(sku,name,category,qty,price,timestamp,ts) " +
+                "SELECT sku,name,category,?,?,?, CAST(strftime('%s', ?3, 'utc') AS INTEGER) * 1000 " +
+                "FROM inventory WHERE sku=?";
+        String current = "SELECT quantity FROM inventory WHERE sku=?";
+        int[] out = new int[changes.size()];
+        try {
+            return inWriteTransaction(con -> {
+                for (int i = 0; i < out.length; i++) {
+                    StockChange c = changes.get(i);
+                    PreparedStatement ps;
+                    if (c.isSale()) {
+                        ps = con.prepareCached(decrement);
+                        ps.setInt(1, c.quantity()); ps.setString(2, c.sku); ps.setInt(3, c.quantity());
+                        if (ps.executeUpdate() == 0) { out[i] = INSUFFICIENT_STOCK; continue; }
+                        journal(con, c.sku, StockMovement.SALE, -c.quantity());
+                        ps = con.prepareCached(record);
+                        ps.setInt(1, c.quantity()); ps.setDouble(2, c.price); ps.setString(3, ts); ps.setString(4, c.sku);
+                        ps.executeUpdate();
+                    } else {
+                        ps = con.prepareCached(increment);
+                        ps.setInt(1, c.quantity()); ps.setString(2, c.sku);
+                        if (ps.executeUpdate() == 0) { out[i] = -1; continue; }
+                        journal(con, c.sku, StockMovement.RECEIPT, c.quantity());
+                    }
+                    ps = con.prepareCached(current);
+                    ps.setString(1, c.sku);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        out[i] = rs.next() ? rs.getInt(1) : -1;
+                    }
+                }
+                return out;
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Stock changes failed: " + e.getMessage(), e);
+        }
+    }
+
+    // ---------- Stock journal ----------
+
+    private static final String APPEND_MOVEMENT = "INSERT INTO stock_movements(ts, sku, kind, delta) VALUES(?,?,?,?)";
+
+    /** Appends a movement inside the caller's write transaction. */
+    private static void journal(PooledConnection con, String sku, int kind, int delta) throws SQLException {
+        PreparedStatement ps = con.prepareCached(APPEND_MOVEMENT);
+        ps.setLong(1, System.currentTimeMillis());
+        ps.setString(2, sku);
+        ps.setInt(3, kind);
+        ps.setInt(4, delta);
+        ps.executeUpdate();
+    }
+
+    /** Receives journal rows one at a time, with numbers as primitives. */
+    public interface MovementConsumer {
+        void accept(long id, long ts, String sku, int kind, int delta);
+    }
+
+    /**
+     * Delivers every movement after afterId in journal order, from a single read.
+     *
+     * @return the id of the last movement delivered, or afterId if there were none
+     */
+    public long streamMovements(long afterId, MovementConsumer consumer) {
+        String sql = "SELECT id, ts, sku, kind, delta FROM stock_movements WHERE id > ? ORDER BY id";
+        try (PooledConnection con = connections.reader()) {
+            PreparedStatement ps = con.prepareCached(sql);
+            ps.setLong(1, afterId);
+            long last = afterId;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    last = rs.getLong(1);
+                    consumer.accept(last, rs.getLong(2), rs.getString(3), rs.getInt(4), rs.getInt(5));
+                }
+            }
+            return last;
+        } catch (SQLException e) {
+            throw new RuntimeException("Read movements failed: " + e.getMessage(), e);
+        }
+    }
+
+    /** The SKU's movements before beforeId (0 for the newest), newest first, at most limit of them. */
+    public List<StockMovement> fetchMovements(String sku, long beforeId, int limit) {
+        String sql = "SELECT id, ts, sku, kind, delta FROM stock_movements WHERE sku=? AND id < ? ORDER BY id DESC LIMIT ?";
+        try (PooledConnection con = connections.reader()) {
+            PreparedStatement ps = con.prepareCached(sql);
+            ps.setString(1, sku);
+            ps.setLong(2, beforeId <= 0 ? Long.MAX_VALUE : beforeId);
+            ps.setInt(3, limit);
+            List<StockMovement> out = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) out.add(new StockMovement(rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getInt(4), rs.getInt(5)));
             }
+            return out;
+        } catch (SQLException e) {
+            throw new RuntimeException("Read movements failed: " + e.getMessage(), e);
+        }
+    }
+
+    /** Appends movements in one transaction, e.g. corrections found when reconciling; their ids are ignored. */
+    public void appendMovements(List<StockMovement> movements) {
+        try {
+            inWriteTransaction(con -> {
+                PreparedStatement ps = con.prepareCached(APPEND_MOVEMENT);
+                for (StockMovement m : movements) {
+                    ps.setLong(1, m.ts); ps.setString(2, m.sku); ps.setInt(3, m.kind); ps.setInt(4, m.delta);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Append movements failed: " + e.getMessage(), e);
+        }
+    }
+
+    /** The id of the newest movement, or 0 for an empty journal. */
+    public long lastMovementId() {
+        return journalPosition("SELECT COALESCE(MAX(id), 0) FROM stock_movements");
+    }
+
+    /** The id of the last movement the latest snapshot includes, or 0 if there is no snapshot. */
+    public long lastSnapshotThrough() {
+        return journalPosition("SELECT COALESCE(MAX(through), 0) FROM stock_snapshots");
+    }
+
+    private long journalPosition(String sql) {
+        try (PooledConnection con = connections.reader()) {
+            try (ResultSet rs = con.prepareCached(sql).executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Read journal position failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Delivers the quantities in the latest snapshot.
+     *
+     * @return the id of the last movement the snapshot includes, or 0 if there is no snapshot
+     */
+    public long loadSnapshot(ObjIntConsumer<String> consumer) {
+        try (PooledConnection con = connections.reader()) {
+            PreparedStatement ps = con.prepareCached("SELECT id, through FROM stock_snapshots ORDER BY id DESC LIMIT 1");
+            long id, through;
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return 0;
+                id = rs.getLong(1);
+                through = rs.getLong(2);
+            }
+            ps = con.prepareCached("SELECT sku, quantity FROM stock_snapshot_items WHERE snapshot=?");
+            ps.setLong(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) consumer.accept(rs.getString(1), rs.getInt(2));
+            }
+            return through;
+        } catch (SQLException e) {
+            throw new RuntimeException("Read snapshot failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Stores the quantities the source produces as the snapshot through movement id through, in one
+     * transaction that also drops the previous snapshot; only the latest is ever read.
+     */
+    public void writeSnapshot(long through, BulkSource<ObjIntConsumer<String>> quantities) {
+        try {
+            inWriteTransaction(con -> {
+                long id;
+                try (Statement st = con.createStatement()) {
+                    st.executeUpdate("DELETE FROM stock_snapshot_items");
+                    st.executeUpdate("DELETE FROM stock_snapshots");
+                    st.executeUpdate("INSERT INTO stock_snapshots(through, ts) VALUES(" + through + ", " + System.currentTimeMillis() + ")");
+                    try (ResultSet rs = st.executeQuery("SELECT last_insert_rowid()")) {
+                        rs.next();
+                        id = rs.getLong(1);
+                    }
+                }
+                PreparedStatement ps = con.prepareCached("INSERT INTO stock_snapshot_items(snapshot, sku, quantity) VALUES(?,?,?)");
+                int[] n = {0};
+                feed(quantities, (sku, qty) -> {
+                    try {
+                        ps.setLong(1, id); ps.setString(2, sku); ps.setInt(3, qty);
+                        ps.addBatch();
+                        if (++n[0] % IMPORT_BATCH == 0) ps.executeBatch();
+                    } catch (SQLException e) {
+                        throw new RuntimeException("Write snapshot failed: " + e.getMessage(), e);
+                    }
+                });
+                ps.executeBatch();
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Write snapshot failed: " + e.getMessage(), e);
+        }
+    }
+
+    /** Receives sales rows one at a time, with numbers as primitives. */
+    public interface SalesRowConsumer {
+        void accept(long id, long ts, String timestamp, String sku, String name, String category, int qty, double price);
+    }
+
+    private static final String SALES_COLUMNS = "id,ts,timestamp,sku,name,category,qty,price";
+
+    // The day bounds go through the same local-to-UTC conversion that fills sales.ts, so a day means
+    // the same hours in the filter as in the stored sales.
+    private static final String SALES_TS_RANGE = "ts >= CAST(strftime('%s', ?, 'utc') AS INTEGER) * 1000 " +
+            "AND ts < CAST(strftime('%s', ?, '+1 day', 'utc') AS INTEGER) * 1000";
+
+    // The keyset page folds its anchor into the range's upper bound: given two upper bounds on ts,
+    // SQLite seeks on only one, and a page deep in the history would first step over every newer sale.
+    private static final String SALES_TS_BEFORE = "ts >= CAST(strftime('%s', ?, 'utc') AS INTEGER) * 1000 " +
+            "AND ts <= MIN(CAST(strftime('%s', ?, '+1 day', 'utc') AS INTEGER) * 1000 - 1, ?) AND (ts, id) < (?, ?)";
+
+    // Two shapes so each has a fixed SQL text for the statement cache. With a SKU the scan runs on
+    // idx_sales_sku_ts, otherwise on idx_sales_ts; both end in the rowid, so (ts, id) order is free.
+    private static String salesWhere(SalesFilter f) {
+        return f.sku != null ? "sku = ? AND " + SALES_TS_RANGE : SALES_TS_RANGE;
+    }
+
+    private static int bindSalesFilter(PreparedStatement ps, SalesFilter f) throws SQLException {
+        int i = 1;
+        if (f.sku != null) ps.setString(i++, f.sku);
+        ps.setString(i++, f.fromDay());
+        ps.setString(i++, f.toDay());
+        return i;
+    }
+
+    /**
+     * Number of sales the filter matches, with the same predicate as {@link #fetchSalesPage}, so the
+     * count always agrees with the pages; sales without a usable ts are in neither. The count reads
+     * one entry of idx_sales_ts (or idx_sales_sku_ts) per matching sale.
+     */
+    public int countSales(SalesFilter f) {
+        try (PooledConnection con = connections.reader()) {
+            PreparedStatement ps = con.prepareCached("SELECT COUNT(*) FROM sales WHERE " + salesWhere(f));
+            bindSalesFilter(ps, f);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Count sales failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Keyset page of the filtered sales, newest first: up to limit rows that sort after (beforeTs, beforeId).
+     * Pass Long.MAX_VALUE for both to start at the newest sale. The seek goes through an index, so a page
+     * deep in the history costs the same as the first one.
+     *
+     * @return {ts, id} of the last row delivered, to pass in for the next page, or null if the page was empty
+     */
+    public long[] fetchSalesPage(SalesFilter f, long beforeTs, long beforeId, int limit, SalesRowConsumer consumer) {
+        String sql = "SELECT " + SALES_COLUMNS + " FROM sales WHERE " + (f.sku != null ? "sku = ? AND " : "") +
+                SALES_TS_BEFORE + " ORDER BY ts DESC, id DESC LIMIT ?";
+        try (PooledConnection con = connections.reader()) {
+            PreparedStatement ps = con.prepareCached(sql);
+            int i = bindSalesFilter(ps, f);
+            ps.setLong(i++, beforeTs);
+            ps.setLong(i++, beforeTs);
+            ps.setLong(i++, beforeId);
+            ps.setInt(i, limit);
+            return readSalesRows(ps, consumer);
+        } catch (SQLException e) {
+            throw new RuntimeException("Fetch sales failed: " + e.getMessage(), e);
+        }
+    }
+
+    /** Positional page for random access (e.g. a scrollbar jump); slower than the keyset version for deep offsets. */
+    public long[] fetchSalesPageAt(SalesFilter f, int offset, int limit, SalesRowConsumer consumer) {
+        String sql = "SELECT " + SALES_COLUMNS + " FROM sales WHERE " + salesWhere(f) +
+                " ORDER BY ts DESC, id DESC LIMIT ? OFFSET ?";
+        try (PooledConnection con = connections.reader()) {
+            PreparedStatement ps = con.prepareCached(sql);
+            int i = bindSalesFilter(ps, f);
+            ps.setInt(i++, limit);
+            ps.setInt(i, offset);
+            return readSalesRows(ps, consumer);
         } catch (SQLException e) {
             throw new RuntimeException("Fetch sales failed: " + e.getMessage(), e);
         }
-        return lines;
+    }
+
+    private static long[] readSalesRows(PreparedStatement ps, SalesRowConsumer consumer) throws SQLException {
+        long lastTs = 0, lastId = 0;
+        boolean any = false;
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                any = true;
+                lastId = rs.getLong(1);
+                lastTs = rs.getLong(2);
+                consumer.accept(lastId, lastTs, rs.getString(3), rs.getString(4), rs.getString(5),
+                        rs.getString(6), rs.getInt(7), rs.getDouble(8));
+            }
+        }
+        return any ? new long[]{lastTs, lastId} : null;
     }
 
     // ---------- Reports ----------
+    /** Revenue of one SKU for sales with fromMillis <= ts < toMillis; served by idx_sales_sku_ts. */
+    public double revenueForSku(String sku, long fromMillis, long toMillis) {
+        return revenueBetween("SELECT SUM(qty * price) FROM sales WHERE sku=? AND ts >= ? AND ts < ?",
+                sku, fromMillis, toMillis);
+    }
+
+    /** Revenue of one category for sales with fromMillis <= ts < toMillis; served by idx_sales_category_ts. */
+    public double revenueForCategory(String category, long fromMillis, long toMillis) {
+        return revenueBetween("SELECT SUM(qty * price) FROM sales WHERE category=? AND ts >= ? AND ts < ?",
+                category, fromMillis, toMillis);
+    }
+
+    private double revenueBetween(String sql, String key, long fromMillis, long toMillis) {
+        try (PooledConnection con = connections.reader()) {
+            PreparedStatement ps = con.prepareCached(sql);
+            ps.setString(1, key);
+            ps.setLong(2, fromMillis);
+            ps.setLong(3, toMillis);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getDouble(1) : 0.0;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Report failed: " + e.getMessage(), e);
+        }
+    }
+
+    // ---------- Rollup reports ----------
+    // These read the trigger-maintained summary tables: their cost depends on the number of days,
+    // hours or categories asked for, never on how many sales have been recorded.
+
+    /** Revenue per category over the last {@code days} local days including today, highest first. */
+    public Map<String, Double> revenueByCategory(int days) {
+        return rollup("""
+            SELECT category, SUM(revenue) AS r FROM sales_category_daily
+            WHERE day >= date('now', 'localtime', ?) GROUP BY category ORDER BY r DESC""", days);
+    }
+
+    /** Revenue per local day over the last {@code days} days including today, oldest first. */
+    public Map<String, Double> revenueByDay(int days) {
+        return rollup("""
+            SELECT day, revenue FROM sales_daily
+            WHERE day >= date('now', 'localtime', ?) ORDER BY day""", days);
+    }
+
+    /** Revenue per hour ("yyyy-MM-dd HH") over the last {@code days} days including today, oldest first. */
+    public Map<String, Double> revenueByHour(int days) {
+        return rollup("""
+            SELECT hour, revenue FROM sales_hourly
+            WHERE hour >= date('now', 'localtime', ?) ORDER BY hour""", days);
+    }
+
+    /** All-time revenue of the {@code limit} best-selling SKUs, highest first. */
+    public Map<String, Double> topSkusByRevenue(int limit) {
+        Map<String, Double> out = new LinkedHashMap<>();
+        try (PooledConnection con = connections.reader()) {
+            PreparedStatement ps = con.prepareCached("SELECT sku, revenue FROM sales_by_sku ORDER BY revenue DESC LIMIT ?");
+            ps.setInt(1, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) out.put(rs.getString(1), rs.getDouble(2));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Report failed: " + e.getMessage(), e);
+        }
+        return out;
+    }
+
+    private Map<String, Double> rollup(String sql, int days) {
+        Map<String, Double> out = new LinkedHashMap<>();
+        try (PooledConnection con = connections.reader()) {
+            PreparedStatement ps = con.prepareCached(sql);
+            ps.setString(1, "-" + Math.max(0, days - 1) + " days");
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) out.put(rs.getString(1), rs.getDouble(2));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Report failed: " + e.getMessage(), e);
+        }
+        return out;
+    }
+
     public double totalInventoryValue() {
         String sql = "SELECT SUM(quantity * cost_price) FROM inventory";
-        try (Connection con = getConnection();
-             PreparedStatement ps = con.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
+        try (PooledConnection con = connections.reader();
+             ResultSet rs = con.prepareCached(sql).executeQuery()) {
             return rs.next() ? rs.getDouble(1) : 0.0;
         } catch (SQLException e) {
             throw new RuntimeException("Report failed: " + e.getMessage(), e);
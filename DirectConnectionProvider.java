@@ -0,0 +1,33 @@
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * Opens a fresh connection for every call and closes it afterwards.
+ * This is how DBHelper used to work; it is kept as the baseline to compare the pool against.
+ */
+public class DirectConnectionProvider implements ConnectionProvider {
+    private final String url;
+    private final StatementCacheStats statementStats = new StatementCacheStats();
+
+    public DirectConnectionProvider(String url) {
+        this.url = url;
+    }
+
+    @Override
+    public PooledConnection reader() throws SQLException {
+        return new PooledConnection(DriverManager.getConnection(url), PooledConnection::closePhysical, statementStats).lend();
+    }
+
+    @Override
+    public PooledConnection writer() throws SQLException {
+        return reader();
+    }
+
+    @Override
+    public StatementCacheStats statementCacheStats() {
+        return statementStats;
+    }
+
+    @Override
+    public void close() {}
+}
@@ -4,81 +4,52 @@ import javax.swing.event.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.event.ActionEvent;
 import java.awt.*;
-import java.io.*;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Arrays;
+import java.util.concurrent.CompletionException;
 
 public class ERPSystemApp {
-    private static final String[] COLUMN_NAMES = {
-        "SKU", "Item Name", "Quantity", "Cost Price", "Selling Price",
-        "Category", "Location", "Min Stock Threshold"
-    };
-    private int skuCounter = 1;
     private static final String[] CATEGORIES = {
         "Electronics", "Clothing", "Food", "Other"
     };
     private static final String[] LOCATIONS = {
         "Warehouse A", "Warehouse B", "Shelf 1", "Shelf 2", "Other"
     };
-    private DefaultTableModel model;
+    private InventoryTableModel model;
     private JTable inventoryTable;
-    private List<SaleRecord> salesLog = new ArrayList<>();
-    private TableRowSorter<DefaultTableModel> sorter;
+    private TableRowSorter<InventoryTableModel> sorter;
+    private InventorySearchIndex searchIndex;
+    private LowStockIndex lowStock;
+
+    // a thin client: every operation goes through the inventory service, off the EDT
+    private final AsyncDB async = new AsyncDB(new DBHelper());
 
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> new ERPSystemApp().createAndShowGUI());
     }
 
-    private static class SaleRecord {
-        String sku, name, category;
-        int quantity;
-        double sellingPrice;
-        String timestamp;
-        SaleRecord(String sku, String name, String category, int quantity, double sellingPrice, String timestamp) {
-            this.sku = sku;
-            this.name = name;
-            this.category = category;
-            this.quantity = quantity;
-            this.sellingPrice = sellingPrice;
-            this.timestamp = timestamp;
-        }
-    }
-
     private void createAndShowGUI() {
         JFrame frame = new JFrame("Inventory Management");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setSize(900, 600);
         JTabbedPane tabbedPane = new JTabbedPane();
-        model = new DefaultTableModel(COLUMN_NAMES, 0) {
-            public boolean isCellEditable(int row, int col) { return false; }
-        };
-        inventoryTable = new JTable(model);
+        model = new InventoryTableModel();
+        InventoryModelSync.bind(async.service(), model); // the table mirrors the service; nothing here edits it
+        inventoryTable = new InventoryTable(model);
+        searchIndex = new InventorySearchIndex(model); // after the JTable, so it sees model events first
+        lowStock = new LowStockIndex(model);
         inventoryTable.setAutoCreateRowSorter(true);
         sorter = new TableRowSorter<>(model);
         inventoryTable.setRowSorter(sorter);
         inventoryTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         inventoryTable.setFillsViewportHeight(true);
-        inventoryTable.setDefaultRenderer(Object.class, new DefaultTableCellRenderer() {
-            public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
-                Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
-                int modelRow = table.convertRowIndexToModel(row);
-                try {
-                    int qty = Integer.parseInt(model.getValueAt(modelRow, 2).toString());
-                    int min = Integer.parseInt(model.getValueAt(modelRow, 7).toString());
-                    if (qty <= min) {
-                        c.setBackground(new Color(255, 200, 200));
-                    } else {
-                        c.setBackground(isSelected ? table.getSelectionBackground() : Color.WHITE);
-                    }
-                } catch (Exception ex) {
-                    c.setBackground(isSelected ? table.getSelectionBackground() : Color.WHITE);
-                }
-                return c;
-            }
-        });
+        InventoryCellRenderer lowStockRenderer = InventoryCellRenderer.plain(lowStock::isLow);
+        inventoryTable.setDefaultRenderer(Object.class, lowStockRenderer);
+        inventoryTable.setDefaultRenderer(Number.class, lowStockRenderer);
+        inventoryTable.setDefaultRenderer(Double.class, lowStockRenderer);
 
         JPanel entryPanel = new JPanel(new GridBagLayout());
         entryPanel.setBorder(new EmptyBorder(15, 15, 15, 15));
@@ -141,13 +112,15 @@ public class ERPSystemApp {
             try {
                 qty = Integer.parseInt(qtyStr); min = Integer.parseInt(minStr);
                 cost = Double.parseDouble(costStr); sell = Double.parseDouble(sellStr);
-                if (qty < 0 || min < 0 || cost < 0 || sell < 0) throw new Exception();
-            } catch (Exception ex) {
+            } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(frame, "Invalid numeric values. All must be positive."); return;
             }
-            String sku = String.format("UQ%03d", skuCounter++);
-            model.addRow(new Object[]{sku, name, qty, cost, sell, category, location, min});
-            itemNameField.setText(""); quantityField.setText(""); costField.setText(""); sellField.setText(""); minStockField.setText("");
+            addButton.setEnabled(false);
+            async.addItem(name, qty, cost, sell, category, location, min).whenCompleteAsync((item, ex) -> {
+                addButton.setEnabled(true);
+                if (ex != null) { JOptionPane.showMessageDialog(frame, errorMessage(ex)); return; }
+                itemNameField.setText(""); quantityField.setText(""); costField.setText(""); sellField.setText(""); minStockField.setText("");
+            }, AsyncDB.EDT);
         });
 
         tabbedPane.addTab("Entry", entryPanel);
@@ -169,36 +142,26 @@ public class ERPSystemApp {
         deleteButton.addActionListener(e -> {
             int selectedRow = inventoryTable.getSelectedRow();
             if (selectedRow != -1) {
-                int modelRow = inventoryTable.convertRowIndexToModel(selectedRow);
-                model.removeRow(modelRow);
+                String sku = model.getSku(inventoryTable.convertRowIndexToModel(selectedRow));
+                async.delete(sku).whenCompleteAsync((ok, ex) -> {
+                    if (ex != null) JOptionPane.showMessageDialog(frame, "Delete failed: " + errorMessage(ex));
+                }, AsyncDB.EDT);
             } else {
                 JOptionPane.showMessageDialog(frame, "Please select an item to delete.");
             }
         });
         lowStockButton.addActionListener(e -> {
-            StringBuilder sb = new StringBuilder();
-            for (int i = 0; i < model.getRowCount(); i++) {
-                int qty = Integer.parseInt(model.getValueAt(i, 2).toString());
-                int min = Integer.parseInt(model.getValueAt(i, 7).toString());
-                if (qty <= min) {
-                    sb.append("SKU: ").append(model.getValueAt(i, 0)).append(", Name: ").append(model.getValueAt(i, 1)).append(", Qty: ").append(qty).append(", Min: ").append(min).append("\n");
-                }
-            }
+            StringBuilder sb = lowStockLines();
             if (sb.length() == 0) sb.append("No low-stock items.");
             JOptionPane.showMessageDialog(frame, sb.toString(), "Low Stock Items", JOptionPane.INFORMATION_MESSAGE);
         });
+        // filter once typing pauses rather than on every keystroke
+        Timer searchDelay = new Timer(150, e -> sorter.setRowFilter(searchIndex.filter(searchField.getText())));
+        searchDelay.setRepeats(false);
         searchField.getDocument().addDocumentListener(new DocumentListener() {
-            public void insertUpdate(DocumentEvent e) { filter(); }
-            public void removeUpdate(DocumentEvent e) { filter(); }
-            public void changedUpdate(DocumentEvent e) { filter(); }
-            private void filter() {
-                String text = searchField.getText().trim();
-                if (text.length() == 0) {
-                    sorter.setRowFilter(null);
-                } else {
-                    sorter.setRowFilter(RowFilter.regexFilter("(?i)" + text, 0, 1, 5));
-                }
-            }
+            public void insertUpdate(DocumentEvent e) { searchDelay.restart(); }
+            public void removeUpdate(DocumentEvent e) { searchDelay.restart(); }
+            public void changedUpdate(DocumentEvent e) { searchDelay.restart(); }
         });
         tabbedPane.addTab("Inventory", listPanel);
 
@@ -206,12 +169,7 @@ public class ERPSystemApp {
         JTextField restockQtyField = new JTextField();
         JButton restockButton = new JButton("Restock Item");
         restockButton.setToolTipText("Add stock to existing item");
-        model.addTableModelListener(e -> {
-            restockSKUBox.removeAllItems();
-            for (int i = 0; i < model.getRowCount(); i++) {
-                restockSKUBox.addItem(model.getValueAt(i, 0).toString());
-            }
-        });
+        InventoryComboBoxModel.install(restockSKUBox, new InventoryComboBoxModel(model, InventoryTableModel.COL_SKU));
         GridBagConstraints rbc = new GridBagConstraints();
         rbc.insets = new Insets(5, 5, 5, 5);
         rbc.fill = GridBagConstraints.HORIZONTAL;
@@ -231,18 +189,15 @@ public class ERPSystemApp {
                 JOptionPane.showMessageDialog(frame, "Please select SKU and enter quantity."); return;
             }
             int qty;
-            try { qty = Integer.parseInt(qtyStr); if (qty <= 0) throw new Exception(); } catch (Exception ex) {
+            try { qty = Integer.parseInt(qtyStr); } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(frame, "Invalid quantity."); return;
             }
-            for (int i = 0; i < model.getRowCount(); i++) {
-                if (sku.equals(model.getValueAt(i, 0))) {
-                    int currentQty = Integer.parseInt(model.getValueAt(i, 2).toString());
-                    model.setValueAt(currentQty + qty, i, 2);
-                    JOptionPane.showMessageDialog(frame, "Stock updated. New quantity: " + (currentQty + qty));
-                    restockQtyField.setText("");
-                    break;
-                }
-            }
+            async.restock(sku, qty).whenCompleteAsync((newQty, ex) -> {
+                if (ex != null) { JOptionPane.showMessageDialog(frame, errorMessage(ex)); return; }
+                if (newQty == InventoryService.UNKNOWN_SKU) { JOptionPane.showMessageDialog(frame, "Unknown SKU: " + sku); return; }
+                JOptionPane.showMessageDialog(frame, "Stock updated. New quantity: " + newQty);
+                restockQtyField.setText("");
+            }, AsyncDB.EDT);
         });
 
         JPanel exitPanel = new JPanel(new GridBagLayout());
@@ -254,8 +209,7 @@ public class ERPSystemApp {
         JTextField exitQtyField = new JTextField();
         JButton exitButton = new JButton("Confirm Sale");
         exitButton.setToolTipText("Sell item (reduce stock)");
-        updateNameComboBox(exitComboBox);
-        model.addTableModelListener(e -> updateNameComboBox(exitComboBox));
+        InventoryComboBoxModel.install(exitComboBox, new InventoryComboBoxModel(model, InventoryTableModel.COL_NAME));
         int xrow = 0;
         xgbc.gridx = 0; xgbc.gridy = xrow; exitPanel.add(new JLabel("Select Item:"), xgbc);
         xgbc.gridx = 1; exitPanel.add(exitComboBox, xgbc);
@@ -272,26 +226,22 @@ public class ERPSystemApp {
                 JOptionPane.showMessageDialog(frame, "Please select item and enter quantity."); return;
             }
             int qty;
-            try { qty = Integer.parseInt(qtyStr); if (qty <= 0) throw new Exception(); } catch (Exception ex) {
+            try { qty = Integer.parseInt(qtyStr); } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(frame, "Invalid quantity."); return;
             }
-            for (int i = 0; i < model.getRowCount(); i++) {
-                if (name.equals(model.getValueAt(i, 1))) {
-                    int currentQty = Integer.parseInt(model.getValueAt(i, 2).toString());
-                    if (qty > currentQty) {
-                        JOptionPane.showMessageDialog(frame, "Sale quantity exceeds stock."); return;
-                    }
-                    model.setValueAt(currentQty - qty, i, 2);
-                    String sku = model.getValueAt(i, 0).toString();
-                    String category = model.getValueAt(i, 5).toString();
-                    double sellPrice = Double.parseDouble(model.getValueAt(i, 4).toString());
-                    String timestamp = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
-                    this.salesLog.add(new SaleRecord(sku, name, category, qty, sellPrice, timestamp));
-                    JOptionPane.showMessageDialog(frame, "Sale confirmed. Remaining stock: " + (currentQty - qty));
-                    exitQtyField.setText("");
-                    break;
-                }
+            int i = model.rowOfName(name);
+            if (i < 0) {
+                JOptionPane.showMessageDialog(frame, "Unknown item: " + name); return;
             }
+            exitButton.setEnabled(false);
+            async.sell(model.getSku(i), qty).whenCompleteAsync((left, ex) -> {
+                exitButton.setEnabled(true);
+                if (ex != null) { JOptionPane.showMessageDialog(frame, errorMessage(ex)); return; }
+                if (left == InventoryService.INSUFFICIENT_STOCK) { JOptionPane.showMessageDialog(frame, "Sale quantity exceeds stock."); return; }
+                if (left == InventoryService.UNKNOWN_SKU) { JOptionPane.showMessageDialog(frame, "Unknown item: " + name); return; }
+                JOptionPane.showMessageDialog(frame, "Sale confirmed. Remaining stock: " + left);
+                exitQtyField.setText("");
+            }, AsyncDB.EDT);
         });
         tabbedPane.addTab("Exit", exitPanel);
 
@@ -302,12 +252,14 @@ public class ERPSystemApp {
         JButton exportCSVButton = new JButton("Save to CSV");
         buttonPanel.add(stockSummaryButton);
         buttonPanel.add(salesReportButton);
+        JProgressBar exportBar = new JProgressBar(0, 100);
+        exportBar.setStringPainted(true);
+        exportBar.setVisible(false);
         buttonPanel.add(exportCSVButton);
+        buttonPanel.add(exportBar);
         reportsPanel.add(buttonPanel, BorderLayout.NORTH);
-        String[] salesColumns = {"Time", "SKU", "Name", "Category", "Qty", "Price"};
-        DefaultTableModel salesTableModel = new DefaultTableModel(salesColumns, 0) {
-            public boolean isCellEditable(int row, int col) { return false; }
-        };
+        // sales are recorded by the service in the database; the report pages through them
+        LazySalesTableModel salesTableModel = new LazySalesTableModel(async);
         JTable salesTable = new JTable(salesTableModel);
         JScrollPane salesScroll = new JScrollPane(salesTable);
         JTextArea reportArea = new JTextArea(15, 60);
@@ -315,33 +267,22 @@ public class ERPSystemApp {
         JScrollPane reportScroll = new JScrollPane(reportArea);
         reportsPanel.add(reportScroll, BorderLayout.CENTER);
         stockSummaryButton.addActionListener(e -> {
-            int totalItems = model.getRowCount();
-            double totalValue = 0;
-            StringBuilder lowStock = new StringBuilder();
-            for (int i = 0; i < model.getRowCount(); i++) {
-                int qty = Integer.parseInt(model.getValueAt(i, 2).toString());
-                double cost = Double.parseDouble(model.getValueAt(i, 3).toString());
-                int min = Integer.parseInt(model.getValueAt(i, 7).toString());
-                totalValue += qty * cost;
-                if (qty <= min) {
-                    lowStock.append("SKU: ").append(model.getValueAt(i, 0)).append(", Name: ").append(model.getValueAt(i, 1)).append(", Qty: ").append(qty).append(", Min: ").append(min).append("\n");
-                }
-            }
-            StringBuilder sb = new StringBuilder();
-            sb.append("Total Items: ").append(totalItems).append("\n");
-            sb.append("Total Inventory Value: $").append(String.format("%.2f", totalValue)).append("\n");
-            sb.append("Low Stock Items:\n").append(lowStock.length() == 0 ? "None" : lowStock.toString());
             reportsPanel.remove(salesScroll);
             reportsPanel.add(reportScroll, BorderLayout.CENTER);
             reportsPanel.revalidate();
             reportsPanel.repaint();
-            reportArea.setText(sb.toString());
+            async.inventoryValue().whenCompleteAsync((totalValue, ex) -> {
+                if (ex != null) { reportArea.setText("Error: " + errorMessage(ex)); return; }
+                StringBuilder lowStock = lowStockLines();
+                StringBuilder sb = new StringBuilder();
+                sb.append("Total Items: ").append(model.getRowCount()).append("\n");
+                sb.append("Total Inventory Value: $").append(String.format("%.2f", totalValue)).append("\n");
+                sb.append("Low Stock Items:\n").append(lowStock.length() == 0 ? "None" : lowStock.toString());
+                reportArea.setText(sb.toString());
+            }, AsyncDB.EDT);
         });
         salesReportButton.addActionListener(e -> {
-            salesTableModel.setRowCount(0);
-            for (SaleRecord sr : this.salesLog) {
-                salesTableModel.addRow(new Object[]{sr.timestamp, sr.sku, sr.name, sr.category, sr.quantity, String.format("%.2f", sr.sellingPrice)});
-            }
+            salesTableModel.setFilter(SalesFilter.ALL); // re-reads, so sales made since show up
             reportsPanel.remove(reportScroll);
             reportsPanel.add(salesScroll, BorderLayout.CENTER);
             reportsPanel.revalidate();
@@ -350,27 +291,29 @@ public class ERPSystemApp {
         exportCSVButton.addActionListener(e -> {
             JFileChooser chooser = new JFileChooser();
             chooser.setDialogTitle("Save Inventory as CSV");
-            int res = chooser.showSaveDialog(frame);
-            if (res == JFileChooser.APPROVE_OPTION) {
-                File file = chooser.getSelectedFile();
-                try (FileWriter fw = new FileWriter(file)) {
-                    for (int c = 0; c < COLUMN_NAMES.length; c++) {
-                        fw.write(COLUMN_NAMES[c]);
-                        if (c < COLUMN_NAMES.length - 1) fw.write(",");
-                    }
-                    fw.write("\n");
-                    for (int r = 0; r < model.getRowCount(); r++) {
-                        for (int c = 0; c < COLUMN_NAMES.length; c++) {
-                            fw.write(model.getValueAt(r, c).toString());
-                            if (c < COLUMN_NAMES.length - 1) fw.write(",");
-                        }
-                        fw.write("\n");
-                    }
-                    JOptionPane.showMessageDialog(frame, "Exported successfully.");
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(frame, "Error exporting CSV: " + ex.getMessage());
+            if (chooser.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION) return;
+            Path file = chooser.getSelectedFile().toPath();
+            // streamed from the inventory table in the background, so every item is written, not just the model's rows
+            exportCSVButton.setEnabled(false);
+            exportBar.setValue(0);
+            exportBar.setString("Exporting...");
+            exportBar.setVisible(true);
+            CsvTransfer.Progress progress = (rows, total) -> SwingUtilities.invokeLater(() -> {
+                if (total > 0) exportBar.setValue((int) (rows * 100 / total));
+                exportBar.setString(String.format("%,d rows", rows));
+            });
+            async.submit(d -> {
+                try {
+                    return CsvTransfer.forFile(d, file).exportInventory(file, progress);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex.getMessage(), ex);
                 }
-            }
+            }).whenCompleteAsync((rows, ex) -> {
+                exportCSVButton.setEnabled(true);
+                exportBar.setVisible(false);
+                if (ex != null) { JOptionPane.showMessageDialog(frame, "Error exporting CSV: " + errorMessage(ex)); return; }
+                JOptionPane.showMessageDialog(frame, String.format("Exported %,d items.", rows));
+            }, AsyncDB.EDT);
         });
         tabbedPane.addTab("Reports", reportsPanel);
         frame.add(tabbedPane);
@@ -381,11 +324,11 @@ public class ERPSystemApp {
         entryPanel.setFocusTraversalPolicyProvider(true);
         entryPanel.setFocusTraversalPolicy(new FocusTraversalPolicy() {
             public Component getComponentAfter(Container aContainer, Component aComponent) {
-                int idx = entryOrder.indexOf(aComponent);
+                int idx = indexInFocusOrder(entryOrder, aComponent);
                 return entryOrder.get((idx + 1) % entryOrder.size());
             }
             public Component getComponentBefore(Container aContainer, Component aComponent) {
-                int idx = entryOrder.indexOf(aComponent);
+                int idx = indexInFocusOrder(entryOrder, aComponent);
                 return entryOrder.get((idx - 1 + entryOrder.size()) % entryOrder.size());
             }
             public Component getFirstComponent(Container aContainer) { return entryOrder.get(0); }
@@ -394,12 +337,34 @@ public class ERPSystemApp {
         });
         frame.setLocationRelativeTo(null);
         frame.setVisible(true);
+        async.load().whenCompleteAsync((count, ex) -> {
+            if (ex != null) JOptionPane.showMessageDialog(frame, "Could not load inventory: " + errorMessage(ex));
+        }, AsyncDB.EDT);
+    }
+
+    /** One line per low-stock item, in SKU order, read from the low-stock set. */
+    private StringBuilder lowStockLines() {
+        StringBuilder sb = new StringBuilder();
+        for (String sku : lowStock.skus()) {
+            int i = model.rowOfSku(sku);
+            sb.append("SKU: ").append(sku).append(", Name: ").append(model.getName(i)).append(", Qty: ").append(model.getQuantity(i))
+                    .append(", Min: ").append(model.getMinStock(i)).append("\n");
+        }
+        return sb;
+    }
+
+    /** Message of the failure behind an async call, without the CompletionException wrapper. */
+    private static String errorMessage(Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        return cause.getMessage() != null ? cause.getMessage() : cause.toString();
     }
 
-    private void updateNameComboBox(JComboBox<String> box) {
-        box.removeAllItems();
-        for (int i = 0; i < model.getRowCount(); i++) {
-            box.addItem(model.getValueAt(i, 1).toString());
+    // editable combo boxes hand focus to their editor, which is not itself in the list
+    private static int indexInFocusOrder(List<Component> order, Component c) {
+        for (Component p = c; p != null; p = p.getParent()) {
+            int idx = order.indexOf(p);
+            if (idx >= 0) return idx;
         }
+        return -1;
     }
 }
@@ -0,0 +1,63 @@
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Measures how long each event keeps the Event Dispatch Thread busy.
+ *
+ * Pushed on top of the system event queue, it times every dispatchEvent call and counts the results in
+ * coarse buckets. Anything over 16 ms drops a frame; anything over 100 ms is a visible freeze. Start the
+ * app with -Dinventory.edtMonitor=true and the summary is printed at exit. Compare a run with
+ * -Dinventory.syncDb=true (DB calls on the EDT) against the default run.
+ */
+public class EdtLatencyMonitor extends EventQueue {
+
+    private static final long[] BUCKET_LIMITS_NANOS = { 1_000_000L, 16_000_000L, 100_000_000L, 1_000_000_000L };
+    private static final String[] BUCKET_LABELS = { "<1ms", "<16ms", "<100ms", "<1s", ">=1s" };
+
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_LABELS.length);
+
+    /** Installs a monitor when -Dinventory.edtMonitor=true is set; otherwise does nothing. */
+    public static void installIfEnabled() {
+        if (!Boolean.getBoolean("inventory.edtMonitor")) return;
+        EdtLatencyMonitor monitor = new EdtLatencyMonitor();
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(monitor);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.println(monitor.summary()), "edt-monitor"));
+    }
+
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+        long start = System.nanoTime();
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    private void record(long nanos) {
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+        int b = 0;
+        while (b < BUCKET_LIMITS_NANOS.length && nanos >= BUCKET_LIMITS_NANOS[b]) b++;
+        buckets.incrementAndGet(b);
+    }
+
+    public String summary() {
+        long n = count.get();
+        StringBuilder sb = new StringBuilder("EDT events: ").append(n);
+        if (n > 0) {
+            sb.append(String.format(", mean %.3f ms, max %.1f ms", totalNanos.get() / 1e6 / n, maxNanos.get() / 1e6));
+        }
+        for (int i = 0; i < BUCKET_LABELS.length; i++) {
+            sb.append("\n  ").append(BUCKET_LABELS[i]).append(": ").append(buckets.get(i));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,137 @@
+import javax.swing.RowFilter;
+import javax.swing.table.TableRowSorter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * What one inventory search costs with the database's full-text index ({@link DBHelper#searchInventory}),
+ * with a LIKE '%word%' scan of the inventory table, and with the RowFilter approaches that need the
+ * whole catalogue loaded into an {@link InventoryTableModel}.
+ *
+ *   java -Djava.awt.headless=true -cp .;sqlite-jdbc-3.43.0.0.jar FtsBenchmark [items]     (default 1000000)
+ *
+ * Each query is timed the way the inventory panel runs it: the match count plus the first page of
+ * 100 rows for the two SQL paths, and TableRowSorter applying the filter to every row for the
+ * in-memory ones. Each query runs five times and the median is reported. Also printed: the time to
+ * import the items through {@link DBHelper#importInventory}, the time to build the full-text index
+ * over existing rows, and the heap the in-memory paths need before they can answer anything.
+ */
+public class FtsBenchmark {
+
+    private static final String[] ADJECTIVES = {"Blue", "Red", "Steel", "Large", "Small", "Organic", "Wireless", "Cotton", "Heavy", "Compact"};
+    private static final String[] NOUNS = {"Widget", "Cable", "Shirt", "Bottle", "Charger", "Chips", "Lamp", "Drill", "Notebook", "Speaker"};
+    private static final String[] CATEGORIES = {"Electronics", "Clothing", "Food", "Other"};
+    private static final String[] LOCATIONS = {"Warehouse A", "Warehouse B", "Shelf 1", "Shelf 2"};
+    private static final String[] QUERIES = {"w", "org", "clothing cot", "wireless char", "steel drill 77", "UQ00123"};
+    private static final int PAGE = 100;
+    private static final int REPS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path dir = Files.createTempDirectory("fts-bench");
+        Path file = dir.resolve("inventory.db");
+        DBHelper db = new DBHelper(new SQLiteConnectionPool("jdbc:sqlite:" + file));
+        SQLiteConnectionPool raw = new SQLiteConnectionPool("jdbc:sqlite:" + file);
+        try {
+            long start = System.nanoTime();
+            seed(db, items);
+            long imported = System.nanoTime() - start;
+            start = System.nanoTime();
+            try (PooledConnection con = raw.writer(); Statement st = con.createStatement()) {
+                st.execute("INSERT INTO inventory_fts(inventory_fts) VALUES ('rebuild')");
+            }
+            System.out.printf("%,d items imported in %d ms; full-text index rebuilt in %d ms%n", items,
+                    imported / 1_000_000, (System.nanoTime() - start) / 1_000_000);
+
+            long heapBefore = usedHeap();
+            start = System.nanoTime();
+            InventoryTableModel model = new InventoryTableModel();
+            InventoryTableModel.RowBatch batch = new InventoryTableModel.RowBatch(db.countInventory());
+            db.streamInventory(DBHelper.DEFAULT_PAGE_SIZE, batch);
+            model.appendBatch(batch);
+            InventorySearchIndex index = new InventorySearchIndex(model);
+            System.out.printf("in-memory paths: load + index %d ms, ~%d MB heap%n%n",
+                    (System.nanoTime() - start) / 1_000_000, (usedHeap() - heapBefore) >> 20);
+            TableRowSorter<InventoryTableModel> sorter = new TableRowSorter<>(model);
+
+            System.out.printf("  %-16s %9s %11s %11s %11s %11s%n", "query", "matches", "fts", "like scan", "index+sort", "regex+sort");
+            for (String q : QUERIES) {
+                int[] matches = {0};
+                double fts = median(() -> {
+                    matches[0] = db.countSearchInventory(q);
+                    db.searchInventory(q, PAGE, 0, (sku, name, qty, cost, sell, cat, loc, min) -> {});
+                });
+                double like = median(() -> likeSearch(raw, q));
+                double indexed = median(() -> sorter.setRowFilter(index.filter(q)));
+                double regex = median(() -> sorter.setRowFilter(RowFilter.regexFilter("(?i)" + q.trim(), 0, 1, 5, 6)));
+                System.out.printf("  %-16s %,9d %8.2f ms %8.2f ms %8.2f ms %8.2f ms%n", '"' + q + '"', matches[0], fts, like, indexed, regex);
+            }
+        } finally {
+            raw.close();
+            db.close();
+            for (String suffix : new String[]{"", "-wal", "-shm", "-journal"}) {
+                Files.deleteIfExists(dir.resolve("inventory.db" + suffix));
+            }
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private static void seed(DBHelper db, int items) {
+        Random rnd = new Random(42);
+        db.importInventory(sink -> {
+            for (int i = 0; i < items; i++) {
+                sink.accept(String.format("UQ%07d", i),
+                        ADJECTIVES[rnd.nextInt(ADJECTIVES.length)] + " " + NOUNS[rnd.nextInt(NOUNS.length)] + " " + rnd.nextInt(1000),
+                        rnd.nextInt(500), 1.5, 2.5, CATEGORIES[rnd.nextInt(CATEGORIES.length)],
+                        LOCATIONS[rnd.nextInt(LOCATIONS.length)], 10);
+            }
+        });
+    }
+
+    /** Count plus first page with every word as a '%word%' pattern over the four searched columns. */
+    private static void likeSearch(SQLiteConnectionPool raw, String q) throws Exception {
+        String[] words = InventorySearchIndex.terms(q);
+        StringBuilder where = new StringBuilder();
+        for (int i = 0; i < words.length; i++) {
+            if (i > 0) where.append(" AND ");
+            where.append("(sku LIKE ? OR name LIKE ? OR category LIKE ? OR location LIKE ?)");
+        }
+        try (PooledConnection con = raw.reader()) {
+            PreparedStatement count = con.prepareCached("SELECT COUNT(*) FROM inventory WHERE " + where);
+            PreparedStatement page = con.prepareCached("SELECT * FROM inventory WHERE " + where + " LIMIT " + PAGE);
+            for (PreparedStatement ps : new PreparedStatement[]{count, page}) {
+                for (int i = 0; i < words.length * 4; i++) ps.setString(i + 1, "%" + words[i / 4] + "%");
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) { }
+                }
+            }
+        }
+    }
+
+    private interface Work {
+        void run() throws Exception;
+    }
+
+    private static double median(Work work) throws Exception {
+        List<Long> t = new ArrayList<>();
+        for (int i = 0; i < REPS; i++) {
+            long start = System.nanoTime();
+            work.run();
+            t.add(System.nanoTime() - start);
+        }
+        t.sort(null);
+        return t.get(REPS / 2) / 1e6;
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
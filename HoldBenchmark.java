@@ -0,0 +1,133 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * What {@link StockHolds} costs with hundreds of thousands of holds open.
+ *
+ *   java -cp .;sqlite-jdbc-3.43.0.0.jar HoldBenchmark [holds] [items] [threads]     (defaults: 500000, 10000, 8)
+ *
+ * Over a fresh database file seeded with items:
+ * - open: threads open the given number of holds, 30 minutes each, on random SKUs; prints holds per
+ *   second and the heap they take, per hold.
+ * - churn: with those still open, threads place a hold and end it again (70% released, 20% sold,
+ *   10% renewed first) for five seconds; prints operations per second.
+ * - expiry: a further 200,000 holds of one second each; prints how long after the last deadline the
+ *   timer wheel had released them all.
+ *
+ * At the end all holds are closed and every SKU is checked to have nothing left reserved.
+ */
+public class HoldBenchmark {
+
+    private static final long LONG_TTL = 30 * 60_000;
+    private static final int EXPIRING = 200_000;
+
+    public static void main(String[] args) throws Exception {
+        int holds = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int items = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        Path dir = Files.createTempDirectory("hold-bench");
+        Path file = dir.resolve("inventory.db");
+        DBHelper db = new DBHelper(new SQLiteConnectionPool("jdbc:sqlite:" + file));
+        try {
+            db.importInventory(sink -> {
+                for (int i = 0; i < items; i++) {
+                    sink.accept(sku(i), "Item " + i, 1_000_000, 1.5, 2.5, "Other", "Warehouse A", 10);
+                }
+            });
+            run(new InventoryService(db), items, holds, threads);
+        } finally {
+            db.close();
+            for (String suffix : new String[]{"", "-wal", "-shm", "-journal"}) {
+                Files.deleteIfExists(dir.resolve("inventory.db" + suffix));
+            }
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    static void run(InventoryService service, int items, int count, int threads) throws InterruptedException {
+        service.load();
+        StockHolds holds = new StockHolds(service);
+        System.out.printf("%,d items, %d threads, %d cores%n", items, threads, Runtime.getRuntime().availableProcessors());
+
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        parallel(threads, (t, rnd) -> {
+            for (int i = t; i < count; i += threads) {
+                if (holds.hold(sku(rnd.nextInt(items)), 1 + rnd.nextInt(3), LONG_TTL) <= 0) throw new IllegalStateException("hold refused");
+            }
+        });
+        long took = System.nanoTime() - start;
+        long heap = usedHeap() - heapBefore;
+        System.out.printf("open:   %,d holds in %d ms (%,.0f/s), %d bytes each%n", holds.openHolds(), took / 1_000_000,
+                count / (took / 1e9), heap / count);
+
+        AtomicLong ops = new AtomicLong();
+        long end = System.nanoTime() + 5_000_000_000L;
+        start = System.nanoTime();
+        parallel(threads, (t, rnd) -> {
+            long n = 0;
+            while (System.nanoTime() < end) {
+                long id = holds.hold(sku(rnd.nextInt(items)), 1, LONG_TTL);
+                int dice = rnd.nextInt(10);
+                if (dice < 7) {
+                    holds.release(id);
+                } else if (dice < 9) {
+                    if (holds.sell(id) < 0) throw new IllegalStateException("sale refused");
+                } else {
+                    holds.renew(id, LONG_TTL);
+                    holds.release(id);
+                }
+                n++;
+            }
+            ops.addAndGet(n);
+        });
+        System.out.printf("churn:  %,.0f hold-and-end operations/s with %,d open%n", ops.get() / ((System.nanoTime() - start) / 1e9),
+                holds.openHolds());
+
+        int open = holds.openHolds();
+        long expiredBefore = holds.expiredCount();
+        start = System.nanoTime();
+        parallel(threads, (t, rnd) -> {
+            for (int i = t; i < EXPIRING; i += threads) holds.hold(sku(rnd.nextInt(items)), 1, 1000);
+        });
+        long placed = System.nanoTime();
+        while (holds.openHolds() > open) Thread.sleep(5);
+        long lag = (System.nanoTime() - placed) / 1_000_000 - 1000;
+        System.out.printf("expiry: %,d one-second holds placed in %d ms, the last released %d ms after its deadline (%,d expired)%n",
+                EXPIRING, (placed - start) / 1_000_000, lag, holds.expiredCount() - expiredBefore);
+
+        holds.close();
+        int stillReserved = 0;
+        for (int i = 0; i < items; i++) stillReserved += service.reserved(sku(i));
+        System.out.printf("closed: %d open holds, %d units still reserved%n", holds.openHolds(), stillReserved);
+    }
+
+    private interface Work {
+        void run(int thread, ThreadLocalRandom rnd);
+    }
+
+    private static void parallel(int threads, Work work) throws InterruptedException {
+        List<Thread> started = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            Thread thread = new Thread(() -> work.run(id, ThreadLocalRandom.current()));
+            thread.start();
+            started.add(thread);
+        }
+        for (Thread t : started) t.join();
+    }
+
+    private static String sku(int i) {
+        return String.format("UQ%06d", i);
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,186 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Latency of {@link InventoryHttpServer} under a steady request rate from many terminals.
+ *
+ *   java -cp .;sqlite-jdbc-3.43.0.0.jar HttpLoadBenchmark [items] [seconds] [terminals]     (defaults: 10000, 10, 64)
+ *
+ * The server runs in-process over a fresh database file seeded with items (plenty of stock each) and
+ * listens on a free local port. Each terminal is a thread with one keep-alive connection. The
+ * schedule is fixed in advance: request i is due at start + i / rate, and the next free terminal sends
+ * it then. Latency is measured from the moment a request was due, not from when it was actually sent,
+ * so when the server falls behind and every terminal is still waiting for an answer, the lateness
+ * shows up in the percentiles instead of hiding in a lower request rate.
+ *
+ * The terminals speak plain HTTP/1.1 over sockets: java.net.http.HttpClient spends more CPU per
+ * request than the server does, and on the same machine would mostly measure itself.
+ *
+ * The mix is 45% sales of 1 unit, 45% item lookups and 10% restocks, over random SKUs. Each rate
+ * (1k, 5k and 10k requests/s) runs for the given seconds after a short warm-up and reports p50, p99
+ * and max latency, the rate actually achieved, failed requests (I/O errors and 5xx) and the average
+ * number of stock changes the writer committed per transaction.
+ */
+public class HttpLoadBenchmark {
+
+    private static final int[] RATES = {1_000, 5_000, 10_000};
+    private static final int WARMUP_RATE = 500;
+    private static final int WARMUP_SECONDS = 2;
+
+    public static void main(String[] args) throws Exception {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int terminals = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        Path dir = Files.createTempDirectory("http-bench");
+        Path file = dir.resolve("inventory.db");
+        DBHelper db = new DBHelper(new SQLiteConnectionPool("jdbc:sqlite:" + file));
+        try {
+            db.importInventory(sink -> {
+                for (int i = 0; i < items; i++) {
+                    sink.accept(sku(i), "Item " + i, 1_000_000, 1.5, 2.5, "Other", "Warehouse A", 10);
+                }
+            });
+            run(new InventoryService(db), items, seconds, terminals);
+        } finally {
+            db.close();
+            for (String suffix : new String[]{"", "-wal", "-shm", "-journal"}) {
+                Files.deleteIfExists(dir.resolve("inventory.db" + suffix));
+            }
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    static void run(InventoryService service, int items, int seconds, int terminals) throws Exception {
+        service.load();
+        try (InventoryHttpServer server = new InventoryHttpServer(service, new InetSocketAddress("127.0.0.1", 0))) {
+            server.start();
+            System.out.printf("%,d items, %d s per rate, %d terminals, %d cores%n%n", items, seconds, terminals,
+                    Runtime.getRuntime().availableProcessors());
+            round(server, items, terminals, WARMUP_RATE, WARMUP_SECONDS, null);
+            System.out.printf("  %10s %10s %10s %10s %11s %8s %10s%n", "target/s", "p50", "p99", "max", "achieved/s", "failed", "per commit");
+            for (int rate : RATES) round(server, items, terminals, rate, seconds, String.format("%,d", rate));
+        }
+    }
+
+    private static void round(InventoryHttpServer server, int items, int terminals, int rate, int seconds, String label)
+            throws InterruptedException {
+        int n = rate * seconds;
+        long[] latency = new long[n];
+        AtomicInteger next = new AtomicInteger(), failed = new AtomicInteger();
+        long batches = server.batcher().batchCount(), changes = server.batcher().changeCount();
+        long start = System.nanoTime() + 50_000_000;
+
+        List<Thread> threads = new ArrayList<>(terminals);
+        for (int t = 0; t < terminals; t++) {
+            Thread thread = new Thread(() -> {
+                Terminal terminal = null;
+                for (int i; (i = next.getAndIncrement()) < n; ) {
+                    long due = start + (long) (i * (1e9 / rate));
+                    long wait;
+                    while ((wait = due - System.nanoTime()) > 0) LockSupport.parkNanos(wait);
+                    try {
+                        if (terminal == null) terminal = new Terminal(server.port());
+                        if (terminal.send(request(items)) >= 500) failed.incrementAndGet();
+                    } catch (IOException e) {
+                        failed.incrementAndGet();
+                        terminal = Terminal.close(terminal);
+                    }
+                    latency[i] = System.nanoTime() - due;
+                }
+                Terminal.close(terminal);
+            }, "terminal-" + t);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread t : threads) t.join();
+        long wall = System.nanoTime() - start;
+        if (label == null) return;
+
+        Arrays.sort(latency);
+        long committed = server.batcher().batchCount() - batches;
+        System.out.printf("  %10s %7.1f ms %7.1f ms %7.0f ms %,11.0f %8d %10.1f%n", label,
+                latency[n / 2] / 1e6, latency[(int) (n * 0.99)] / 1e6, latency[n - 1] / 1e6,
+                n / (wall / 1e9), failed.get(),
+                committed == 0 ? 0.0 : (double) (server.batcher().changeCount() - changes) / committed);
+    }
+
+    private static byte[] request(int items) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        String sku = sku(rnd.nextInt(items));
+        int dice = rnd.nextInt(100);
+        String text;
+        if (dice < 45) {
+            text = "GET /items/" + sku + " HTTP/1.1\r\nHost: localhost\r\n\r\n";
+        } else {
+            String body = "{\"sku\":\"" + sku + "\",\"qty\":" + (dice < 90 ? 1 : 10) + "}";
+            text = "POST " + (dice < 90 ? "/sell" : "/restock") + " HTTP/1.1\r\nHost: localhost\r\n"
+                    + "Content-Type: application/json\r\nContent-Length: " + body.length() + "\r\n\r\n" + body;
+        }
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static String sku(int i) {
+        return String.format("UQ%06d", i);
+    }
+
+    /** One keep-alive connection; reads just enough of each response to find its status and end. */
+    private static final class Terminal {
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+        private final StringBuilder line = new StringBuilder();
+
+        Terminal(int port) throws IOException {
+            socket = new Socket("127.0.0.1", port);
+            socket.setTcpNoDelay(true);
+            in = new BufferedInputStream(socket.getInputStream());
+            out = socket.getOutputStream();
+        }
+
+        /** Sends the request and returns the response status. */
+        int send(byte[] request) throws IOException {
+            out.write(request);
+            out.flush();
+            String statusLine = readLine();
+            int status = Integer.parseInt(statusLine.substring(9, 12));
+            int length = 0;
+            for (String header; !(header = readLine()).isEmpty(); ) {
+                if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) length = Integer.parseInt(header.substring(15).trim());
+            }
+            in.skipNBytes(length);
+            return status;
+        }
+
+        private String readLine() throws IOException {
+            line.setLength(0);
+            for (int c; (c = in.read()) != '\n'; ) {
+                if (c < 0) throw new IOException("Connection closed");
+                if (c != '\r') line.append((char) c);
+            }
+            return line.toString();
+        }
+
+        static Terminal close(Terminal t) {
+            if (t != null) {
+                try {
+                    t.socket.close();
+                } catch (IOException ignored) {
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+import javax.swing.JComponent;
+import javax.swing.JTable;
+import javax.swing.UIManager;
+import javax.swing.border.Border;
+import javax.swing.table.TableCellRenderer;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Insets;
+import java.awt.Rectangle;
+import java.awt.Toolkit;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Inventory cell renderer that allocates nothing per cell, so scrolling a large table does not
+ * churn the heap.
+ *
+ * Cell text is written into a reused char buffer and painted with drawChars: numbers are formatted
+ * in place, and over an {@link InventoryTableModel} every cell is read from the model's typed columns
+ * (with {@link InventoryTable}, JTable does not box it through getValueAt first). Colours are
+ * constants, font metrics are cached per font, and low stock comes from a per-row flag such as
+ * {@link LowStockIndex#isLow}. Prices print as Double.toString would for any value with at most two
+ * decimals; anything else falls back to Double.toString. Text that does not fit ends in "...".
+ */
+public class InventoryCellRenderer extends JComponent implements TableCellRenderer {
+
+    private static final Color STRIPE = new Color(245, 245, 245);
+    private static final Color STRIPED_LOW = new Color(255, 220, 220);
+    private static final Color PLAIN_LOW = new Color(255, 200, 200);
+    private static final Insets STRIPED_PADDING = new Insets(4, 8, 4, 8);
+    private static final Insets PLAIN_PADDING = new Insets(1, 1, 1, 1);
+    private static final char[] ELLIPSIS = {'.', '.', '.'};
+
+    private final IntPredicate lowStock;
+    private final boolean striped;
+    private final Insets padding;
+
+    private char[] text = new char[64];
+    private int length;
+    private Color background, foreground;
+    private Font font;
+    private FontMetrics metrics;
+    private boolean focused;
+    private Border focusBorder;
+    private Map<?, ?> textHints;
+
+    /**
+     * Zebra rows, roomy padding, and a low-stock tint that gives way to the selection colour.
+     *
+     * @param lowStock whether a model row is at or below its minimum stock
+     */
+    public static InventoryCellRenderer striped(IntPredicate lowStock) {
+        return new InventoryCellRenderer(lowStock, true, STRIPED_PADDING);
+    }
+
+    /** White rows, the look and feel's focus border, and a low-stock tint that shows even when selected. */
+    public static InventoryCellRenderer plain(IntPredicate lowStock) {
+        return new InventoryCellRenderer(lowStock, false, PLAIN_PADDING);
+    }
+
+    private InventoryCellRenderer(IntPredicate lowStock, boolean striped, Insets padding) {
+        this.lowStock = lowStock;
+        this.striped = striped;
+        this.padding = padding;
+        setOpaque(true);
+        updateUI();
+    }
+
+    public void updateUI() {
+        super.updateUI();
+        focusBorder = striped ? null : UIManager.getBorder("Table.focusCellHighlightBorder");
+        textHints = (Map<?, ?>) Toolkit.getDefaultToolkit().getDesktopProperty("awt.font.desktophints");
+        font = null;
+    }
+
+    public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+        int modelRow = table.convertRowIndexToModel(row);
+        length = 0;
+        if (table.getModel() instanceof InventoryTableModel m) {
+            appendCell(m, modelRow, table.convertColumnIndexToModel(column));
+        } else {
+            appendValue(value);
+        }
+
+        boolean low = lowStock.test(modelRow);
+        if (striped) {
+            background = isSelected ? table.getSelectionBackground() : low ? STRIPED_LOW : row % 2 == 0 ? STRIPE : Color.WHITE;
+            foreground = isSelected ? table.getSelectionForeground() : Color.BLACK;
+        } else {
+            background = low ? PLAIN_LOW : isSelected ? table.getSelectionBackground() : Color.WHITE;
+            foreground = isSelected ? table.getSelectionForeground() : table.getForeground();
+        }
+        focused = hasFocus && focusBorder != null;
+
+        Font f = table.getFont();
+        if (f != font) {
+            font = f;
+            metrics = table.getFontMetrics(f);
+        }
+        return this;
+    }
+
+    // ---------- Text ----------
+
+    private void appendCell(InventoryTableModel m, int row, int column) {
+        switch (column) {
+            case InventoryTableModel.COL_QUANTITY: appendInt(m.getQuantity(row)); break;
+            case InventoryTableModel.COL_MIN_STOCK: appendInt(m.getMinStock(row)); break;
+            case InventoryTableModel.COL_COST: appendNumber(m.getCostPrice(row)); break;
+            case InventoryTableModel.COL_SELL: appendNumber(m.getSellPrice(row)); break;
+            default: appendValue(m.getValueAt(row, column)); // the text columns hand back stored strings
+        }
+    }
+
+    private void appendValue(Object value) {
+        if (value == null) return;
+        if (value instanceof String s) {
+            appendString(s);
+        } else if (value instanceof Integer i) {
+            appendInt(i);
+        } else if (value instanceof Double d) {
+            appendNumber(d);
+        } else {
+            appendString(value.toString());
+        }
+    }
+
+    private void appendString(String s) {
+        ensureRoom(s.length());
+        s.getChars(0, s.length(), text, length);
+        length += s.length();
+    }
+
+    private void appendInt(long v) {
+        ensureRoom(20);
+        if (v < 0) {
+            text[length++] = '-';
+            v = -v;
+        }
+        int start = length;
+        do {
+            text[length++] = (char) ('0' + v % 10);
+            v /= 10;
+        } while (v > 0);
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            char c = text[i];
+            text[i] = text[j];
+            text[j] = c;
+        }
+    }
+
+    /** Double.toString's output, produced in place for values with at most two decimals. */
+    private void appendNumber(double d) {
+        double a = Math.abs(d);
+        long cents = Math.round(a * 100);
+        // Double.toString switches to E notation outside [1e-3, 1e7)
+        if (!(a == 0 || a >= 1e-3 && a < 1e7 && cents / 100.0 == a)) {
+            appendString(Double.toString(d));
+            return;
+        }
+        if (d < 0 || d == 0 && 1 / d < 0) {
+            ensureRoom(1);
+            text[length++] = '-';
+        }
+        appendInt(cents / 100);
+        ensureRoom(3);
+        int frac = (int) (cents % 100);
+        text[length++] = '.';
+        text[length++] = (char) ('0' + frac / 10);
+        if (frac % 10 != 0) text[length++] = (char) ('0' + frac % 10);
+    }
+
+    private void ensureRoom(int n) {
+        if (length + n > text.length) text = Arrays.copyOf(text, Math.max(length + n, text.length * 2));
+    }
+
+    // ---------- Painting ----------
+
+    /**
+     * Paints straight into the graphics it is handed. CellRendererPane already gives each cell its own
+     * throwaway copy, so the further copy JComponent.paint would make is skipped.
+     */
+    public void paint(Graphics g) {
+        paintComponent(g);
+    }
+
+    protected void paintComponent(Graphics g) {
+        int w = getWidth(), h = getHeight();
+        g.setColor(background);
+        g.fillRect(0, 0, w, h);
+        if (textHints != null) ((Graphics2D) g).addRenderingHints(textHints);
+        g.setFont(font);
+        g.setColor(foreground);
+
+        int x = padding.left;
+        int y = padding.top + (h - padding.top - padding.bottom - metrics.getHeight()) / 2 + metrics.getAscent();
+        int room = w - padding.left - padding.right;
+        int n = length;
+        int width = metrics.charsWidth(text, 0, n);
+        if (width <= room) {
+            g.drawChars(text, 0, n, x, y);
+        } else {
+            room -= metrics.charsWidth(ELLIPSIS, 0, ELLIPSIS.length);
+            while (n > 0 && width > room) width -= metrics.charWidth(text[--n]);
+            g.drawChars(text, 0, n, x, y);
+            g.drawChars(ELLIPSIS, 0, ELLIPSIS.length, x + width, y);
+        }
+        if (focused) focusBorder.paintBorder(this, g, 0, 0, w, h);
+    }
+
+    public Dimension getPreferredSize() {
+        if (metrics == null) return new Dimension(padding.left + padding.right, padding.top + padding.bottom);
+        return new Dimension(metrics.charsWidth(text, 0, length) + padding.left + padding.right,
+                metrics.getHeight() + padding.top + padding.bottom);
+    }
+
+    // A renderer is stamped, never laid out or repainted itself; skip the bookkeeping, as
+    // DefaultTableCellRenderer does.
+    public void invalidate() {}
+    public void validate() {}
+    public void revalidate() {}
+    public void repaint(long tm, int x, int y, int width, int height) {}
+    public void repaint(Rectangle r) {}
+    public void repaint() {}
+    protected void firePropertyChange(String propertyName, Object oldValue, Object newValue) {}
+    public void firePropertyChange(String propertyName, boolean oldValue, boolean newValue) {}
+}
@@ -0,0 +1,136 @@
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.text.JTextComponent;
+
+/**
+ * Combo-box model over one column (SKU or item name) of an {@link InventoryTableModel}.
+ *
+ * It holds no copy of the items: elements are read straight from the table model, and table
+ * insert/delete events are forwarded as interval events for just the affected rows. Updates to
+ * other columns, like the quantity change after every sale, are ignored. Replacing removeAllItems()
+ * plus re-adding every row on each table event turns a bulk load from O(n^2) into O(n).
+ *
+ * An optional type-ahead filter narrows the list to rows whose value starts with the typed text
+ * (case-insensitive); see {@link #install}.
+ */
+public class InventoryComboBoxModel extends AbstractListModel<String> implements ComboBoxModel<String>, TableModelListener {
+
+    private final InventoryTableModel model;
+    private final int column;
+    private Object selected;
+    private String filter = "";
+    private int[] matches;          // model rows passing the filter, or null when unfiltered
+    private int matchCount;
+
+    public InventoryComboBoxModel(InventoryTableModel model, int column) {
+        if (column != InventoryTableModel.COL_SKU && column != InventoryTableModel.COL_NAME)
+            throw new IllegalArgumentException("Only the SKU and name columns can back a combo box");
+        this.model = model;
+        this.column = column;
+        model.addTableModelListener(this);
+    }
+
+    /**
+     * Makes the combo editable and filters its list as the user types.
+     * The prototype value stops the combo from measuring every item to size itself.
+     */
+    public static void install(JComboBox<String> box, InventoryComboBoxModel comboModel) {
+        box.setModel(comboModel);
+        box.setPrototypeDisplayValue("XXXXXXXXXXXXXXXXXXXXXXXX");
+        box.setEditable(true);
+        JTextComponent editor = (JTextComponent) box.getEditor().getEditorComponent();
+        editor.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { typed(); }
+            public void removeUpdate(DocumentEvent e) { typed(); }
+            public void changedUpdate(DocumentEvent e) { typed(); }
+            private void typed() {
+                // the combo rewrites the editor when the list changes; don't do that inside this notification
+                SwingUtilities.invokeLater(() -> {
+                    String text = editor.getText();
+                    if (text.equals(comboModel.filter)) return;
+                    comboModel.setFilter(text);
+                    if (editor.hasFocus() && box.isShowing()) box.showPopup();
+                });
+            }
+        });
+    }
+
+    /** Restricts the list to values starting with the given text (case-insensitive); empty shows everything. */
+    public void setFilter(String text) {
+        filter = text == null ? "" : text;
+        refilter();
+        fireContentsChanged(this, 0, Math.max(0, getSize() - 1));
+    }
+
+    private void refilter() {
+        if (filter.isEmpty()) {
+            matches = null;
+            matchCount = 0;
+            return;
+        }
+        int n = model.getRowCount();
+        int[] found = matches != null && matches.length >= n ? matches : new int[Math.max(16, n)];
+        int count = 0;
+        for (int row = 0; row < n; row++) {
+            String v = valueAt(row);
+            if (v != null && v.regionMatches(true, 0, filter, 0, filter.length())) found[count++] = row;
+        }
+        matches = found;
+        matchCount = count;
+    }
+
+    private String valueAt(int row) {
+        return column == InventoryTableModel.COL_SKU ? model.getSku(row) : model.getName(row);
+    }
+
+    // ---------- ListModel / ComboBoxModel ----------
+    public int getSize() {
+        return matches == null ? model.getRowCount() : matchCount;
+    }
+
+    public String getElementAt(int index) {
+        if (matches == null) return index < model.getRowCount() ? valueAt(index) : null;
+        return index < matchCount ? valueAt(matches[index]) : null;
+    }
+
+    public void setSelectedItem(Object item) {
+        if (item == null ? selected == null : item.equals(selected)) return;
+        selected = item;
+        fireContentsChanged(this, -1, -1);
+    }
+
+    public Object getSelectedItem() {
+        return selected;
+    }
+
+    // ---------- TableModelListener ----------
+    public void tableChanged(TableModelEvent e) {
+        int first = e.getFirstRow(), last = e.getLastRow();
+        boolean wholeTable = first == TableModelEvent.HEADER_ROW || last == Integer.MAX_VALUE;
+        if (e.getType() == TableModelEvent.UPDATE && !wholeTable
+                && e.getColumn() != column && e.getColumn() != TableModelEvent.ALL_COLUMNS) {
+            return; // e.g. a quantity change: our column did not move
+        }
+        if (matches != null || wholeTable) {
+            // a filtered view is short-lived (the user is typing), so just recompute it
+            refilter();
+            fireContentsChanged(this, 0, Math.max(0, getSize() - 1));
+            if (selected == null && matches == null && getSize() > 0) setSelectedItem(getElementAt(0));
+            return;
+        }
+        switch (e.getType()) {
+            case TableModelEvent.INSERT:
+                fireIntervalAdded(this, first, last);
+                if (selected == null) setSelectedItem(getElementAt(first));
+                break;
+            case TableModelEvent.DELETE:
+                fireIntervalRemoved(this, first, last);
+                break;
+            default:
+                fireContentsChanged(this, first, last);
+        }
+    }
+}
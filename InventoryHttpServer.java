@@ -0,0 +1,367 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * HTTP/JSON access to the inventory for POS terminals and scanners: what the Stock Exit, Stock Entry
+ * and Reports panels do, without the UI.
+ *
+ *   POST /sell              {"sku":"UQ001","qty":2}  ->  {"sku":"UQ001","remaining":8}
+ *   POST /restock           {"sku":"UQ001","qty":5}  ->  {"sku":"UQ001","quantity":13}
+ *   GET  /items/UQ001                                ->  the item
+ *   GET  /items?after=UQ100&limit=100                ->  {"items":[...],"next":"UQ200"}   (next null at the end)
+ *   GET  /search?q=blue+wid&limit=20                 ->  {"items":[...]}
+ *   GET  /lowstock                                   ->  {"items":[...]}
+ *   GET  /reports/stock                              ->  {"items":n,"inventoryValue":v,"lowStock":[...]}
+ *   GET  /reports/revenue?days=30                    ->  {"byCategory":{...},"byDay":{...}}
+ *
+ *   POST   /holds           {"sku":"UQ001","qty":2,"ttlSeconds":300}  ->  {"hold":"4294967296","available":6}
+ *   POST   /holds/{id}/sell                          ->  {"hold":"...","remaining":8}
+ *   POST   /holds/{id}/renew {"ttlSeconds":300}      ->  {"hold":"...","renewed":true}
+ *   DELETE /holds/{id}                               ->  {"hold":"...","released":true}
+ *
+ * A hold keeps units out of what others can sell while a basket is built or a checkout is in
+ * progress; see {@link StockHolds}. Ids are strings because they do not fit a JavaScript number.
+ * Item rows carry "available", the quantity less what holds keep.
+ *
+ * Errors come back as {"error":"..."}: 400 for bad input, 404 for an unknown SKU, hold or path, 409
+ * when stock is insufficient, 503 when too many changes are queued, 500 otherwise.
+ *
+ * Each request runs on its own virtual thread (a small pool before JDK 21), so a slow client or query
+ * never holds up the others. Sales and restocks all go through one {@link StockChangeBatcher}: whatever
+ * arrives while a transaction commits is written in the next one. Reads come from the
+ * {@link InventoryService}'s in-memory catalogue; only search and revenue reports query the database.
+ * Setting -Dinventory.maxBatch=1 commits every change on its own instead, as the Swing panels do;
+ * together with {@link HttpLoadBenchmark} that gives the before/after numbers. -Dinventory.maxDelayMillis
+ * lets the writer wait that long for a batch to fill (default 0, see StockChangeBatcher).
+ *
+ * There is no authentication: bind it to a network only the terminals can reach.
+ *
+ *   java -cp .;sqlite-jdbc-3.43.0.0.jar InventoryHttpServer [port]     (default 8080)
+ */
+public class InventoryHttpServer implements AutoCloseable {
+
+    private static final int MAX_LIMIT = DBHelper.DEFAULT_PAGE_SIZE;
+    private static final int MAX_BODY = 64 * 1024;
+
+    static {
+        // The JDK server leaves Nagle's algorithm on, so each small response waits for the client's
+        // delayed ACK; read when the first server is created, so this must come before that.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final InventoryService service;
+    private final StockChangeBatcher batcher;
+    private final StockHolds holds;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public InventoryHttpServer(InventoryService service, InetSocketAddress address) throws IOException {
+        this.service = service;
+        this.batcher = new StockChangeBatcher(service, Integer.getInteger("inventory.maxBatch", 256),
+                Long.getLong("inventory.maxDelayMillis", 0), 10_000);
+        this.holds = new StockHolds(service);
+        this.server = HttpServer.create(address, 1024);
+        this.executor = AsyncDB.newExecutor(16, "http");
+        server.setExecutor(executor);
+        server.createContext("/sell", post(body -> change(StockChange.sale(body.get("sku"), quantity(body)), "remaining")));
+        server.createContext("/restock", post(body -> change(StockChange.restock(body.get("sku"), quantity(body)), "quantity")));
+        server.createContext("/items", get(this::items));
+        server.createContext("/search", get(this::search));
+        server.createContext("/lowstock", get(ex -> Map.of("items", rows(service.lowStock()))));
+        server.createContext("/reports/stock", get(ex -> stockReport()));
+        server.createContext("/reports/revenue", get(this::revenueReport));
+        server.createContext("/holds", ex -> dispatch(ex, null, this::holds));
+        server.createContext("/", ex -> send(ex, 404, error("No such endpoint")));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /** The port actually bound, for servers created on port 0. */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    public StockChangeBatcher batcher() {
+        return batcher;
+    }
+
+    public StockHolds holds() {
+        return holds;
+    }
+
+    /** Stops accepting requests, gives those in flight a second, then stops the writer and ends all holds. */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        batcher.close();
+        holds.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        InventoryService service = new InventoryService(new DBHelper());
+        int items = service.load();
+        InventoryHttpServer server = new InventoryHttpServer(service, new InetSocketAddress(port));
+        server.start();
+        System.out.println("Serving " + items + " items on port " + server.port());
+    }
+
+    // ---------- Endpoints ----------
+
+    /** Thrown by endpoints to answer with a status other than 200. */
+    private static final class Status extends RuntimeException {
+        final int code;
+
+        Status(int code, String message) {
+            super(message, null, false, false);
+            this.code = code;
+        }
+    }
+
+    private Object change(StockChange change, String field) throws Exception {
+        int result;
+        try {
+            result = batcher.submit(change).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ex ? ex : e;
+        }
+        if (result == InventoryService.UNKNOWN_SKU) throw new Status(404, "Unknown SKU " + change.sku);
+        if (result == InventoryService.INSUFFICIENT_STOCK) {
+            throw new Status(409, "Insufficient stock for " + change.sku + ": " + service.available(change.sku) + " available");
+        }
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("sku", change.sku);
+        out.put(field, result);
+        return out;
+    }
+
+    private Object items(HttpExchange ex) {
+        String path = ex.getRequestURI().getPath();
+        if (path.startsWith("/items/") && path.length() > "/items/".length()) {
+            String sku = URLDecoder.decode(path.substring("/items/".length()), StandardCharsets.UTF_8);
+            InventoryService.Item it = service.item(sku);
+            if (it == null) throw new Status(404, "Unknown SKU " + sku);
+            return row(it);
+        }
+        if (!path.equals("/items") && !path.equals("/items/")) throw new Status(404, "No such endpoint");
+        Map<String, String> q = query(ex);
+        int limit = limit(q, 100);
+        List<InventoryService.Item> page = service.itemsAfter(q.get("after"), limit);
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("items", rows(page));
+        out.put("next", page.size() < limit ? null : page.get(page.size() - 1).sku);
+        return out;
+    }
+
+    private Object search(HttpExchange ex) {
+        Map<String, String> q = query(ex);
+        String text = q.get("q");
+        if (text == null) throw new IllegalArgumentException("Query parameter q is required");
+        List<Object> found = new ArrayList<>();
+        service.db().searchInventory(text, limit(q, 20), 0, (sku, name, qty, cost, sell, cat, loc, min) ->
+                found.add(row(new InventoryService.Item(sku, name, qty, cost, sell, cat, loc, min))));
+        return Map.of("items", found);
+    }
+
+    private Object holds(HttpExchange ex) throws IOException {
+        String[] path = ex.getRequestURI().getPath().split("/"); // "", "holds", id, action
+        String method = ex.getRequestMethod();
+        if (path.length == 2 && method.equals("POST")) {
+            Map<String, String> body = Json.parseObject(body(ex));
+            String sku = body.get("sku");
+            long id = holds.hold(sku, quantity(body), ttlMillis(body));
+            if (id == InventoryService.UNKNOWN_SKU) throw new Status(404, "Unknown SKU " + sku);
+            if (id == InventoryService.INSUFFICIENT_STOCK) {
+                throw new Status(409, "Insufficient stock for " + sku + ": " + service.available(sku) + " available");
+            }
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("hold", Long.toString(id));
+            out.put("available", service.available(sku));
+            return out;
+        }
+        if (path.length < 3) throw new Status(405, "Use POST");
+        long id = Long.parseLong(path[2]);
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("hold", path[2]);
+        String action = path.length == 4 ? path[3] : path.length == 3 ? "" : null;
+        if ("".equals(action) && method.equals("DELETE")) {
+            if (!holds.release(id)) throw new Status(404, "No such hold " + path[2]);
+            out.put("released", true);
+        } else if ("sell".equals(action) && method.equals("POST")) {
+            int remaining = holds.sell(id);
+            if (remaining == StockHolds.NO_SUCH_HOLD) throw new Status(404, "No such hold " + path[2]);
+            if (remaining == InventoryService.UNKNOWN_SKU) throw new Status(404, "The held item no longer exists");
+            if (remaining == InventoryService.INSUFFICIENT_STOCK) throw new Status(409, "Insufficient stock in the database");
+            out.put("remaining", remaining);
+        } else if ("renew".equals(action) && method.equals("POST")) {
+            if (!holds.renew(id, ttlMillis(Json.parseObject(body(ex))))) throw new Status(404, "No such hold " + path[2]);
+            out.put("renewed", true);
+        } else {
+            throw new Status(action == null ? 404 : 405, action == null ? "No such endpoint" : "Not allowed here");
+        }
+        return out;
+    }
+
+    private Object stockReport() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("items", service.itemCount());
+        out.put("inventoryValue", service.inventoryValue());
+        out.put("lowStock", rows(service.lowStock()));
+        return out;
+    }
+
+    private Object revenueReport(HttpExchange ex) {
+        String days = query(ex).getOrDefault("days", "30");
+        int d = Integer.parseInt(days);
+        if (d <= 0) throw new IllegalArgumentException("days must be positive");
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("byCategory", service.revenueByCategory(d));
+        out.put("byDay", service.revenueByDay(d));
+        return out;
+    }
+
+    // ---------- Plumbing ----------
+
+    private interface Endpoint {
+        Object handle(HttpExchange ex) throws Exception;
+    }
+
+    private interface BodyEndpoint {
+        Object handle(Map<String, String> body) throws Exception;
+    }
+
+    private HttpHandler get(Endpoint e) {
+        return ex -> dispatch(ex, "GET", e);
+    }
+
+    private HttpHandler post(BodyEndpoint e) {
+        return ex -> dispatch(ex, "POST", x -> e.handle(Json.parseObject(body(x))));
+    }
+
+    private void dispatch(HttpExchange ex, String method, Endpoint e) throws IOException {
+        if (method != null && !ex.getRequestMethod().equals(method)) {
+            ex.getResponseHeaders().set("Allow", method);
+            send(ex, 405, error("Use " + method));
+            return;
+        }
+        int code = 200;
+        Object out;
+        try {
+            out = e.handle(ex);
+        } catch (Status s) {
+            code = s.code;
+            out = error(s.getMessage());
+        } catch (IllegalArgumentException bad) { // also NumberFormatException and bad JSON
+            code = 400;
+            out = error(bad.getMessage());
+        } catch (RejectedExecutionException busy) {
+            code = 503;
+            out = error(busy.getMessage());
+        } catch (InterruptedException stop) {
+            Thread.currentThread().interrupt();
+            code = 503;
+            out = error("Server stopping");
+        } catch (Exception fail) {
+            code = 500;
+            out = error(fail.getMessage());
+        }
+        send(ex, code, out);
+    }
+
+    private static void send(HttpExchange ex, int code, Object body) throws IOException {
+        byte[] bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(code, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String body(HttpExchange ex) throws IOException {
+        try (InputStream in = ex.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY + 1);
+            if (bytes.length > MAX_BODY) throw new IllegalArgumentException("Request body too large");
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange ex) {
+        Map<String, String> out = new HashMap<>();
+        String raw = ex.getRequestURI().getRawQuery();
+        if (raw == null) return out;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            out.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return out;
+    }
+
+    private static int quantity(Map<String, String> body) {
+        String qty = body.get("qty");
+        if (qty == null) throw new IllegalArgumentException("qty is required");
+        return Integer.parseInt(qty);
+    }
+
+    private static long ttlMillis(Map<String, String> body) {
+        String ttl = body.get("ttlSeconds");
+        if (ttl == null) throw new IllegalArgumentException("ttlSeconds is required");
+        return Math.multiplyExact(Long.parseLong(ttl), 1000L);
+    }
+
+    private static int limit(Map<String, String> q, int dflt) {
+        String limit = q.get("limit");
+        int n = limit == null ? dflt : Integer.parseInt(limit);
+        if (n <= 0) throw new IllegalArgumentException("limit must be positive");
+        return Math.min(n, MAX_LIMIT);
+    }
+
+    private List<Object> rows(List<InventoryService.Item> items) {
+        List<Object> out = new ArrayList<>(items.size());
+        for (InventoryService.Item it : items) out.add(row(it));
+        return out;
+    }
+
+    private Map<String, Object> row(InventoryService.Item it) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("sku", it.sku);
+        m.put("name", it.name);
+        m.put("quantity", it.quantity);
+        m.put("available", service.available(it.sku));
+        m.put("costPrice", it.costPrice);
+        m.put("sellPrice", it.sellPrice);
+        m.put("category", it.category);
+        m.put("location", it.location);
+        m.put("minStock", it.minStock);
+        m.put("lowStock", it.isLowStock());
+        return m;
+    }
+
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("error", message);
+        return m;
+    }
+}
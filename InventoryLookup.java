@@ -0,0 +1,13 @@
+/**
+ * Constant-time row lookup for the restock and sell paths.
+ * Rows are model indexes: they are unaffected by sorting or filtering in the view, so convert
+ * with JTable.convertRowIndexToView if a view index is needed.
+ */
+public interface InventoryLookup {
+
+    /** Model row holding the SKU, or -1. */
+    int rowOfSku(String sku);
+
+    /** Model row of the first item with this exact name, or -1. */
+    int rowOfName(String name);
+}
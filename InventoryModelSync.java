@@ -0,0 +1,94 @@
+import javax.swing.SwingUtilities;
+import java.util.List;
+
+/**
+ * Keeps an {@link InventoryTableModel} equal to an {@link InventoryService}'s catalogue, so a Swing
+ * front end only calls the service and never edits its table model itself. Changes made through the
+ * service by anyone, including other windows, scanners or batch jobs in the same process, show up in
+ * the table.
+ *
+ * Service events are replayed on the EDT. After a {@link InventoryService#load} the model is refilled
+ * from the service in SKU-ordered chunks, one EDT turn each, so the table fills progressively. Each
+ * chunk reads the service's current state, so an event for a SKU the fill has not reached yet is
+ * skipped: the fill will pick up its latest state when it gets there.
+ */
+public class InventoryModelSync implements InventoryService.Listener {
+
+    private static final int CHUNK = DBHelper.DEFAULT_PAGE_SIZE;
+
+    private final InventoryService service;
+    private final InventoryTableModel model;
+
+    // EDT only
+    private int generation;
+    private String filledThrough; // last SKU copied by the fill in progress, null before the first chunk
+    private boolean filling;
+
+    private InventoryModelSync(InventoryService service, InventoryTableModel model) {
+        this.service = service;
+        this.model = model;
+    }
+
+    /** Mirrors the service into the model from now on, starting with a fill from its current catalogue. */
+    public static InventoryModelSync bind(InventoryService service, InventoryTableModel model) {
+        InventoryModelSync sync = new InventoryModelSync(service, model);
+        service.addListener(sync);
+        sync.reloaded();
+        return sync;
+    }
+
+    /** Stops mirroring; the model keeps what it has. */
+    public void unbind() {
+        service.removeListener(this);
+        SwingUtilities.invokeLater(() -> {
+            generation++;
+            filling = false;
+        });
+    }
+
+    // ---------- InventoryService.Listener (any thread) ----------
+    public void itemChanged(InventoryService.Item before, InventoryService.Item after) {
+        String sku = after != null ? after.sku : before.sku;
+        SwingUtilities.invokeLater(() -> apply(sku, after));
+    }
+
+    public void reloaded() {
+        SwingUtilities.invokeLater(() -> {
+            int gen = ++generation;
+            model.clear();
+            filledThrough = null;
+            filling = true;
+            fillChunk(gen);
+        });
+    }
+
+    // ---------- EDT ----------
+    private void fillChunk(int gen) {
+        if (gen != generation) return; // a newer reload took over
+        List<InventoryService.Item> chunk = service.itemsAfter(filledThrough, CHUNK);
+        InventoryTableModel.RowBatch batch = new InventoryTableModel.RowBatch(chunk.size());
+        for (InventoryService.Item it : chunk) {
+            batch.accept(it.sku, it.name, it.quantity, it.costPrice, it.sellPrice, it.category, it.location, it.minStock);
+        }
+        model.appendBatch(batch);
+        if (chunk.size() < CHUNK) {
+            filling = false;
+            return;
+        }
+        filledThrough = chunk.get(chunk.size() - 1).sku;
+        SwingUtilities.invokeLater(() -> fillChunk(gen));
+    }
+
+    private void apply(String sku, InventoryService.Item after) {
+        if (filling && (filledThrough == null || sku.compareTo(filledThrough) > 0)) return; // the fill will read it
+        int row = model.rowOfSku(sku);
+        if (after == null) {
+            if (row >= 0) model.removeRow(row);
+        } else if (row < 0) {
+            model.addRow(after.sku, after.name, after.quantity, after.costPrice, after.sellPrice,
+                    after.category, after.location, after.minStock);
+        } else if (model.getQuantity(row) != after.quantity) {
+            model.setQuantity(row, after.quantity); // the service changes nothing else of an existing item
+        }
+    }
+}
@@ -9,28 +9,37 @@ import com.formdev.flatlaf.FlatLightLaf;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.event.*;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableRowSorter;
 import java.awt.*;
 import java.awt.event.*;
-import java.text.SimpleDateFormat;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletionException;
 
 public class InventoryModernApp {
 
-    private static final String[] COLUMN_NAMES = {
-            "SKU", "Item Name", "Quantity", "Cost Price", "Selling Price",
-            "Category", "Location", "Min Stock Threshold"
-    };
-
     private JFrame frame, loginFrame;
-    private DefaultTableModel model;
+    private InventoryTableModel model;
+    private InventoryModelSync modelSync;
     private JTable inventoryTable;
-    private TableRowSorter<DefaultTableModel> sorter;
-    private int skuCounter = 1;
+    private TableRowSorter<InventoryTableModel> sorter;
+    private CategoryAggregates aggregates;
+    private LowStockIndex lowStock;
+    private JButton lowStockAlert;
+    private InventorySearchTableModel searchModel;
+    private JTable searchTable;
+    private LazySalesTableModel salesModel;
 
     private final DBHelper db = new DBHelper();
+    // every DB call goes through here so the EDT never waits on SQLite
+    private final AsyncDB async = new AsyncDB(db);
 
     private String currentUser, currentRole;
 
@@ -39,7 +48,13 @@ public class InventoryModernApp {
 
     private boolean darkTheme = true;
 
+    private static final Color BAR_COLOR = new Color(90, 160, 250);
+    private static final Color[] PIE_PALETTE = {
+            new Color(120, 200, 120), new Color(200, 120, 120), new Color(120, 160, 200), new Color(200, 160, 120)
+    };
+
     public static void main(String[] args) {
+        EdtLatencyMonitor.installIfEnabled();
         try { UIManager.setLookAndFeel(new FlatDarkLaf()); } catch (Exception ignore) {}
         SwingUtilities.invokeLater(() -> new InventoryModernApp().showLoginScreen());
     }
@@ -91,15 +106,24 @@ public class InventoryModernApp {
         loginBtn.addActionListener(e -> {
             String u = userField.getText().trim();
             String p = new String(passField.getPassword());
-            String role = db.authenticateRole(u, p);
-            if (role != null) {
-                currentUser = u;
-                currentRole = role;
-                loginFrame.dispose();
-                createAndShowGUI();
-            } else {
-                JOptionPane.showMessageDialog(loginFrame, "Invalid credentials", "Login Failed", JOptionPane.ERROR_MESSAGE);
-            }
+            loginBtn.setEnabled(false);
+            async.login(u, p).whenCompleteAsync((result, ex) -> {
+                loginBtn.setEnabled(true);
+                if (ex != null) {
+                    JOptionPane.showMessageDialog(loginFrame, errorMessage(ex), "Login Failed", JOptionPane.ERROR_MESSAGE);
+                } else if (result.succeeded()) {
+                    currentUser = u;
+                    currentRole = result.role;
+                    loginFrame.dispose();
+                    createAndShowGUI();
+                } else if (result.throttled()) {
+                    long seconds = (result.retryAfterMillis + 999) / 1000;
+                    JOptionPane.showMessageDialog(loginFrame, "Too many failed attempts. Try again in " + seconds + " s.",
+                            "Login Failed", JOptionPane.ERROR_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(loginFrame, "Invalid credentials", "Login Failed", JOptionPane.ERROR_MESSAGE);
+                }
+            }, AsyncDB.EDT);
         });
 
         loginFrame.setContentPane(panel);
@@ -119,16 +143,33 @@ public class InventoryModernApp {
         JPanel sidebar = buildSidebar();
         root.add(sidebar, BorderLayout.WEST);
 
-        model = new DefaultTableModel(COLUMN_NAMES, 0) {
-            public boolean isCellEditable(int r, int c) { return false; }
-        };
-        inventoryTable = new JTable(model);
+        model = new InventoryTableModel();
+        // the table mirrors the inventory service; panels call the service and never edit the model
+        modelSync = InventoryModelSync.bind(async.service(), model);
+        aggregates = new CategoryAggregates(model);
+        inventoryTable = new InventoryTable(model);
+        lowStock = new LowStockIndex(model);
         inventoryTable.setRowHeight(28);
         inventoryTable.setFillsViewportHeight(true);
         inventoryTable.setShowGrid(false);
         sorter = new TableRowSorter<>(model);
         inventoryTable.setRowSorter(sorter);
-        inventoryTable.setDefaultRenderer(Object.class, new ModernTableCellRenderer());
+        // numeric columns have their own default renderers; route them through ours as well
+        InventoryCellRenderer renderer = InventoryCellRenderer.striped(lowStock::isLow);
+        inventoryTable.setDefaultRenderer(Object.class, renderer);
+        inventoryTable.setDefaultRenderer(Number.class, renderer);
+        inventoryTable.setDefaultRenderer(Double.class, renderer);
+
+        // search runs in SQLite's full-text index, so results never depend on the catalogue fitting in memory
+        searchModel = new InventorySearchTableModel(async);
+        searchTable = new JTable(searchModel);
+        searchTable.setRowHeight(28);
+        searchTable.setFillsViewportHeight(true);
+        searchTable.setShowGrid(false);
+        InventoryCellRenderer resultRenderer = InventoryCellRenderer.striped(searchModel::isLowStock);
+        searchTable.setDefaultRenderer(Object.class, resultRenderer);
+        searchTable.setDefaultRenderer(Number.class, resultRenderer);
+        searchTable.setDefaultRenderer(Double.class, resultRenderer);
 
         mainPanel.add(buildEntryPanel(), "ENTRY");
         mainPanel.add(buildInventoryPanel(), "INVENTORY");
@@ -143,8 +184,8 @@ public class InventoryModernApp {
         frame.setLocationRelativeTo(null);
         frame.setVisible(true);
 
+        installLowStockAlerts();
         loadInventoryFromDB();
-        skuCounter = computeNextSku();
     }
 
     private void applyLookAndFeel() {
@@ -155,22 +196,11 @@ public class InventoryModernApp {
         if (loginFrame != null) SwingUtilities.updateComponentTreeUI(loginFrame);
     }
 
-    private int computeNextSku() {
-        int max = 0;
-        for (int i = 0; i < model.getRowCount(); i++) {
-            String sku = model.getValueAt(i, 0).toString();
-            try {
-                int n = Integer.parseInt(sku.replaceAll("\\D+", ""));
-                if (n > max) max = n;
-            } catch (Exception ignored) {}
-        }
-        return max + 1;
-    }
-
+    /** Re-reads the service's catalogue; the table refills through its {@link InventoryModelSync}. */
     private void loadInventoryFromDB() {
-        model.setRowCount(0);
-        List<Object[]> rows = db.fetchInventory();
-        for (Object[] r : rows) model.addRow(r);
+        async.load().whenCompleteAsync((count, ex) -> {
+            if (ex != null) showInfo("Error", "Could not load inventory: " + errorMessage(ex));
+        }, AsyncDB.EDT);
     }
 
     // ------------------------- Sidebar -------------------------
@@ -197,9 +227,13 @@ public class InventoryModernApp {
         buttons.add(salesBtn);
         if (!"Staff".equals(currentRole)) buttons.add(reportsBtn);
 
-        JPanel footer = new JPanel(new GridLayout(2, 1, 6, 6));
+        JPanel footer = new JPanel(new GridLayout(3, 1, 6, 6));
         footer.setBorder(new EmptyBorder(12, 0, 0, 0));
 
+        lowStockAlert = new JButton();
+        lowStockAlert.setVisible(false);
+        lowStockAlert.addActionListener(e -> showInfo("Low stock items", lowStockList()));
+
         JButton themeToggle = new JButton(darkTheme ? "☀  Light Theme" : "🌙  Dark Theme");
         themeToggle.addActionListener(e -> {
             darkTheme = !darkTheme;
@@ -210,10 +244,12 @@ public class InventoryModernApp {
 
         JButton logoutBtn = new JButton("🔓  Logout");
         logoutBtn.addActionListener(e -> {
+            modelSync.unbind();
             frame.dispose();
             showLoginScreen();
         });
 
+        footer.add(lowStockAlert);
         footer.add(themeToggle);
         footer.add(logoutBtn);
 
@@ -237,6 +273,42 @@ public class InventoryModernApp {
         mainCards.show(mainPanel, card);
     }
 
+    /**
+     * Keeps the sidebar's low-stock button showing how many items are low, and flashes the item when a
+     * sale or restock moves it across its threshold, so nobody has to go looking.
+     */
+    private void installLowStockAlerts() {
+        javax.swing.Timer settle = new javax.swing.Timer(5000, e -> showLowStockCount());
+        settle.setRepeats(false);
+        lowStock.addChangeListener(e -> {
+            if (!settle.isRunning()) showLowStockCount();
+        });
+        lowStock.addThresholdListener((sku, name, qty, min, low) -> {
+            lowStockAlert.setVisible(true);
+            lowStockAlert.setForeground(low ? new Color(200, 40, 40) : new Color(40, 140, 60));
+            lowStockAlert.setText(low ? "⚠  " + name + ": " + qty + " left" : "✓  " + name + " restocked");
+            settle.restart();
+        });
+        showLowStockCount();
+    }
+
+    private void showLowStockCount() {
+        int n = lowStock.count();
+        lowStockAlert.setVisible(n > 0);
+        lowStockAlert.setForeground(UIManager.getColor("Button.foreground"));
+        lowStockAlert.setText("⚠  " + n + " low stock");
+    }
+
+    /** One line per low item, in SKU order; reads the low-stock set rather than scanning the model. */
+    private String lowStockList() {
+        StringBuilder sb = new StringBuilder();
+        for (String sku : lowStock.skus()) {
+            int i = model.rowOfSku(sku);
+            sb.append(sku).append(" - ").append(model.getName(i)).append(" (").append(model.getQuantity(i)).append(")\n");
+        }
+        return sb.length() == 0 ? "None" : sb.toString();
+    }
+
     // ------------------------- Panels -------------------------
     private JPanel cardContainer(String title) {
         JPanel container = new JPanel(new BorderLayout());
@@ -321,8 +393,7 @@ public class InventoryModernApp {
         r.fill = GridBagConstraints.HORIZONTAL;
 
         JComboBox<String> skuBox = new JComboBox<>();
-        updateSKUComboFromModel(skuBox);
-        modelAddTableListenerToUpdateSKU(skuBox);
+        InventoryComboBoxModel.install(skuBox, new InventoryComboBoxModel(model, InventoryTableModel.COL_SKU));
 
         JTextField restockQty = new JTextField();
         restockQty.putClientProperty("JTextField.placeholderText", "Qty to add");
@@ -349,17 +420,17 @@ public class InventoryModernApp {
                 int mn = Integer.parseInt(min);
                 double cost = Double.parseDouble(c);
                 double sell = Double.parseDouble(s);
-                if (qty < 0 || mn < 0 || cost < 0 || sell < 0) throw new Exception();
-                String sku = String.format("UQ%03d", skuCounter++);
-                db.insertItem(sku, name, qty, cost, sell,
-                        Objects.toString(categoryBox.getSelectedItem(), "Other"),
-                        Objects.toString(locationBox.getSelectedItem(), "Warehouse A"), mn);
-                model.addRow(new Object[]{sku, name, qty, cost, sell, categoryBox.getSelectedItem(), locationBox.getSelectedItem(), mn});
-                updateSKUComboFromModel(skuBox);
-                showInfo("Success", "Item added: " + name);
-                itemNameField.setText(""); quantityField.setText("");
-                costField.setText(""); sellField.setText(""); minStockField.setText("");
-            } catch (Exception ex) {
+                String category = Objects.toString(categoryBox.getSelectedItem(), "Other");
+                String location = Objects.toString(locationBox.getSelectedItem(), "Warehouse A");
+                addButton.setEnabled(false);
+                async.addItem(name, qty, cost, sell, category, location, mn).whenCompleteAsync((item, ex) -> {
+                    addButton.setEnabled(true);
+                    if (ex != null) { showInfo("Error", errorMessage(ex)); return; }
+                    showInfo("Success", "Item added: " + item.name + " (" + item.sku + ")");
+                    itemNameField.setText(""); quantityField.setText("");
+                    costField.setText(""); sellField.setText(""); minStockField.setText("");
+                }, AsyncDB.EDT);
+            } catch (NumberFormatException ex) {
                 showInfo("Error", "Invalid numeric values");
             }
         });
@@ -373,19 +444,13 @@ public class InventoryModernApp {
             }
             try {
                 int qv = Integer.parseInt(qtys);
-                if (qv <= 0) throw new Exception();
-                for (int i = 0; i < model.getRowCount(); i++) {
-                    if (sku.equals(model.getValueAt(i, 0))) {
-                        int cur = Integer.parseInt(model.getValueAt(i, 2).toString());
-                        int newQty = cur + qv;
-                        db.updateQuantity(sku, newQty);
-                        model.setValueAt(newQty, i, 2);
-                        showInfo("Restocked", "New qty: " + newQty);
-                        restockQty.setText("");
-                        break;
-                    }
-                }
-            } catch (Exception ex) {
+                async.restock(sku, qv).whenCompleteAsync((newQty, ex) -> {
+                    if (ex != null) { showInfo("Error", errorMessage(ex)); return; }
+                    if (newQty == InventoryService.UNKNOWN_SKU) { showInfo("Error", "Unknown SKU: " + sku); return; }
+                    showInfo("Restocked", "New qty: " + newQty);
+                    restockQty.setText("");
+                }, AsyncDB.EDT);
+            } catch (NumberFormatException ex) {
                 showInfo("Error", "Invalid qty");
             }
         });
@@ -394,68 +459,78 @@ public class InventoryModernApp {
         return container;
     }
 
-    private void modelAddTableListenerToUpdateSKU(JComboBox<String> skuBox) {
-        model.addTableModelListener(new TableModelListener() {
-            public void tableChanged(TableModelEvent e) {
-                updateSKUComboFromModel(skuBox);
-            }
-        });
-    }
-
     private JPanel buildInventoryPanel() {
         JPanel container = cardContainer("Inventory");
         JPanel top = new JPanel(new BorderLayout(8, 8));
         JTextField search = new JTextField();
-        search.putClientProperty("JTextField.placeholderText", "Search by SKU/Name/Category");
+        search.putClientProperty("JTextField.placeholderText", "Search SKU/Name/Category/Location (word starts)");
         search.setPreferredSize(new Dimension(240, 30));
         JButton low = new JButton("⚠ Low Stock");
         JButton del = new JButton("🗑 Delete");
         del.setEnabled("Admin".equals(currentRole)); // only Admin can delete
+        JButton browse = new JButton("🗄 Browse Database");
+        browse.setEnabled("Admin".equals(currentRole));
 
         JPanel btns = new JPanel(new FlowLayout(FlowLayout.RIGHT));
-        btns.add(low); btns.add(del);
+        btns.add(low); btns.add(browse); btns.add(del);
         top.add(search, BorderLayout.CENTER);
         top.add(btns, BorderLayout.EAST);
 
-        search.getDocument().addDocumentListener(new DocumentListener() {
-            public void insertUpdate(DocumentEvent e) { filter(); }
-            public void removeUpdate(DocumentEvent e) { filter(); }
-            public void changedUpdate(DocumentEvent e) { filter(); }
-            private void filter() {
-                String t = search.getText().trim();
-                if (t.isEmpty()) sorter.setRowFilter(null);
-                else sorter.setRowFilter(RowFilter.regexFilter("(?i)" + t, 0, 1, 5));
+        CardLayout views = new CardLayout();
+        JPanel viewPanel = new JPanel(views);
+        viewPanel.add(new JScrollPane(inventoryTable), "ALL");
+        viewPanel.add(new JScrollPane(searchTable), "SEARCH");
+        JLabel matches = new JLabel(" ");
+        boolean[] searching = {false};
+
+        // query once typing pauses rather than on every keystroke; an empty box shows the whole table
+        javax.swing.Timer searchDelay = new javax.swing.Timer(150, e -> {
+            String q = search.getText();
+            searching[0] = q.chars().anyMatch(Character::isLetterOrDigit);
+            if (!searching[0]) {
+                views.show(viewPanel, "ALL");
+                matches.setText(" ");
+                return;
             }
+            views.show(viewPanel, "SEARCH");
+            searchModel.setQuery(q).whenComplete((n, ex) ->
+                    matches.setText(ex != null ? errorMessage(ex) : n + (n == 1 ? " match" : " matches")));
+        });
+        searchDelay.setRepeats(false);
+        search.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { searchDelay.restart(); }
+            public void removeUpdate(DocumentEvent e) { searchDelay.restart(); }
+            public void changedUpdate(DocumentEvent e) { searchDelay.restart(); }
+        });
+        // results are read from the database, so re-run the query when an edit lands in the local model
+        model.addTableModelListener(e -> {
+            if (searching[0]) searchDelay.restart();
         });
 
         del.addActionListener(e -> {
-            int sel = inventoryTable.getSelectedRow();
-            if (sel == -1) {
+            JTable table = searching[0] ? searchTable : inventoryTable;
+            int sel = table.getSelectedRow();
+            String sku = sel == -1 ? null
+                    : searching[0] ? searchModel.getSku(sel) : model.getSku(inventoryTable.convertRowIndexToModel(sel));
+            if (sku == null) {
                 showInfo("Delete", "Select an item to delete");
                 return;
             }
-            int mr = inventoryTable.convertRowIndexToModel(sel);
-            String sku = model.getValueAt(mr, 0).toString();
             int confirm = JOptionPane.showConfirmDialog(frame, "Delete " + sku + " ?", "Confirm", JOptionPane.YES_NO_OPTION);
             if (confirm == JOptionPane.YES_OPTION) {
-                db.deleteItem(sku);
-                model.removeRow(mr);
-                showInfo("Deleted", "Item removed");
+                async.delete(sku).whenCompleteAsync((ok, ex) -> {
+                    if (ex != null) { showInfo("Error", errorMessage(ex)); return; }
+                    showInfo("Deleted", "Item removed");
+                }, AsyncDB.EDT);
             }
         });
 
-        low.addActionListener(e -> {
-            StringBuilder sb = new StringBuilder();
-            for (int i = 0; i < model.getRowCount(); i++) {
-                int qty = Integer.parseInt(model.getValueAt(i, 2).toString());
-                int min = Integer.parseInt(model.getValueAt(i, 7).toString());
-                if (qty <= min) sb.append(model.getValueAt(i, 0)).append(" - ").append(model.getValueAt(i, 1)).append(" (").append(qty).append(")\n");
-            }
-            showInfo("Low stock items", sb.length() == 0 ? "None" : sb.toString());
-        });
+        low.addActionListener(e -> showInfo("Low stock items", lowStockList()));
+        browse.addActionListener(e -> browseDatabase());
 
         container.add(top, BorderLayout.NORTH);
-        container.add(new JScrollPane(inventoryTable), BorderLayout.CENTER);
+        container.add(viewPanel, BorderLayout.CENTER);
+        container.add(matches, BorderLayout.SOUTH);
         return container;
     }
 
@@ -467,8 +542,7 @@ public class InventoryModernApp {
         gbc.fill = GridBagConstraints.HORIZONTAL;
 
         JComboBox<String> nameBox = new JComboBox<>();
-        updateNameComboFromModel(nameBox);
-        model.addTableModelListener(e -> updateNameComboFromModel(nameBox));
+        InventoryComboBoxModel.install(nameBox, new InventoryComboBoxModel(model, InventoryTableModel.COL_NAME));
         JTextField qtyField = new JTextField();
         qtyField.putClientProperty("JTextField.placeholderText", "Qty to sell");
         JButton sellBtn = new JButton("💳 Confirm Sale");
@@ -488,28 +562,20 @@ public class InventoryModernApp {
             }
             try {
                 int qty = Integer.parseInt(q);
-                if (qty <= 0) throw new Exception();
-                for (int i = 0; i < model.getRowCount(); i++) {
-                    if (name.equals(model.getValueAt(i, 1))) {
-                        int cur = Integer.parseInt(model.getValueAt(i, 2).toString());
-                        if (qty > cur) { showInfo("Error", "Sale exceeds stock"); return; }
-                        String sku = model.getValueAt(i, 0).toString();
-                        String category = model.getValueAt(i, 5).toString();
-                        double sell = Double.parseDouble(model.getValueAt(i, 4).toString());
-                        int newQty = cur - qty;
-
-                        db.updateQuantity(sku, newQty);
-                        model.setValueAt(newQty, i, 2);
-
-                        String ts = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
-                        db.insertSale(sku, name, category, qty, sell, ts);
-
-                        showInfo("Sold", "Sale recorded. Remaining: " + newQty);
-                        qtyField.setText("");
-                        break;
-                    }
-                }
-            } catch (Exception ex) {
+                int i = model.rowOfName(name);
+                if (i < 0) { showInfo("Error", "Unknown item: " + name); return; }
+                String sku = model.getSku(i);
+
+                sellBtn.setEnabled(false);
+                async.sell(sku, qty).whenCompleteAsync((newQty, ex) -> {
+                    sellBtn.setEnabled(true);
+                    if (ex != null) { showInfo("Error", errorMessage(ex)); return; }
+                    if (newQty == InventoryService.INSUFFICIENT_STOCK) { showInfo("Error", "Sale exceeds stock"); return; }
+                    if (newQty == InventoryService.UNKNOWN_SKU) { showInfo("Error", "Unknown item: " + name); return; }
+                    showInfo("Sold", "Sale recorded. Remaining: " + newQty);
+                    qtyField.setText("");
+                }, AsyncDB.EDT);
+            } catch (NumberFormatException ex) {
                 showInfo("Error", "Invalid qty");
             }
         });
@@ -529,36 +595,187 @@ public class InventoryModernApp {
         JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT));
         JButton stockBtn = new JButton("📦 Stock Summary");
         JButton salesBtn = new JButton("💸 Sales Report");
-        top.add(stockBtn); top.add(salesBtn);
+        JButton revenueBtn = new JButton("📊 Revenue (30 days)");
+        JButton exportBtn = new JButton("⬇ Export CSV");
+        JButton importBtn = new JButton("⬆ Import CSV");
+        importBtn.setEnabled("Admin".equals(currentRole)); // overwrites items, so Admin only like delete
+        JProgressBar transferBar = new JProgressBar(0, 100);
+        transferBar.setStringPainted(true);
+        transferBar.setVisible(false);
+        top.add(stockBtn); top.add(salesBtn); top.add(revenueBtn);
+        top.add(exportBtn); top.add(importBtn); top.add(transferBar);
 
         JTextArea out = new JTextArea(18, 60);
         out.setEditable(false);
 
+        CardLayout views = new CardLayout();
+        JPanel center = new JPanel(views);
+        center.add(new JScrollPane(out), "text");
+        center.add(buildSalesReportView(), "sales");
+
         container.add(top, BorderLayout.NORTH);
-        container.add(new JScrollPane(out), BorderLayout.CENTER);
+        container.add(center, BorderLayout.CENTER);
 
         stockBtn.addActionListener(e -> {
-            int total = model.getRowCount();
-            double value = db.totalInventoryValue();
-            StringBuilder low = new StringBuilder();
-            for (int i = 0; i < model.getRowCount(); i++) {
-                int q = Integer.parseInt(model.getValueAt(i, 2).toString());
-                int mn = Integer.parseInt(model.getValueAt(i, 7).toString());
-                if (q <= mn) low.append(model.getValueAt(i, 0)).append(" - ").append(model.getValueAt(i, 1)).append("\n");
-            }
-            out.setText("Total items: " + total +
-                    "\nTotal inventory value: $" + String.format("%.2f", value) +
-                    "\nLow stock:\n" + (low.length() == 0 ? "None" : low.toString()));
+            views.show(center, "text");
+            out.setText("Loading...");
+            async.inventoryValue().whenCompleteAsync((value, ex) -> {
+                if (ex != null) { out.setText("Error: " + errorMessage(ex)); return; }
+                int total = model.getRowCount();
+                out.setText("Total items: " + total +
+                        "\nTotal inventory value: $" + String.format("%.2f", value) +
+                        "\nLow stock (" + lowStock.count() + "):\n" + lowStockList());
+            }, AsyncDB.EDT);
         });
 
-        salesBtn.addActionListener(e -> {
-            List<String> lines = db.fetchSalesLines();
-            out.setText(lines.isEmpty() ? "No sales yet" : String.join("\n", lines));
+        salesBtn.addActionListener(e -> views.show(center, "sales"));
+
+        revenueBtn.addActionListener(e -> {
+            views.show(center, "text");
+            out.setText("Loading...");
+            async.revenueByCategory(30).whenCompleteAsync((byCategory, ex) -> {
+                if (ex != null) { out.setText("Error: " + errorMessage(ex)); return; }
+                if (byCategory.isEmpty()) { out.setText("No sales in the last 30 days"); return; }
+                StringBuilder sb = new StringBuilder("Revenue by category, last 30 days:\n");
+                double total = 0;
+                for (Map.Entry<String, Double> en : byCategory.entrySet()) {
+                    sb.append(en.getKey()).append(": $").append(String.format("%.2f", en.getValue())).append("\n");
+                    total += en.getValue();
+                }
+                out.setText(sb.append("Total: $").append(String.format("%.2f", total)).toString());
+            }, AsyncDB.EDT);
         });
 
+        exportBtn.addActionListener(e -> transferCsv(true, transferBar));
+        importBtn.addActionListener(e -> transferCsv(false, transferBar));
+
         return container;
     }
 
+    /**
+     * The inventory table as stored, over a {@link LazyInventoryTableModel}: pages are read as they are
+     * painted rather than loaded up front, so it opens as fast on a million items as on ten.
+     */
+    private void browseDatabase() {
+        LazyInventoryTableModel browseModel = new LazyInventoryTableModel(async);
+        JTable table = new JTable(browseModel);
+        table.setRowHeight(26);
+        JLabel count = new JLabel(" ");
+        JButton refresh = new JButton("Refresh");
+        refresh.addActionListener(e -> {
+            count.setText("Loading...");
+            browseModel.refresh().whenComplete((n, ex) ->
+                    count.setText(ex != null ? "Error: " + errorMessage(ex) : n + " items"));
+        });
+
+        JPanel bar = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        bar.add(refresh); bar.add(count);
+        JDialog dialog = new JDialog(frame, "Inventory database", false);
+        dialog.add(bar, BorderLayout.NORTH);
+        dialog.add(new JScrollPane(table), BorderLayout.CENTER);
+        dialog.setSize(900, 560);
+        dialog.setLocationRelativeTo(frame);
+        dialog.setVisible(true);
+        refresh.doClick();
+    }
+
+    /**
+     * Asks for a table and a file, then streams the export or import in the background with the bar
+     * showing progress. One transfer runs at a time. An inventory import reloads the inventory table.
+     */
+    private void transferCsv(boolean export, JProgressBar bar) {
+        if (bar.isVisible()) return;
+        String[] tables = {"Inventory", "Sales"};
+        String verb = export ? "Export" : "Import";
+        int table = JOptionPane.showOptionDialog(frame, verb + " which table?", verb + " CSV",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, tables, tables[0]);
+        if (table < 0) return;
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle(verb + " " + tables[table] + " (.csv, or .tsv for tab-separated)");
+        if (export) chooser.setSelectedFile(new File(tables[table].toLowerCase(Locale.ROOT) + ".csv"));
+        int res = export ? chooser.showSaveDialog(frame) : chooser.showOpenDialog(frame);
+        if (res != JFileChooser.APPROVE_OPTION) return;
+        Path file = chooser.getSelectedFile().toPath();
+
+        bar.setIndeterminate(!export);
+        bar.setValue(0);
+        bar.setString(verb + "ing...");
+        bar.setVisible(true);
+        CsvTransfer.Progress progress = (rows, total) -> SwingUtilities.invokeLater(() -> {
+            if (total > 0) bar.setValue((int) (rows * 100 / total));
+            bar.setString(String.format("%,d rows", rows));
+        });
+        async.submit(d -> {
+            CsvTransfer t = CsvTransfer.forFile(d, file);
+            try {
+                if (export) return table == 0 ? t.exportInventory(file, progress) : t.exportSales(file, SalesFilter.ALL, progress);
+                return (long) (table == 0 ? t.importInventory(file, progress) : t.importSales(file, progress));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex.getMessage(), ex);
+            }
+        }).whenCompleteAsync((rows, ex) -> {
+            bar.setIndeterminate(false);
+            bar.setVisible(false);
+            if (ex != null) { showInfo(verb + " CSV", errorMessage(ex)); return; }
+            showInfo(verb + " CSV", String.format("%sed %,d rows", verb, rows));
+            if (!export && table == 0) loadInventoryFromDB();
+        }, AsyncDB.EDT);
+    }
+
+    /**
+     * Sales history as a table over a {@link LazySalesTableModel}: only the pages being painted are
+     * read, so a year of sales costs the same memory as a day. Dates are yyyy-MM-dd, both inclusive.
+     */
+    private JPanel buildSalesReportView() {
+        salesModel = new LazySalesTableModel(async);
+        JTable table = new JTable(salesModel);
+        table.setRowHeight(26);
+
+        JTextField skuField = new JTextField(10);
+        skuField.putClientProperty("JTextField.placeholderText", "SKU");
+        JTextField fromField = new JTextField(9);
+        fromField.putClientProperty("JTextField.placeholderText", "From yyyy-MM-dd");
+        JTextField toField = new JTextField(9);
+        toField.putClientProperty("JTextField.placeholderText", "To yyyy-MM-dd");
+        JButton apply = new JButton("Apply");
+        JLabel count = new JLabel(" ");
+
+        JPanel filters = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filters.add(skuField); filters.add(fromField); filters.add(toField); filters.add(apply); filters.add(count);
+
+        ActionListener applyFilter = e -> {
+            SalesFilter f;
+            try {
+                f = new SalesFilter(skuField.getText(), parseDay(fromField.getText()), parseDay(toField.getText()));
+            } catch (DateTimeParseException ex) {
+                showInfo("Sales Report", "Dates must look like 2024-01-31");
+                return;
+            }
+            count.setText("Loading...");
+            salesModel.setFilter(f).whenComplete((n, ex) -> {
+                if (salesModel.getFilter() != f) return; // a newer filter is loading
+                count.setText(ex != null ? "Error: " + errorMessage(ex) : n + " sales");
+            });
+        };
+        apply.addActionListener(applyFilter);
+        skuField.addActionListener(applyFilter);
+        fromField.addActionListener(applyFilter);
+        toField.addActionListener(applyFilter);
+
+        JPanel view = new JPanel(new BorderLayout());
+        view.add(filters, BorderLayout.NORTH);
+        view.add(new JScrollPane(table), BorderLayout.CENTER);
+        // nothing is read until the report is opened; reopening it picks up sales made since
+        view.addComponentListener(new ComponentAdapter() {
+            public void componentShown(ComponentEvent e) { applyFilter.actionPerformed(null); }
+        });
+        return view;
+    }
+
+    private static LocalDate parseDay(String text) {
+        return text.isBlank() ? null : LocalDate.parse(text.trim());
+    }
+
     private JPanel buildDashboardPanel() {
         JPanel container = cardContainer("Dashboard");
         JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT));
@@ -577,111 +794,117 @@ public class InventoryModernApp {
         JOptionPane.showMessageDialog(frame, message, title, JOptionPane.INFORMATION_MESSAGE);
     }
 
-    private void updateSKUComboFromModel(JComboBox<String> box) {
-        box.removeAllItems();
-        for (int i = 0; i < model.getRowCount(); i++)
-            box.addItem(model.getValueAt(i, 0).toString());
-    }
-
-    private void updateNameComboFromModel(JComboBox<String> box) {
-        box.removeAllItems();
-        for (int i = 0; i < model.getRowCount(); i++)
-            box.addItem(model.getValueAt(i, 1).toString());
+    /** Message of the failure behind an async DB call, without the CompletionException wrapper. */
+    private static String errorMessage(Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        return cause.getMessage() != null ? cause.getMessage() : cause.toString();
     }
 
-    // -------------------- Renderer & Charts --------------------
-    private static class ModernTableCellRenderer extends JLabel implements javax.swing.table.TableCellRenderer {
-        public ModernTableCellRenderer() {
-            setOpaque(true);
-            setBorder(new EmptyBorder(4, 8, 4, 8));
+    // -------------------- Charts --------------------
+    /**
+     * Chart panel that draws into a cached image and only re-renders when the aggregates change,
+     * the panel is resized or the look and feel is switched; every other repaint is a single blit.
+     */
+    private abstract class CachedChart extends JPanel {
+        private BufferedImage image;
+        private long imageVersion = -1;
+        private double imageScale;
+
+        CachedChart() {
+            setPreferredSize(new Dimension(400, 300));
+            aggregates.addChangeListener(e -> repaint());
         }
-        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
-            setText(value == null ? "" : value.toString());
-            if (isSelected) {
-                setBackground(table.getSelectionBackground());
-                setForeground(table.getSelectionForeground());
-            } else {
-                Color bg = (row % 2 == 0) ? new Color(245,245,245) : Color.WHITE;
-                setBackground(bg);
-                setForeground(Color.BLACK);
-            }
-            try {
-                int modelRow = table.convertRowIndexToModel(row);
-                int qty = Integer.parseInt(table.getModel().getValueAt(modelRow, 2).toString());
-                int min = Integer.parseInt(table.getModel().getValueAt(modelRow, 7).toString());
-                if (qty <= min && !isSelected) setBackground(new Color(255, 220, 220));
-            } catch (Exception ignored) {}
-            return this;
+
+        public void updateUI() {
+            super.updateUI();
+            image = null; // colours and fonts come from the look and feel
         }
-    }
 
-    private class InventoryValueChart extends JPanel {
-        public InventoryValueChart() { setPreferredSize(new Dimension(400, 300)); }
         protected void paintComponent(Graphics g) {
             super.paintComponent(g);
-            Graphics2D g2 = (Graphics2D) g.create();
-            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            Map<String, Double> map = new LinkedHashMap<>();
-            for (int i = 0; i < model.getRowCount(); i++) {
-                String cat = model.getValueAt(i, 5).toString();
-                int q = Integer.parseInt(model.getValueAt(i, 2).toString());
-                double c = Double.parseDouble(model.getValueAt(i, 3).toString());
-                map.put(cat, map.getOrDefault(cat, 0.0) + q * c);
-            }
             int w = getWidth(), h = getHeight();
+            if (w <= 0 || h <= 0) return;
+            // draw at device resolution so HiDPI screens don't get a blurry upscaled image
+            double scale = ((Graphics2D) g).getTransform().getScaleX();
+            int iw = (int) Math.ceil(w * scale), ih = (int) Math.ceil(h * scale);
+            if (image == null || image.getWidth() != iw || image.getHeight() != ih
+                    || imageScale != scale || imageVersion != aggregates.version()) {
+                if (image == null || image.getWidth() != iw || image.getHeight() != ih) {
+                    image = new BufferedImage(iw, ih, BufferedImage.TYPE_INT_ARGB);
+                }
+                Graphics2D g2 = image.createGraphics();
+                g2.setComposite(AlphaComposite.Clear);
+                g2.fillRect(0, 0, iw, ih);
+                g2.setComposite(AlphaComposite.SrcOver);
+                g2.scale(scale, scale);
+                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2.setFont(getFont());
+                g2.setColor(getForeground());
+                render(g2, w, h);
+                g2.dispose();
+                imageVersion = aggregates.version();
+                imageScale = scale;
+            }
+            g.drawImage(image, 0, 0, w, h, null);
+        }
+
+        abstract void render(Graphics2D g2, int w, int h);
+    }
+
+    private class InventoryValueChart extends CachedChart {
+        void render(Graphics2D g2, int w, int h) {
             g2.setFont(g2.getFont().deriveFont(Font.BOLD, 14f));
             g2.drawString("Inventory Value by Category", 12, 20);
-            if (map.isEmpty()) { g2.drawString("No data", 12, 40); g2.dispose(); return; }
-            double max = map.values().stream().mapToDouble(d -> d).max().orElse(1);
-            int x = 20, barW = Math.max(40, (w - 60) / Math.max(1, map.size()));
+            int categories = aggregates.categoryCount(), shown = 0;
+            double max = 0;
+            for (int c = 0; c < categories; c++) {
+                if (aggregates.rowCount(c) == 0) continue;
+                shown++;
+                max = Math.max(max, aggregates.value(c));
+            }
+            if (shown == 0) { g2.drawString("No data", 12, 40); return; }
+            if (max <= 0) max = 1;
+            int x = 20, barW = Math.max(40, (w - 60) / shown);
             int i = 0;
-            for (Map.Entry<String, Double> e : map.entrySet()) {
-                int bh = (int) ((h - 80) * (e.getValue() / max));
-                g2.setColor(new Color(90, 160, 250));
+            for (int c = 0; c < categories; c++) {
+                if (aggregates.rowCount(c) == 0) continue;
+                int bh = (int) ((h - 80) * (aggregates.value(c) / max));
+                g2.setColor(BAR_COLOR);
                 g2.fillRoundRect(x + i * barW, h - 30 - bh, barW - 14, bh, 8, 8);
                 g2.setColor(Color.DARK_GRAY);
-                g2.drawString(e.getKey(), x + i * barW, h - 10);
+                g2.drawString(aggregates.categoryName(c), x + i * barW, h - 10);
                 i++;
             }
-            g2.dispose();
         }
     }
 
-    private class CategoryPieChart extends JPanel {
-        public CategoryPieChart() { setPreferredSize(new Dimension(400, 300)); }
-        protected void paintComponent(Graphics g) {
-            super.paintComponent(g);
-            Graphics2D g2 = (Graphics2D) g.create();
-            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            Map<String, Integer> map = new LinkedHashMap<>();
-            int total = 0;
-            for (int i = 0; i < model.getRowCount(); i++) {
-                String cat = model.getValueAt(i, 5).toString();
-                int q = Integer.parseInt(model.getValueAt(i, 2).toString());
-                map.put(cat, map.getOrDefault(cat, 0) + q);
-                total += q;
-            }
+    private class CategoryPieChart extends CachedChart {
+        void render(Graphics2D g2, int w, int h) {
             g2.setFont(g2.getFont().deriveFont(Font.BOLD, 14f));
             g2.drawString("Stock Distribution by Category", 12, 20);
-            if (map.isEmpty()) { g2.drawString("No data", 12, 40); g2.dispose(); return; }
-            int cx = getWidth() / 2 + 20, cy = getHeight() / 2 + 10, r = Math.min(getWidth(), getHeight()) / 4;
+            int categories = aggregates.categoryCount();
+            boolean any = false;
+            for (int c = 0; c < categories && !any; c++) any = aggregates.rowCount(c) > 0;
+            if (!any) { g2.drawString("No data", 12, 40); return; }
+            long total = aggregates.totalQuantity();
+            int cx = w / 2 + 20, cy = h / 2 + 10, r = Math.min(w, h) / 4;
             double start = 0; int idx = 0;
-            Color[] palette = new Color[]{ new Color(120,200,120), new Color(200,120,120), new Color(120,160,200), new Color(200,160,120) };
-            for (Map.Entry<String, Integer> e : map.entrySet()) {
-                double ang = e.getValue() * 360.0 / Math.max(1, total);
-                g2.setColor(palette[idx % palette.length]);
+            for (int c = 0; c < categories; c++) {
+                if (aggregates.rowCount(c) == 0) continue;
+                double ang = aggregates.quantity(c) * 360.0 / Math.max(1, total);
+                g2.setColor(PIE_PALETTE[idx % PIE_PALETTE.length]);
                 g2.fillArc(cx - r, cy - r, r * 2, r * 2, (int) start, (int) Math.ceil(ang));
                 start += ang; idx++;
             }
             int lx = 16, ly = 50; idx = 0;
-            for (Map.Entry<String, Integer> e : map.entrySet()) {
-                g2.setColor(palette[idx % palette.length]);
+            for (int c = 0; c < categories; c++) {
+                if (aggregates.rowCount(c) == 0) continue;
+                g2.setColor(PIE_PALETTE[idx % PIE_PALETTE.length]);
                 g2.fillRect(lx, ly + idx * 20, 12, 12);
                 g2.setColor(Color.DARK_GRAY);
-                g2.drawString(e.getKey() + " (" + e.getValue() + ")", lx + 18, ly + 12 + idx * 20);
+                g2.drawString(aggregates.categoryName(c) + " (" + aggregates.quantity(c) + ")", lx + 18, ly + 12 + idx * 20);
                 idx++;
             }
-            g2.dispose();
         }
     }
 }
@@ -0,0 +1,237 @@
+import javax.swing.RowFilter;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Word-prefix search over the SKU, name and category of an {@link InventoryTableModel}.
+ *
+ * Each of those fields is split into words (runs of letters and digits, lower-cased) and every word
+ * maps, in a sorted map, to the items containing it. A query matches the items that have, for each
+ * of its words, some word starting with it: "blu wid" finds "Blue Widget". A query is a sorted-map
+ * range scan per word and a few bitset ANDs, with no regex, so any input is safe.
+ *
+ * The index follows the model's TableModelEvents the way {@link CategoryAggregates} does: inserts
+ * index just the new rows, deletes retire their items, and only whole-table events rebuild. Items
+ * carry slot numbers that do not shift when rows are deleted; retired slots stay in the word lists
+ * until dead ones outnumber live ones, then the index is rebuilt. Prefixes that match many items
+ * (the first letters typed) keep their result bitset, which new items are added to as they arrive.
+ * Must be used on the EDT, like the model, and created after the JTable so it sees model events
+ * before the table's row sorter re-filters.
+ */
+public class InventorySearchIndex implements TableModelListener {
+
+    /** Items containing one word, as ascending slot numbers. */
+    private static final class Postings {
+        int[] slots = new int[1];
+        int size;
+
+        void add(int slot) {
+            // an item repeating a word (e.g. in SKU and name) is listed once; slots only grow
+            if (size > 0 && slots[size - 1] == slot) return;
+            if (size == slots.length) slots = Arrays.copyOf(slots, size * 2);
+            slots[size++] = slot;
+        }
+    }
+
+    // prefix results covering at least this many postings are cached; smaller ones are cheap to redo
+    private static final int CACHE_MIN_POSTINGS = 4096;
+    private static final int CACHE_MAX_ENTRIES = 64;
+
+    private final InventoryTableModel model;
+    private final TreeMap<String, Postings> words = new TreeMap<>();
+    private final Map<String, BitSet> broadPrefixes = new LinkedHashMap<>(16, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<String, BitSet> eldest) {
+            return size() > CACHE_MAX_ENTRIES;
+        }
+    };
+    private int longestCachedPrefix;
+
+    private final BitSet live = new BitSet();
+    private int[] slotOfRow = new int[16];
+    private int size;
+    private int nextSlot;
+    private int dead;
+    private long version; // bumped on every change to the indexed text; filters recompute when it moves
+
+    public InventorySearchIndex(InventoryTableModel model) {
+        this.model = model;
+        rebuild();
+        model.addTableModelListener(this);
+    }
+
+    /**
+     * Row filter for the query, or null if the query has no letters or digits (show everything).
+     * The match set is computed now and again lazily whenever the index changes.
+     */
+    public RowFilter<InventoryTableModel, Integer> filter(String query) {
+        String[] terms = terms(query);
+        return terms.length == 0 ? null : new QueryFilter(terms);
+    }
+
+    /** Number of items the query matches; every item when the query has no words. */
+    public int count(String query) {
+        String[] terms = terms(query);
+        return terms.length == 0 ? size : match(terms).cardinality();
+    }
+
+    private final class QueryFilter extends RowFilter<InventoryTableModel, Integer> {
+        private final String[] terms;
+        private BitSet slots;
+        private long computedAt;
+
+        QueryFilter(String[] terms) {
+            this.terms = terms;
+            this.slots = match(terms);
+            this.computedAt = version;
+        }
+
+        public boolean include(Entry<? extends InventoryTableModel, ? extends Integer> entry) {
+            if (computedAt != version) {
+                slots = match(terms);
+                computedAt = version;
+            }
+            int row = entry.getIdentifier();
+            return row < size && slots.get(slotOfRow[row]);
+        }
+    }
+
+    // ---------- Query ----------
+
+    private BitSet match(String[] terms) {
+        BitSet result = null;
+        for (String term : terms) {
+            BitSet hits = prefix(term);
+            if (result == null) {
+                result = (BitSet) hits.clone();
+            } else {
+                result.and(hits);
+            }
+            if (result.isEmpty()) break;
+        }
+        result.and(live);
+        return result;
+    }
+
+    /** Slots with a word starting with term. The result may be shared; callers must not modify it. */
+    private BitSet prefix(String term) {
+        BitSet cached = broadPrefixes.get(term);
+        if (cached != null) return cached;
+        NavigableMap<String, Postings> range = words.subMap(term, true, term + Character.MAX_VALUE, false);
+        BitSet hits = new BitSet(nextSlot);
+        long postings = 0;
+        for (Postings p : range.values()) {
+            for (int i = 0; i < p.size; i++) hits.set(p.slots[i]);
+            postings += p.size;
+        }
+        if (postings >= CACHE_MIN_POSTINGS) {
+            broadPrefixes.put(term, hits);
+            longestCachedPrefix = Math.max(longestCachedPrefix, term.length());
+        }
+        return hits;
+    }
+
+    // ---------- TableModelListener ----------
+    public void tableChanged(TableModelEvent e) {
+        int first = e.getFirstRow(), last = e.getLastRow();
+        if (first == TableModelEvent.HEADER_ROW || last == Integer.MAX_VALUE) {
+            rebuild();
+        } else {
+            switch (e.getType()) {
+                case TableModelEvent.INSERT: inserted(first, last); break;
+                case TableModelEvent.DELETE: deleted(first, last); break;
+                default:
+                    if (e.getColumn() != TableModelEvent.ALL_COLUMNS && e.getColumn() != InventoryTableModel.COL_SKU
+                            && e.getColumn() != InventoryTableModel.COL_NAME && e.getColumn() != InventoryTableModel.COL_CATEGORY) {
+                        return; // no indexed text moved
+                    }
+                    for (int r = first; r <= last; r++) {
+                        retire(r);
+                        index(r);
+                    }
+            }
+        }
+        if (dead > Math.max(1024, size)) rebuild();
+        version++;
+    }
+
+    private void rebuild() {
+        words.clear();
+        broadPrefixes.clear();
+        longestCachedPrefix = 0;
+        live.clear();
+        size = 0;
+        nextSlot = 0;
+        dead = 0;
+        inserted(0, model.getRowCount() - 1);
+    }
+
+    private void inserted(int first, int last) {
+        int n = last - first + 1;
+        if (n <= 0) return;
+        if (size + n > slotOfRow.length) slotOfRow = Arrays.copyOf(slotOfRow, Math.max(size + n, slotOfRow.length * 2));
+        int tail = size - first;
+        if (tail > 0) System.arraycopy(slotOfRow, first, slotOfRow, first + n, tail);
+        size += n;
+        for (int r = first; r <= last; r++) index(r);
+    }
+
+    private void deleted(int first, int last) {
+        for (int r = first; r <= last; r++) retire(r);
+        int tail = size - last - 1;
+        if (tail > 0) System.arraycopy(slotOfRow, last + 1, slotOfRow, first, tail);
+        size -= last - first + 1;
+    }
+
+    private void retire(int row) {
+        live.clear(slotOfRow[row]);
+        dead++;
+    }
+
+    /** Gives row a fresh slot and adds it under every word of its SKU, name and category. */
+    private void index(int row) {
+        int slot = nextSlot++;
+        slotOfRow[row] = slot;
+        live.set(slot);
+        addWords(model.getSku(row), slot);
+        addWords(model.getName(row), slot);
+        addWords(model.getCategory(row), slot);
+    }
+
+    private void addWords(String text, int slot) {
+        if (text == null) return;
+        int n = text.length();
+        for (int i = 0; i < n; ) {
+            if (!Character.isLetterOrDigit(text.charAt(i))) { i++; continue; }
+            int start = i;
+            while (i < n && Character.isLetterOrDigit(text.charAt(i))) i++;
+            String word = text.substring(start, i).toLowerCase(Locale.ROOT);
+            words.computeIfAbsent(word, w -> new Postings()).add(slot);
+            for (int len = 1, max = Math.min(word.length(), longestCachedPrefix); len <= max; len++) {
+                BitSet cached = broadPrefixes.get(word.substring(0, len));
+                if (cached != null) cached.set(slot);
+            }
+        }
+    }
+
+    /** The query's words, lower-cased, in the same sense as the indexed ones. */
+    static String[] terms(String query) {
+        List<String> terms = new ArrayList<>();
+        int n = query.length();
+        for (int i = 0; i < n; ) {
+            if (!Character.isLetterOrDigit(query.charAt(i))) { i++; continue; }
+            int start = i;
+            while (i < n && Character.isLetterOrDigit(query.charAt(i))) i++;
+            terms.add(query.substring(start, i).toLowerCase(Locale.ROOT));
+        }
+        return terms.toArray(new String[0]);
+    }
+}
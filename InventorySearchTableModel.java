@@ -0,0 +1,133 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Read-only inventory search results, best match first, read from the database's full-text index
+ * with {@link DBHelper#searchInventory}, so the catalogue never has to be held in the client.
+ *
+ * Paged like {@link LazySalesTableModel}: pages are fetched through {@link AsyncDB} when the JTable
+ * first asks for one of their rows and evicted in LRU order; a missing row renders blank until its
+ * page arrives. Ranked results have no stable key to seek from, so every page is an OFFSET query;
+ * users rarely scroll far down a ranked list, and the count is shown so they can refine instead.
+ */
+public class InventorySearchTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMN_NAMES = {
+            "SKU", "Item Name", "Quantity", "Cost Price", "Selling Price",
+            "Category", "Location", "Min Stock Threshold"
+    };
+    private static final Class<?>[] COLUMN_CLASSES = {
+            String.class, String.class, Integer.class, Double.class, Double.class,
+            String.class, String.class, Integer.class
+    };
+
+    private final AsyncDB async;
+    private final int pageSize;
+    private final Map<Integer, Object[][]> pages;
+    private final Set<Integer> loading = new HashSet<>();
+    private String query = "";
+    private int rowCount;
+    private int generation; // bumped by setQuery so answers to an older query are dropped
+
+    public InventorySearchTableModel(AsyncDB async) {
+        this(async, 100, 16);
+    }
+
+    public InventorySearchTableModel(AsyncDB async, int pageSize, int maxPages) {
+        this.async = async;
+        this.pageSize = pageSize;
+        this.pages = new LinkedHashMap<>(maxPages * 2, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Integer, Object[][]> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    public String getQuery() { return query; }
+
+    /**
+     * Shows the items matching the query (use {@link #refresh} to re-run the current one).
+     * The future completes on the EDT with the number of matches once the count is known.
+     */
+    public CompletableFuture<Integer> setQuery(String q) {
+        query = q;
+        int gen = ++generation;
+        pages.clear();
+        loading.clear();
+        rowCount = 0;
+        fireTableDataChanged();
+        return async.submit(d -> d.countSearchInventory(q)).whenCompleteAsync((n, ex) -> {
+            if (ex != null || gen != generation) return;
+            rowCount = n;
+            fireTableDataChanged();
+        }, AsyncDB.EDT);
+    }
+
+    public CompletableFuture<Integer> refresh() {
+        return setQuery(query);
+    }
+
+    /** SKU of the row, or null while its page is still loading. */
+    public String getSku(int row) {
+        Object[] r = row(row);
+        return r == null ? null : (String) r[InventoryTableModel.COL_SKU];
+    }
+
+    /** Whether the row is at or below its minimum stock; false while its page is still loading. */
+    public boolean isLowStock(int row) {
+        Object[] r = row(row);
+        return r != null && (Integer) r[InventoryTableModel.COL_QUANTITY] <= (Integer) r[InventoryTableModel.COL_MIN_STOCK];
+    }
+
+    public int getRowCount() { return rowCount; }
+    public int getColumnCount() { return COLUMN_NAMES.length; }
+    public String getColumnName(int c) { return COLUMN_NAMES[c]; }
+    public Class<?> getColumnClass(int c) { return COLUMN_CLASSES[c]; }
+    public boolean isCellEditable(int r, int c) { return false; }
+
+    public Object getValueAt(int row, int col) {
+        Object[] r = row(row);
+        return r == null ? null : r[col];
+    }
+
+    private Object[] row(int row) {
+        int index = row / pageSize;
+        Object[][] page = pages.get(index);
+        if (page == null) {
+            request(index);
+            return null;
+        }
+        int i = row % pageSize;
+        return i < page.length ? page[i] : null;
+    }
+
+    private void request(int index) {
+        if (!loading.add(index)) return;
+        int gen = generation;
+        String q = query;
+        async.submit(d -> {
+            Object[][] rows = new Object[pageSize][];
+            int n = d.searchInventory(q, pageSize, index * pageSize, new DBHelper.InventoryRowConsumer() {
+                int i;
+                public void accept(String sku, String name, int qty, double cost, double sell, String cat, String loc, int min) {
+                    rows[i++] = new Object[]{sku, name, qty, cost, sell, cat, loc, min};
+                }
+            });
+            return n == pageSize ? rows : Arrays.copyOf(rows, n);
+        }).whenCompleteAsync((rows, ex) -> {
+            if (gen != generation) return;
+            // a failed page stays marked as loading so painting doesn't retry it in a loop; refresh() clears it
+            if (ex != null) return;
+            loading.remove(index);
+            pages.put(index, rows);
+            int first = index * pageSize;
+            int last = Math.min(rowCount, first + pageSize) - 1;
+            if (last >= first) fireTableRowsUpdated(first, last);
+        }, AsyncDB.EDT);
+    }
+}
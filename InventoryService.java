@@ -0,0 +1,414 @@
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The inventory operations without any UI: add, restock, sell, delete, low stock and reports, callable
+ * from plain Java on any thread. Swing front ends, scanners, batch jobs and benchmarks all drive the
+ * system through this class.
+ *
+ * The database ({@link DBHelper}) stays the system of record: every change is written there first and
+ * only then applied to the service's own in-memory catalogue, a SKU-ordered concurrent map of immutable
+ * {@link Item}s plus the set of low-stock SKUs. Reads ({@link #item}, {@link #items}, {@link #lowStock},
+ * {@link #inventoryValue}) never touch the database and never block. Stock is kept in a
+ * {@link StockLedger}: changes to one SKU happen one at a time, changes to different SKUs do not wait
+ * for each other, and units can be {@link #reserve reserved} for a sale that completes later.
+ *
+ * Every stock change is also journalled (see {@link StockJournal}); {@link #load} takes the
+ * quantities from the latest snapshot plus the movements since, and once enough changes have gone
+ * through a background thread writes a new snapshot, so a restart replays only the recent tail.
+ * Rows changed behind the journal's back are brought into it by {@link #repairJournal}.
+ *
+ * {@link Listener}s hear about every change to an item in the order its changes were made, on the
+ * thread that made it; changes to different items may interleave. Call {@link #load} once before
+ * use, and again after bulk changes made behind the service's back (e.g. a CSV import).
+ */
+public class InventoryService {
+
+    /** Returned by {@link #sell} when the SKU has less stock than asked for. */
+    public static final int INSUFFICIENT_STOCK = DBHelper.INSUFFICIENT_STOCK;
+    /** Returned by {@link #sell} and {@link #restock} when there is no such SKU. */
+    public static final int UNKNOWN_SKU = -2;
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /** One inventory item as of some moment; changes produce a new Item. */
+    public static final class Item {
+        public final String sku, name, category, location;
+        public final int quantity, minStock;
+        public final double costPrice, sellPrice;
+
+        public Item(String sku, String name, int quantity, double costPrice, double sellPrice,
+                    String category, String location, int minStock) {
+            this.sku = sku;
+            this.name = name;
+            this.quantity = quantity;
+            this.costPrice = costPrice;
+            this.sellPrice = sellPrice;
+            this.category = category;
+            this.location = location;
+            this.minStock = minStock;
+        }
+
+        /** At or below the minimum stock threshold. */
+        public boolean isLowStock() { return quantity <= minStock; }
+
+        Item withQuantity(int q) {
+            return new Item(sku, name, q, costPrice, sellPrice, category, location, minStock);
+        }
+    }
+
+    /**
+     * Told about each change right after it is committed, on the changing thread and while the next
+     * change to the same item waits, so keep it short: hand the work to another thread or the EDT.
+     */
+    public interface Listener {
+        /** before is null for an added item, after is null for a deleted one. */
+        void itemChanged(Item before, Item after);
+
+        /** The whole catalogue was re-read by {@link #load}; per-item events do not cover it. */
+        default void reloaded() {}
+    }
+
+    private final DBHelper db;
+    private final StockLedger ledger;
+    private final StockJournal journal;
+    private final LongAdder sinceSnapshot = new LongAdder();
+    private final AtomicBoolean snapshotting = new AtomicBoolean();
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile ConcurrentSkipListMap<String, Item> items = new ConcurrentSkipListMap<>();
+    private volatile ConcurrentSkipListSet<String> low = new ConcurrentSkipListSet<>();
+    private final AtomicInteger nextSku = new AtomicInteger(1);
+
+    public InventoryService(DBHelper db) {
+        this(db, StockLedger.DEFAULT_STRIPES);
+    }
+
+    /** stripes = 1 makes every stock change wait for every other, as a single lock would. */
+    public InventoryService(DBHelper db, int stripes) {
+        this.db = db;
+        this.journal = new StockJournal(db);
+        this.ledger = new StockLedger(changes -> db.applyStockChanges(changes, LocalDateTime.now().format(TIMESTAMP)),
+                this::stockChanged, stripes);
+    }
+
+    /** The database behind the service, for work it does not cover (search, CSV, sales history). */
+    public DBHelper db() { return db; }
+
+    /** The stock-movement history and its snapshots. */
+    public StockJournal journal() { return journal; }
+
+    public void addListener(Listener l) { listeners.add(l); }
+    public void removeListener(Listener l) { listeners.remove(l); }
+
+    /**
+     * Replaces the in-memory catalogue with the database inventory: names, prices and thresholds from
+     * the inventory rows, quantities from the journal's replay. Changes wait until it is done.
+     *
+     * The journal and the inventory rows are written together, so they agree unless a row was changed
+     * some other way (a hand edit, an older build). A row the journal has never heard of loads with
+     * quantity 0 and a warning; {@link #repairJournal} takes such rows' quantities into the journal.
+     */
+    public int load() {
+        int[] count = {0};
+        ledger.lockedAll(() -> {
+            StockJournal.Replay replay = journal.replay();
+            if (replay.replayed >= journal.snapshotEvery()) journal.snapshot(replay);
+            ConcurrentSkipListMap<String, Item> loaded = new ConcurrentSkipListMap<>();
+            ConcurrentSkipListSet<String> loadedLow = new ConcurrentSkipListSet<>();
+            Map<String, Integer> stock = new HashMap<>();
+            int[] max = {0}, unjournalled = {0};
+            db.streamItemDetails(DBHelper.DEFAULT_PAGE_SIZE, (sku, name, cost, sell, cat, loc, min) -> {
+                int qty = replay.quantity(sku);
+                if (qty == UNKNOWN_SKU) {
+                    qty = 0;
+                    unjournalled[0]++;
+                }
+                Item it = new Item(sku, name, qty, cost, sell, cat, loc, min);
+                loaded.put(sku, it);
+                stock.put(sku, qty);
+                if (it.isLowStock()) loadedLow.add(sku);
+                max[0] = Math.max(max[0], skuNumber(sku));
+            });
+            if (unjournalled[0] > 0) {
+                System.err.println(unjournalled[0] + " inventory rows are missing from the stock journal; run repairJournal()");
+            }
+            items = loaded;
+            low = loadedLow;
+            ledger.replaceAll(stock);
+            nextSku.accumulateAndGet(max[0] + 1, Math::max);
+            for (Listener l : listeners) l.reloaded();
+            count[0] = loaded.size();
+        });
+        return count[0];
+    }
+
+    /**
+     * Makes the journal agree with the inventory rows after they were changed behind its back: the
+     * row wins, and the difference is journalled as an adjustment, or as a delete for a SKU that is no
+     * longer in inventory. Then reloads. Changes wait until the journal is repaired.
+     *
+     * @return the number of corrections journalled
+     */
+    public int repairJournal() {
+        int[] count = {0};
+        ledger.lockedAll(() -> {
+            StockJournal.Replay replay = journal.replay();
+            List<StockMovement> drift = new ArrayList<>();
+            Set<String> present = new HashSet<>();
+            long now = System.currentTimeMillis();
+            db.streamInventory(DBHelper.DEFAULT_PAGE_SIZE, (sku, name, qty, cost, sell, cat, loc, min) -> {
+                int journalled = replay.quantity(sku);
+                if (journalled == UNKNOWN_SKU) {
+                    drift.add(new StockMovement(0, now, sku, StockMovement.ADJUSTMENT, qty));
+                } else if (journalled != qty) {
+                    drift.add(new StockMovement(0, now, sku, StockMovement.ADJUSTMENT, qty - journalled));
+                }
+                present.add(sku);
+            });
+            replay.forEach((sku, qty) -> {
+                if (!present.contains(sku)) drift.add(new StockMovement(0, now, sku, StockMovement.DELETE, -qty));
+            });
+            journal.append(drift);
+            count[0] = drift.size();
+        });
+        load();
+        return count[0];
+    }
+
+    // ---------- Operations ----------
+
+    /**
+     * Adds a new item under the next free SKU (UQ001, UQ002, ...).
+     *
+     * @throws IllegalArgumentException if the name is blank or a number is negative
+     */
+    public Item addItem(String name, int quantity, double costPrice, double sellPrice,
+                        String category, String location, int minStock) {
+        if (name == null || name.isBlank()) throw new IllegalArgumentException("Item name is required");
+        if (quantity < 0 || minStock < 0 || !(costPrice >= 0) || !(sellPrice >= 0)) {
+            throw new IllegalArgumentException("Quantities and prices must not be negative");
+        }
+        String sku = String.format("UQ%03d", nextSku.getAndIncrement());
+        Item it = new Item(sku, name.trim(), quantity, costPrice, sellPrice, category, location, minStock);
+        ledger.locked(sku, () -> {
+            db.insertItem(it.sku, it.name, it.quantity, it.costPrice, it.sellPrice, it.category, it.location, it.minStock);
+            ledger.put(sku, quantity);
+            apply(null, it);
+        });
+        return it;
+    }
+
+    /**
+     * Adds quantity to the SKU's stock.
+     *
+     * @return the new quantity, or {@link #UNKNOWN_SKU}
+     * @throws IllegalArgumentException if quantity is not positive
+     */
+    public int restock(String sku, int quantity) {
+        return applyAll(List.of(StockChange.restock(sku, quantity)))[0];
+    }
+
+    /**
+     * Sells quantity of the SKU at its current selling price: the stock check, the decrement and the
+     * sales record are one database transaction. Units held by reservations are not for sale.
+     *
+     * @return the remaining quantity, {@link #INSUFFICIENT_STOCK} or {@link #UNKNOWN_SKU}
+     * @throws IllegalArgumentException if quantity is not positive
+     */
+    public int sell(String sku, int quantity) {
+        return applyAll(List.of(StockChange.sale(sku, quantity)))[0];
+    }
+
+    /**
+     * Applies sales and restocks in order as one database transaction, so a batch costs a single
+     * commit; each change still succeeds or fails on its own. Sales are recorded at the item's current
+     * selling price.
+     *
+     * @return per change what {@link #sell} or {@link #restock} would have returned for it
+     */
+    public int[] applyAll(List<StockChange> changes) {
+        // unknown SKUs are answered here; the rest go to the ledger, sales with their price
+        int[] out = new int[changes.size()];
+        List<StockChange> known = new ArrayList<>(changes.size());
+        for (int i = 0; i < out.length; i++) {
+            StockChange c = changes.get(i);
+            Item it = items.get(c.sku);
+            if (it == null && c.isSale()) {
+                out[i] = UNKNOWN_SKU;
+            } else {
+                known.add(c.isSale() ? c.at(it.sellPrice) : c);
+            }
+        }
+        int[] done = ledger.apply(known);
+        for (int i = 0, k = 0; i < out.length; i++) {
+            if (out[i] != UNKNOWN_SKU) out[i] = done[k++];
+        }
+        return out;
+    }
+
+    /**
+     * Holds quantity units of the SKU for a sale that completes later with {@link #commitReservation},
+     * or not at all with {@link #release}. Only memory changes: the database sees the sale on commit.
+     *
+     * @return units still available afterwards, {@link #INSUFFICIENT_STOCK} or {@link #UNKNOWN_SKU}
+     * @throws IllegalArgumentException if quantity is not positive
+     */
+    public int reserve(String sku, int quantity) {
+        return ledger.reserve(sku, quantity);
+    }
+
+    /** Gives back units held by {@link #reserve}. */
+    public void release(String sku, int quantity) {
+        ledger.release(sku, quantity);
+    }
+
+    /**
+     * Sells units held by {@link #reserve} at the SKU's current selling price. If the database refuses
+     * the sale the units are released.
+     *
+     * @return the remaining quantity, {@link #INSUFFICIENT_STOCK} or {@link #UNKNOWN_SKU}
+     */
+    public int commitReservation(String sku, int quantity) {
+        StockChange sale = StockChange.sale(sku, quantity);
+        Item it = items.get(sku);
+        if (it == null) {
+            ledger.release(sku, quantity);
+            return UNKNOWN_SKU;
+        }
+        return ledger.commit(sale.at(it.sellPrice));
+    }
+
+    /** Deletes the item; false if the catalogue did not hold it. Reservations of it are dropped. */
+    public boolean delete(String sku) {
+        boolean[] held = {false};
+        ledger.locked(sku, () -> {
+            db.deleteItem(sku);
+            ledger.remove(sku);
+            Item before = items.get(sku);
+            if (before == null) return;
+            apply(before, null);
+            held[0] = true;
+        });
+        return held[0];
+    }
+
+    // ---------- Reads ----------
+
+    /** The item, or null. */
+    public Item item(String sku) { return items.get(sku); }
+
+    public int itemCount() { return items.size(); }
+
+    /** Every item in SKU order; a live, read-only view. */
+    public Collection<Item> items() { return Collections.unmodifiableCollection(items.values()); }
+
+    /** Items after the given SKU (null for the first), in SKU order, at most limit of them. */
+    public List<Item> itemsAfter(String afterSku, int limit) {
+        Map<String, Item> tail = afterSku == null ? items : items.tailMap(afterSku, false);
+        List<Item> out = new ArrayList<>(Math.min(limit, 1024));
+        for (Item it : tail.values()) {
+            if (out.size() >= limit) break;
+            out.add(it);
+        }
+        return out;
+    }
+
+    /** Items at or below their minimum stock, in SKU order. */
+    public List<Item> lowStock() {
+        Map<String, Item> current = items;
+        List<Item> out = new ArrayList<>();
+        for (String sku : low) {
+            Item it = current.get(sku);
+            if (it != null) out.add(it);
+        }
+        return out;
+    }
+
+    public int lowStockCount() { return low.size(); }
+
+    /** Units of the SKU held by reservations. */
+    public int reserved(String sku) { return ledger.reserved(sku); }
+
+    /** Units of the SKU that can still be sold or reserved, or {@link #UNKNOWN_SKU}. */
+    public int available(String sku) { return ledger.available(sku); }
+
+    // ---------- Reports ----------
+
+    /** Sum of quantity x cost price over the catalogue. */
+    public double inventoryValue() {
+        double total = 0;
+        for (Item it : items.values()) total += it.quantity * it.costPrice;
+        return total;
+    }
+
+    /** Revenue per category over the last days local days, highest first. */
+    public Map<String, Double> revenueByCategory(int days) { return db.revenueByCategory(days); }
+
+    /** Revenue per local day over the last days days, oldest first. */
+    public Map<String, Double> revenueByDay(int days) { return db.revenueByDay(days); }
+
+    /** All-time revenue of the limit best-selling SKUs, highest first. */
+    public Map<String, Double> topSkusByRevenue(int limit) { return db.topSkusByRevenue(limit); }
+
+    // ---------- Internals ----------
+
+    /** From the ledger, under the SKU's stripe. */
+    private void stockChanged(String sku, int onHand) {
+        sinceSnapshot.increment();
+        if (sinceSnapshot.sum() >= journal.snapshotEvery() && snapshotting.compareAndSet(false, true)) snapshotLater();
+        Item before = items.get(sku);
+        if (before == null) return; // added behind our back; the next load picks it up
+        apply(before, onHand == UNKNOWN_SKU ? null : before.withQuantity(onHand));
+    }
+
+    /** Writes a journal snapshot on its own thread; a replay is one read, so stock changes go on meanwhile. */
+    private void snapshotLater() {
+        sinceSnapshot.reset();
+        Thread t = new Thread(() -> {
+            try {
+                journal.snapshotIfDue();
+            } catch (RuntimeException e) {
+                System.err.println("Stock snapshot failed: " + e.getMessage());
+            } finally {
+                snapshotting.set(false);
+            }
+        }, "journal-snapshot");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void apply(Item before, Item after) {
+        if (after != null) {
+            items.put(after.sku, after);
+            if (after.isLowStock()) low.add(after.sku); else low.remove(after.sku);
+        } else {
+            items.remove(before.sku);
+            low.remove(before.sku);
+        }
+        for (Listener l : listeners) l.itemChanged(before, after);
+    }
+
+    /** Numeric value of the SKU's digits, e.g. UQ042 -> 42. */
+    private static int skuNumber(String sku) {
+        int n = 0;
+        for (int k = 0; k < sku.length() && n <= (Integer.MAX_VALUE - 9) / 10; k++) {
+            char ch = sku.charAt(k);
+            if (ch >= '0' && ch <= '9') n = n * 10 + (ch - '0');
+        }
+        return n;
+    }
+}
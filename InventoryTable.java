@@ -0,0 +1,31 @@
+import javax.swing.JTable;
+import javax.swing.table.TableCellRenderer;
+import javax.swing.table.TableModel;
+import java.awt.Component;
+
+/**
+ * JTable that hands cells of an {@link InventoryTableModel} to an {@link InventoryCellRenderer}
+ * without fetching them through getValueAt, which would box every number on every paint.
+ * Any other renderer or model is prepared as usual.
+ */
+public class InventoryTable extends JTable {
+
+    public InventoryTable(TableModel model) {
+        super(model);
+    }
+
+    public Component prepareRenderer(TableCellRenderer renderer, int row, int column) {
+        if (!(renderer instanceof InventoryCellRenderer) || !(getModel() instanceof InventoryTableModel)) {
+            return super.prepareRenderer(renderer, row, column);
+        }
+        // the same selection and focus rules as JTable.prepareRenderer; the renderer reads the value itself
+        boolean selected = false, focused = false;
+        if (!isPaintingForPrint()) {
+            selected = isCellSelected(row, column);
+            focused = selectionModel.getLeadSelectionIndex() == row
+                    && columnModel.getSelectionModel().getLeadSelectionIndex() == column
+                    && isFocusOwner();
+        }
+        return renderer.getTableCellRendererComponent(this, null, selected, focused, row, column);
+    }
+}
@@ -0,0 +1,254 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inventory table model that stores each column as a primitive array instead of a Vector of boxed rows.
+ *
+ * Category and location repeat a handful of values across the whole catalogue, so they are
+ * dictionary-encoded into int codes. Code that needs numbers should use the typed getters
+ * (getQuantity, getCostPrice, ...) rather than getValueAt(...).toString() and parsing;
+ * getValueAt only exists for the JTable. rowOfSku and rowOfName are O(1) through hash indexes
+ * kept in step with every insert and delete.
+ */
+public class InventoryTableModel extends AbstractTableModel implements InventoryLookup {
+
+    public static final int COL_SKU = 0, COL_NAME = 1, COL_QUANTITY = 2, COL_COST = 3, COL_SELL = 4,
+            COL_CATEGORY = 5, COL_LOCATION = 6, COL_MIN_STOCK = 7;
+
+    private static final String[] COLUMN_NAMES = {
+            "SKU", "Item Name", "Quantity", "Cost Price", "Selling Price",
+            "Category", "Location", "Min Stock Threshold"
+    };
+    private static final Class<?>[] COLUMN_CLASSES = {
+            String.class, String.class, Integer.class, Double.class, Double.class,
+            String.class, String.class, Integer.class
+    };
+
+    /** Maps each distinct string to a small int code and back. Codes are never reused. */
+    private static final class Dictionary {
+        private final List<String> values = new ArrayList<>();
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                values.add(value);
+                codes.put(value, code);
+            }
+            return code;
+        }
+
+        String decode(int code) {
+            return values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+
+    private final Dictionary categories = new Dictionary();
+    private final Dictionary locations = new Dictionary();
+    private final Map<String, Integer> skuIndex = new HashMap<>();
+    // name -> lowest row carrying it; names are not unique, SKUs are
+    private final Map<String, Integer> nameIndex = new HashMap<>();
+
+    private int size;
+    private String[] sku = new String[16];
+    private String[] name = new String[16];
+    private int[] quantity = new int[16];
+    private double[] cost = new double[16];
+    private double[] sell = new double[16];
+    private int[] category = new int[16];
+    private int[] location = new int[16];
+    private int[] minStock = new int[16];
+
+    // ---------- TableModel ----------
+    public int getRowCount() { return size; }
+    public int getColumnCount() { return COLUMN_NAMES.length; }
+    public String getColumnName(int c) { return COLUMN_NAMES[c]; }
+    public Class<?> getColumnClass(int c) { return COLUMN_CLASSES[c]; }
+    public boolean isCellEditable(int r, int c) { return false; }
+
+    public Object getValueAt(int row, int col) {
+        switch (col) {
+            case COL_SKU: return sku[row];
+            case COL_NAME: return name[row];
+            case COL_QUANTITY: return quantity[row];
+            case COL_COST: return cost[row];
+            case COL_SELL: return sell[row];
+            case COL_CATEGORY: return categories.decode(category[row]);
+            case COL_LOCATION: return locations.decode(location[row]);
+            case COL_MIN_STOCK: return minStock[row];
+            default: throw new IndexOutOfBoundsException("column " + col);
+        }
+    }
+
+    // ---------- Typed access ----------
+    public String getSku(int row) { return sku[row]; }
+    public String getName(int row) { return name[row]; }
+    public int getQuantity(int row) { return quantity[row]; }
+    public double getCostPrice(int row) { return cost[row]; }
+    public double getSellPrice(int row) { return sell[row]; }
+    public String getCategory(int row) { return categories.decode(category[row]); }
+    public String getLocation(int row) { return locations.decode(location[row]); }
+    public int getMinStock(int row) { return minStock[row]; }
+
+    /** Dictionary code of the row's category, in [0, categoryCount()); stable for the life of the model. */
+    public int getCategoryCode(int row) { return category[row]; }
+    public int categoryCount() { return categories.size(); }
+    public String categoryName(int code) { return categories.decode(code); }
+
+    public int rowOfSku(String s) {
+        Integer row = skuIndex.get(s);
+        return row == null ? -1 : row;
+    }
+
+    public int rowOfName(String n) {
+        Integer row = nameIndex.get(n);
+        return row == null ? -1 : row;
+    }
+
+    // ---------- Mutation ----------
+    public void addRow(String sku, String name, int qty, double cost, double sell, String category, String location, int min) {
+        append(sku, name, qty, cost, sell, category, location, min);
+        fireTableRowsInserted(size - 1, size - 1);
+    }
+
+    public void setQuantity(int row, int qty) {
+        quantity[row] = qty;
+        fireTableCellUpdated(row, COL_QUANTITY);
+    }
+
+    public void removeRow(int row) {
+        String removedName = name[row];
+        skuIndex.remove(sku[row]);
+        int tail = size - row - 1;
+        if (tail > 0) {
+            System.arraycopy(sku, row + 1, sku, row, tail);
+            System.arraycopy(name, row + 1, name, row, tail);
+            System.arraycopy(quantity, row + 1, quantity, row, tail);
+            System.arraycopy(cost, row + 1, cost, row, tail);
+            System.arraycopy(sell, row + 1, sell, row, tail);
+            System.arraycopy(category, row + 1, category, row, tail);
+            System.arraycopy(location, row + 1, location, row, tail);
+            System.arraycopy(minStock, row + 1, minStock, row, tail);
+        }
+        size--;
+        sku[size] = null;
+        name[size] = null;
+        for (int i = row; i < size; i++) {
+            skuIndex.put(sku[i], i);
+            Integer at = nameIndex.get(name[i]);
+            if (at != null && at == i + 1) nameIndex.put(name[i], i);
+        }
+        Integer indexed = nameIndex.get(removedName);
+        if (indexed != null && indexed == row) {
+            // the removed row was the one indexed for its name: fall back to the next duplicate, if any
+            nameIndex.remove(removedName);
+            for (int i = row; i < size; i++) {
+                if (removedName.equals(name[i])) { nameIndex.put(removedName, i); break; }
+            }
+        }
+        fireTableRowsDeleted(row, row);
+    }
+
+    public void clear() {
+        reset();
+        fireTableDataChanged();
+    }
+
+    /** Replaces the contents with the database inventory, streamed page by page, and fires a single event. */
+    public void loadFrom(DBHelper db) {
+        reset();
+        db.streamInventory(DBHelper.DEFAULT_PAGE_SIZE, this::append);
+        fireTableDataChanged();
+    }
+
+    /** Appends rows collected off the EDT (see {@link RowBatch}) and fires one insert event for them. */
+    public void appendBatch(RowBatch batch) {
+        if (batch.size == 0) return;
+        int first = size;
+        for (int i = 0; i < batch.size; i++) {
+            append(batch.sku[i], batch.name[i], batch.quantity[i], batch.cost[i], batch.sell[i],
+                    batch.category[i], batch.location[i], batch.minStock[i]);
+        }
+        fireTableRowsInserted(first, size - 1);
+    }
+
+    /**
+     * Fixed-size buffer of rows filled by a background reader and handed to the EDT with
+     * {@link #appendBatch}. It is never touched again by the reader once handed over.
+     */
+    public static final class RowBatch implements DBHelper.InventoryRowConsumer {
+        private final String[] sku, name, category, location;
+        private final int[] quantity, minStock;
+        private final double[] cost, sell;
+        private int size;
+
+        public RowBatch(int capacity) {
+            sku = new String[capacity];
+            name = new String[capacity];
+            category = new String[capacity];
+            location = new String[capacity];
+            quantity = new int[capacity];
+            minStock = new int[capacity];
+            cost = new double[capacity];
+            sell = new double[capacity];
+        }
+
+        public int size() { return size; }
+
+        public void accept(String s, String n, int qty, double c, double sp, String cat, String loc, int min) {
+            sku[size] = s;
+            name[size] = n;
+            quantity[size] = qty;
+            cost[size] = c;
+            sell[size] = sp;
+            category[size] = cat;
+            location[size] = loc;
+            minStock[size] = min;
+            size++;
+        }
+    }
+
+    private void reset() {
+        Arrays.fill(sku, 0, size, null);
+        Arrays.fill(name, 0, size, null);
+        skuIndex.clear();
+        nameIndex.clear();
+        size = 0;
+    }
+
+    private void append(String s, String n, int qty, double c, double sp, String cat, String loc, int min) {
+        if (size == sku.length) grow();
+        sku[size] = s;
+        name[size] = n;
+        quantity[size] = qty;
+        cost[size] = c;
+        sell[size] = sp;
+        category[size] = categories.encode(cat);
+        location[size] = locations.encode(loc);
+        minStock[size] = min;
+        skuIndex.put(s, size);
+        nameIndex.putIfAbsent(n, size);
+        size++;
+    }
+
+    private void grow() {
+        int cap = sku.length * 2;
+        sku = Arrays.copyOf(sku, cap);
+        name = Arrays.copyOf(name, cap);
+        quantity = Arrays.copyOf(quantity, cap);
+        cost = Arrays.copyOf(cost, cap);
+        sell = Arrays.copyOf(sell, cap);
+        category = Arrays.copyOf(category, cap);
+        location = Arrays.copyOf(location, cap);
+        minStock = Arrays.copyOf(minStock, cap);
+    }
+}
@@ -0,0 +1,153 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * How fast the stock journal replays and what it saves at startup, with a long history behind it.
+ *
+ *   java -cp .;sqlite-jdbc-3.43.0.0.jar JournalBenchmark [movements] [skus] [tail]     (defaults: 20000000, 100000, 100000)
+ *
+ * Over a fresh database file: skus items, then the given number of movements spread over them (mostly
+ * sales of one to three units, a receipt when an item runs low, now and then an adjustment), appended
+ * a chunk per transaction. Printed:
+ * - full replay: every movement from the first, in movements per second; the result is checked
+ *   against the quantities the generator kept.
+ * - snapshot: the time to write that result as a snapshot.
+ * - startup: after tail more movements, the time {@link InventoryService#load} takes: the snapshot
+ *   plus the tail for the quantities, and every item's other columns from inventory. Next to it the
+ *   snapshot-plus-tail replay alone and a replay of everything. The loaded quantities are checked.
+ * - repair: the time {@link InventoryService#repairJournal} takes to compare every inventory row with
+ *   the journal. The benchmark keeps the rows in step with the movements, so it must find nothing.
+ */
+public class JournalBenchmark {
+
+    private static final int CHUNK = 100_000;
+
+    /** Sets inventory rows to the quantities the generated movements end at, without journalling. */
+    interface Rows {
+        void setQuantities(String[] skus, int[] quantities) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        long movements = args.length > 0 ? Long.parseLong(args[0]) : 20_000_000L;
+        int skus = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int tail = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        Path dir = Files.createTempDirectory("journal-bench");
+        Path file = dir.resolve("inventory.db");
+        DBHelper db = new DBHelper(new SQLiteConnectionPool("jdbc:sqlite:" + file));
+        SQLiteConnectionPool raw = new SQLiteConnectionPool("jdbc:sqlite:" + file);
+        try {
+            run(db, (names, quantities) -> {
+                try (PooledConnection con = raw.writer()) {
+                    Connection c = con.connection();
+                    c.setAutoCommit(false);
+                    PreparedStatement ps = con.prepareCached("UPDATE inventory SET quantity=? WHERE sku=?");
+                    for (int i = 0; i < names.length; i++) {
+                        ps.setInt(1, quantities[i]);
+                        ps.setString(2, names[i]);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                    c.commit();
+                    c.setAutoCommit(true);
+                }
+            }, movements, skus, tail);
+        } finally {
+            raw.close();
+            db.close();
+            for (String suffix : new String[]{"", "-wal", "-shm", "-journal"}) {
+                Files.deleteIfExists(dir.resolve("inventory.db" + suffix));
+            }
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    static void run(DBHelper db, Rows rows, long movements, int skus, int tail) throws Exception {
+        String[] names = new String[skus];
+        for (int i = 0; i < skus; i++) names[i] = String.format("UQ%06d", i);
+        db.importInventory(sink -> {
+            for (String sku : names) sink.accept(sku, "Item " + sku, 0, 1.5, 2.5, "Other", "Warehouse A", 10);
+        });
+        int[] expected = new int[skus];
+        Random rnd = new Random(42);
+        long start = System.nanoTime();
+        append(db, names, expected, rnd, movements);
+        rows.setQuantities(names, expected);
+        long took = System.nanoTime() - start;
+        System.out.printf("%,d movements over %,d SKUs written in %d s (%,.0f/s)%n", movements, skus, took / 1_000_000_000,
+                movements / (took / 1e9));
+
+        StockJournal journal = new StockJournal(db);
+        StockJournal.Replay full = journal.replayAll();
+        System.out.printf("full replay: %,d movements in %d ms, %,.0f movements/s%n", full.replayed, full.nanos / 1_000_000,
+                full.replayed / (full.nanos / 1e9));
+        check("full replay", full::quantity, names, expected);
+
+        start = System.nanoTime();
+        journal.snapshot(full);
+        System.out.printf("snapshot:    %,d quantities written in %d ms%n", full.size(), (System.nanoTime() - start) / 1_000_000);
+
+        append(db, names, expected, rnd, tail);
+        rows.setQuantities(names, expected);
+        long last = db.lastMovementId();
+        InventoryService service = new InventoryService(db);
+        start = System.nanoTime();
+        service.load();
+        took = System.nanoTime() - start;
+        StockJournal.Replay recent = journal.replay();
+        StockJournal.Replay everything = journal.replayAll();
+        System.out.printf("startup:     load in %d ms; snapshot + %,d-movement tail %d ms, against %d ms to replay all %,d%n",
+                took / 1_000_000, recent.replayed, recent.nanos / 1_000_000, everything.nanos / 1_000_000, everything.replayed);
+        check("startup", sku -> service.item(sku).quantity, names, expected);
+        if (db.lastMovementId() != last) throw new IllegalStateException("load wrote to the journal");
+
+        start = System.nanoTime();
+        int corrections = service.repairJournal();
+        System.out.printf("repair:      every row checked against the journal in %d ms%n", (System.nanoTime() - start) / 1_000_000);
+        if (corrections != 0) throw new IllegalStateException("repair journalled " + corrections + " corrections");
+    }
+
+    private interface Quantities {
+        int of(String sku);
+    }
+
+    private static void check(String label, Quantities actual, String[] names, int[] expected) {
+        for (int i = 0; i < names.length; i++) {
+            if (actual.of(names[i]) != expected[i]) {
+                throw new IllegalStateException(label + ": " + names[i] + " is " + actual.of(names[i]) + ", expected " + expected[i]);
+            }
+        }
+    }
+
+    /** Appends count movements in chunks, keeping expected in step. */
+    private static void append(DBHelper db, String[] names, int[] expected, Random rnd, long count) {
+        List<StockMovement> chunk = new ArrayList<>(CHUNK);
+        long ts = System.currentTimeMillis();
+        for (long n = 0; n < count; n++) {
+            int i = rnd.nextInt(names.length);
+            int dice = rnd.nextInt(100);
+            int kind, delta;
+            if (dice < 2) {
+                kind = StockMovement.ADJUSTMENT;
+                delta = Math.max(-expected[i], rnd.nextInt(11) - 5);
+            } else if (expected[i] < 3) {
+                kind = StockMovement.RECEIPT;
+                delta = 50 + rnd.nextInt(150);
+            } else {
+                kind = StockMovement.SALE;
+                delta = -(1 + rnd.nextInt(3));
+            }
+            expected[i] += delta;
+            chunk.add(new StockMovement(0, ts + n / 1000, names[i], kind, delta));
+            if (chunk.size() == CHUNK) {
+                db.appendMovements(chunk);
+                chunk.clear();
+            }
+        }
+        db.appendMovements(chunk);
+    }
+}
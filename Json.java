@@ -0,0 +1,179 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough JSON for {@link InventoryHttpServer}: flat objects in, and out any mix of maps, lists,
+ * strings, numbers, booleans and nulls.
+ */
+final class Json {
+
+    private Json() {}
+
+    /**
+     * Parses one object whose values are strings, numbers, booleans or null. Values come back as text
+     * (strings unescaped, numbers as written) and JSON null as Java null.
+     *
+     * @throws IllegalArgumentException if the text is not such an object
+     */
+    static Map<String, String> parseObject(String text) {
+        Parser p = new Parser(text);
+        Map<String, String> out = new LinkedHashMap<>();
+        p.skip();
+        p.expect('{');
+        p.skip();
+        if (p.peek() == '}') {
+            p.pos++;
+        } else {
+            while (true) {
+                p.skip();
+                String key = p.string();
+                p.skip();
+                p.expect(':');
+                p.skip();
+                out.put(key, p.value());
+                p.skip();
+                char c = p.next();
+                if (c == '}') break;
+                if (c != ',') throw p.error("',' or '}'");
+            }
+        }
+        p.skip();
+        if (p.pos != text.length()) throw p.error("end of input");
+        return out;
+    }
+
+    /** The value as JSON text. */
+    static String write(Object value) {
+        StringBuilder sb = new StringBuilder(64);
+        write(sb, value);
+        return sb.toString();
+    }
+
+    static void write(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof String s) {
+            quote(sb, s);
+        } else if (value instanceof Double d) {
+            if (d.isNaN() || d.isInfinite()) sb.append("null"); else sb.append(d.doubleValue());
+        } else if (value instanceof Number || value instanceof Boolean) {
+            sb.append(value);
+        } else if (value instanceof Map<?, ?> m) {
+            sb.append('{');
+            Iterator<? extends Map.Entry<?, ?>> it = m.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<?, ?> e = it.next();
+                quote(sb, String.valueOf(e.getKey()));
+                sb.append(':');
+                write(sb, e.getValue());
+                if (it.hasNext()) sb.append(',');
+            }
+            sb.append('}');
+        } else if (value instanceof List<?> l) {
+            sb.append('[');
+            for (int i = 0; i < l.size(); i++) {
+                if (i > 0) sb.append(',');
+                write(sb, l.get(i));
+            }
+            sb.append(']');
+        } else {
+            quote(sb, value.toString());
+        }
+    }
+
+    private static void quote(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    private static final class Parser {
+        final String text;
+        int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        char peek() {
+            if (pos >= text.length()) throw error("more input");
+            return text.charAt(pos);
+        }
+
+        char next() {
+            char c = peek();
+            pos++;
+            return c;
+        }
+
+        void skip() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+        }
+
+        void expect(char c) {
+            if (next() != c) throw error("'" + c + "'");
+        }
+
+        String value() {
+            char c = peek();
+            if (c == '"') return string();
+            int start = pos;
+            while (pos < text.length() && "-+.0123456789eEtruefalsn".indexOf(text.charAt(pos)) >= 0) pos++;
+            String word = text.substring(start, pos);
+            if (word.equals("null")) return null;
+            if (word.equals("true") || word.equals("false")) return word;
+            if (word.isEmpty() || !word.matches("-?(0|[1-9]\\d*)(\\.\\d+)?([eE][-+]?\\d+)?")) throw error("a flat value");
+            return word;
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') return sb.toString();
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                char e = next();
+                switch (e) {
+                    case '"': case '\\': case '/': sb.append(e); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        if (pos + 4 > text.length()) throw error("4 hex digits");
+                        try {
+                            sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException ex) {
+                            throw error("4 hex digits");
+                        }
+                        pos += 4;
+                        break;
+                    default: throw error("an escape");
+                }
+            }
+        }
+
+        IllegalArgumentException error(String expected) {
+            return new IllegalArgumentException("Bad JSON at offset " + pos + ": expected " + expected);
+        }
+    }
+}
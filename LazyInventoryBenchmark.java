@@ -0,0 +1,160 @@
+import javax.swing.SwingUtilities;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.TableModel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Opening the inventory as the main window does, loading the whole catalogue into the service and
+ * an {@link InventoryTableModel}, against opening the admin browse view's {@link LazyInventoryTableModel}.
+ *
+ *   java -Djava.awt.headless=true -cp .;sqlite-jdbc-3.43.0.0.jar LazyInventoryBenchmark [items...]     (defaults: 10000 100000 1000000)
+ *
+ * For each size a fresh database has its three sample items deleted and gets the items through
+ * {@link DBHelper#importInventory}. Each model is then opened on its own DBHelper and {@link AsyncDB},
+ * driven from the EDT the way a JTable drives it:
+ * - eager: {@link InventoryModelSync#bind} and {@link AsyncDB#load}, timed to the first row reaching
+ *   the table model and to the last;
+ * - lazy: {@link LazyInventoryTableModel#refresh} and row 0 asked for, timed to that row arriving; then
+ *   every row is read in order, which passes through the keyset fetches and evicts all but the last
+ *   pages, and a fresh model is timed to the last row, which it reads with an OFFSET query.
+ * Printed per model: milliseconds to the first row (and to the last row), and the heap it retains
+ * once every row has been shown. Rows that arrive out of SKU order or a wrong row count throw.
+ */
+public class LazyInventoryBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length > 0 ? new int[args.length] : new int[]{10_000, 100_000, 1_000_000};
+        for (int i = 0; i < args.length; i++) sizes[i] = Integer.parseInt(args[i]);
+
+        System.out.printf("  %10s %-6s %14s %14s %14s%n", "items", "model", "first row ms", "last row ms", "retained heap");
+        for (int items : sizes) {
+            Path dir = Files.createTempDirectory("lazy-inventory-bench");
+            String url = "jdbc:sqlite:" + dir.resolve("inventory.db");
+            try {
+                DBHelper seed = new DBHelper(new SQLiteConnectionPool(url));
+                try {
+                    for (String sample : new String[]{"UQ001", "UQ002", "UQ003"}) seed.deleteItem(sample);
+                    seed.importInventory(sink -> {
+                        for (int i = 0; i < items; i++) {
+                            sink.accept(sku(i), "Item " + i, i % 500, 1.25 + i % 100, 2.5 + i % 100,
+                                    "Category " + i % 8, "Aisle " + i % 40, i % 20);
+                        }
+                    });
+                } finally {
+                    seed.close();
+                }
+                eager(url, items);
+                lazy(url, items);
+            } finally {
+                for (String suffix : new String[]{"", "-wal", "-shm", "-journal"}) {
+                    Files.deleteIfExists(dir.resolve("inventory.db" + suffix));
+                }
+                Files.deleteIfExists(dir);
+            }
+        }
+    }
+
+    private static void eager(String url, int items) throws Exception {
+        DBHelper db = new DBHelper(new SQLiteConnectionPool(url));
+        try (AsyncDB async = new AsyncDB(db)) {
+            long heap = usedHeap();
+            InventoryTableModel model = new InventoryTableModel();
+            CompletableFuture<Long> first = new CompletableFuture<>(), last = new CompletableFuture<>();
+            model.addTableModelListener(e -> {
+                if (model.getRowCount() > 0) first.complete(System.nanoTime());
+                if (model.getRowCount() == items) last.complete(System.nanoTime());
+            });
+            long start = System.nanoTime();
+            SwingUtilities.invokeAndWait(() -> InventoryModelSync.bind(async.service(), model));
+            int loaded = async.load().join();
+            long firstRow = first.join() - start, lastRow = last.join() - start;
+            if (loaded != items) throw new IllegalStateException("eager: loaded " + loaded + " items, expected " + items);
+            SwingUtilities.invokeAndWait(() -> {
+                for (int i = 0; i < items; i++) {
+                    if (!model.getSku(i).equals(sku(i))) throw new IllegalStateException("eager: row " + i + " is " + model.getSku(i));
+                }
+            });
+            long retained = usedHeap() - heap;
+            if (model.getRowCount() != items) throw new IllegalStateException("eager: " + model.getRowCount() + " rows");
+            report(items, "eager", firstRow, lastRow, retained);
+        } finally {
+            db.close();
+        }
+    }
+
+    private static void lazy(String url, int items) throws Exception {
+        DBHelper db = new DBHelper(new SQLiteConnectionPool(url));
+        try (AsyncDB async = new AsyncDB(db)) {
+            long heap = usedHeap();
+            long start = System.nanoTime();
+            LazyInventoryTableModel model = open(async, items);
+            check(model, 0);
+            long firstRow = System.nanoTime() - start;
+            for (int i = 1; i < items; i++) check(model, i);
+            long retained = usedHeap() - heap;
+            if (model.getRowCount() != items) throw new IllegalStateException("lazy: " + model.getRowCount() + " rows");
+
+            start = System.nanoTime();
+            LazyInventoryTableModel jump = open(async, items);
+            check(jump, items - 1);
+            report(items, "lazy", firstRow, System.nanoTime() - start, retained);
+        } finally {
+            db.close();
+        }
+    }
+
+    private static LazyInventoryTableModel open(AsyncDB async, int items) throws Exception {
+        LazyInventoryTableModel[] model = new LazyInventoryTableModel[1];
+        CompletableFuture<Integer> count = new CompletableFuture<>();
+        SwingUtilities.invokeAndWait(() -> {
+            model[0] = new LazyInventoryTableModel(async);
+            model[0].refresh().whenComplete((n, ex) -> {
+                if (ex != null) count.completeExceptionally(ex);
+                else count.complete(n);
+            });
+        });
+        int n = count.join();
+        if (n != items) throw new IllegalStateException("lazy: counted " + n + " items, expected " + items);
+        return model[0];
+    }
+
+    /** Asks for the row on the EDT, as painting would, and waits until the model has it. */
+    private static void check(TableModel model, int row) {
+        CompletableFuture<Object> value = new CompletableFuture<>();
+        SwingUtilities.invokeLater(() -> {
+            Object v = model.getValueAt(row, 0);
+            if (v != null) {
+                value.complete(v);
+                return;
+            }
+            model.addTableModelListener(new TableModelListener() {
+                public void tableChanged(TableModelEvent e) {
+                    if (row < e.getFirstRow() || row > e.getLastRow()) return;
+                    Object v = model.getValueAt(row, 0);
+                    if (v == null) return;
+                    model.removeTableModelListener(this);
+                    value.complete(v);
+                }
+            });
+        });
+        Object v = value.join();
+        if (!sku(row).equals(v)) throw new IllegalStateException("lazy: row " + row + " is " + v);
+    }
+
+    private static void report(int items, String label, long firstRow, long lastRow, long heap) {
+        System.out.printf("  %,10d %-6s %14.1f %14.1f %11.1f MB%n", items, label, firstRow / 1e6, lastRow / 1e6, heap / 1e6);
+    }
+
+    private static String sku(int i) {
+        return String.format("UQ%07d", i);
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
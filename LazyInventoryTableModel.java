@@ -0,0 +1,126 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Read-only inventory table model that keeps only a handful of pages in memory, for browsing the
+ * inventory table as the database holds it without loading the catalogue.
+ *
+ * The JTable only asks for the rows it is painting, so pages are fetched when a row of theirs is first
+ * requested and dropped again in LRU order. Pages are read through {@link AsyncDB}: a missing row
+ * renders blank for a moment and the page's rows are repainted once it arrives. A page that directly
+ * follows one we have seen is fetched with a keyset seek on sku; a jump into unknown territory
+ * (dragging the scrollbar) falls back to an OFFSET query.
+ */
+public class LazyInventoryTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMN_NAMES = {
+            "SKU", "Item Name", "Quantity", "Cost Price", "Selling Price",
+            "Category", "Location", "Min Stock Threshold"
+    };
+    private static final Class<?>[] COLUMN_CLASSES = {
+            String.class, String.class, Integer.class, Double.class, Double.class,
+            String.class, String.class, Integer.class
+    };
+
+    /** One fetched page plus the keyset anchor for the page after it. */
+    private static final class Page {
+        final Object[][] rows;
+        final int size;
+        final String lastSku;
+
+        Page(Object[][] rows, int size, String lastSku) {
+            this.rows = rows;
+            this.size = size;
+            this.lastSku = lastSku;
+        }
+    }
+
+    private final AsyncDB async;
+    private final int pageSize;
+    private final Map<Integer, Page> pages;
+    // page index -> last SKU on that page, kept after the page itself is evicted
+    private final Map<Integer, String> lastSkuOfPage = new HashMap<>();
+    private final Set<Integer> loading = new HashSet<>();
+    private int rowCount;
+    private int generation; // bumped by refresh so pages read before it are dropped
+
+    public LazyInventoryTableModel(AsyncDB async) {
+        this(async, 500, 16);
+    }
+
+    public LazyInventoryTableModel(AsyncDB async, int pageSize, int maxPages) {
+        this.async = async;
+        this.pageSize = pageSize;
+        this.pages = new LinkedHashMap<>(maxPages * 2, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Integer, Page> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    /**
+     * Forgets every cached page and re-reads the row count; call after the inventory changed.
+     * The future completes on the EDT with the number of items once the count is known.
+     */
+    public CompletableFuture<Integer> refresh() {
+        int gen = ++generation;
+        pages.clear();
+        lastSkuOfPage.clear();
+        loading.clear();
+        rowCount = 0;
+        fireTableDataChanged();
+        return async.submit(DBHelper::countInventory).whenCompleteAsync((n, ex) -> {
+            if (ex != null || gen != generation) return;
+            rowCount = n;
+            fireTableDataChanged();
+        }, AsyncDB.EDT);
+    }
+
+    public int getRowCount() { return rowCount; }
+    public int getColumnCount() { return COLUMN_NAMES.length; }
+    public String getColumnName(int c) { return COLUMN_NAMES[c]; }
+    public Class<?> getColumnClass(int c) { return COLUMN_CLASSES[c]; }
+    public boolean isCellEditable(int r, int c) { return false; }
+
+    public Object getValueAt(int row, int col) {
+        int index = row / pageSize;
+        Page page = pages.get(index);
+        if (page == null) {
+            request(index);
+            return null;
+        }
+        int i = row % pageSize;
+        return i < page.size ? page.rows[i][col] : null;
+    }
+
+    private void request(int index) {
+        if (!loading.add(index)) return;
+        int gen = generation;
+        String anchor = index == 0 ? null : lastSkuOfPage.get(index - 1);
+        async.submit(d -> {
+            Object[][] rows = new Object[pageSize][];
+            int[] n = {0};
+            DBHelper.InventoryRowConsumer sink = (sku, name, qty, cost, sell, cat, loc, min) ->
+                    rows[n[0]++] = new Object[]{sku, name, qty, cost, sell, cat, loc, min};
+            String last = index == 0 || anchor != null
+                    ? d.fetchInventoryPage(anchor, pageSize, sink)
+                    : d.fetchInventoryPageAt(index * pageSize, pageSize, sink);
+            return new Page(rows, n[0], last);
+        }).whenCompleteAsync((page, ex) -> {
+            if (gen != generation) return;
+            // a failed page stays marked as loading so painting doesn't retry it in a loop; refresh() clears it
+            if (ex != null) return;
+            loading.remove(index);
+            pages.put(index, page);
+            if (page.lastSku != null) lastSkuOfPage.put(index, page.lastSku);
+            int first = index * pageSize;
+            int last = Math.min(rowCount, first + pageSize) - 1;
+            if (last >= first) fireTableRowsUpdated(first, last);
+        }, AsyncDB.EDT);
+    }
+}
@@ -0,0 +1,133 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Read-only sales history model that holds a bounded number of pages, newest sale first.
+ *
+ * Like {@link LazyInventoryTableModel}, pages are fetched when the JTable first asks for one of their
+ * rows and evicted in LRU order, so memory stays flat however long the history is. Pages are read
+ * through {@link AsyncDB}: a missing row renders blank for a moment and the page's rows are repainted
+ * once it arrives. A page that follows a loaded one seeks from that page's last (ts, id) key; a jump
+ * into unknown territory falls back to an OFFSET query.
+ */
+public class LazySalesTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMN_NAMES = {
+            "Time", "SKU", "Item Name", "Category", "Qty", "Price", "Total"
+    };
+    private static final Class<?>[] COLUMN_CLASSES = {
+            String.class, String.class, String.class, String.class, Integer.class, Double.class, Double.class
+    };
+
+    /** One fetched page plus the keyset anchor for the page after it. */
+    private static final class Page {
+        final Object[][] rows;
+        final int size;
+        final long lastTs, lastId;
+
+        Page(Object[][] rows, int size, long lastTs, long lastId) {
+            this.rows = rows;
+            this.size = size;
+            this.lastTs = lastTs;
+            this.lastId = lastId;
+        }
+    }
+
+    private final AsyncDB async;
+    private final int pageSize;
+    private final Map<Integer, Page> pages;
+    // page index -> {ts, id} of its last row, kept after the page itself is evicted
+    private final Map<Integer, long[]> lastKeyOfPage = new HashMap<>();
+    private final Set<Integer> loading = new HashSet<>();
+    private SalesFilter filter = SalesFilter.ALL;
+    private int rowCount;
+    private int generation; // bumped by setFilter so answers to an older filter are dropped
+
+    public LazySalesTableModel(AsyncDB async) {
+        this(async, 200, 16);
+    }
+
+    public LazySalesTableModel(AsyncDB async, int pageSize, int maxPages) {
+        this.async = async;
+        this.pageSize = pageSize;
+        this.pages = new LinkedHashMap<>(maxPages * 2, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Integer, Page> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    public SalesFilter getFilter() { return filter; }
+
+    /**
+     * Shows the sales matching the filter (use {@link #refresh} to re-read the current one).
+     * The future completes on the EDT with the number of matching sales once the count is known.
+     */
+    public CompletableFuture<Integer> setFilter(SalesFilter f) {
+        filter = f;
+        int gen = ++generation;
+        pages.clear();
+        lastKeyOfPage.clear();
+        loading.clear();
+        rowCount = 0;
+        fireTableDataChanged();
+        return async.submit(d -> d.countSales(f)).whenCompleteAsync((n, ex) -> {
+            if (ex != null || gen != generation) return;
+            rowCount = n;
+            fireTableDataChanged();
+        }, AsyncDB.EDT);
+    }
+
+    public CompletableFuture<Integer> refresh() {
+        return setFilter(filter);
+    }
+
+    public int getRowCount() { return rowCount; }
+    public int getColumnCount() { return COLUMN_NAMES.length; }
+    public String getColumnName(int c) { return COLUMN_NAMES[c]; }
+    public Class<?> getColumnClass(int c) { return COLUMN_CLASSES[c]; }
+    public boolean isCellEditable(int r, int c) { return false; }
+
+    public Object getValueAt(int row, int col) {
+        int index = row / pageSize;
+        Page page = pages.get(index);
+        if (page == null) {
+            request(index);
+            return null;
+        }
+        int i = row % pageSize;
+        return i < page.size ? page.rows[i][col] : null;
+    }
+
+    private void request(int index) {
+        if (!loading.add(index)) return;
+        int gen = generation;
+        SalesFilter f = filter;
+        long[] anchor = index == 0 ? new long[]{Long.MAX_VALUE, Long.MAX_VALUE} : lastKeyOfPage.get(index - 1);
+        async.submit(d -> {
+            Object[][] rows = new Object[pageSize][];
+            int[] n = {0};
+            DBHelper.SalesRowConsumer sink = (id, ts, timestamp, sku, name, category, qty, price) ->
+                    rows[n[0]++] = new Object[]{timestamp, sku, name, category, qty, price, qty * price};
+            long[] last = anchor != null
+                    ? d.fetchSalesPage(f, anchor[0], anchor[1], pageSize, sink)
+                    : d.fetchSalesPageAt(f, index * pageSize, pageSize, sink);
+            return last == null ? new Page(rows, 0, 0, 0) : new Page(rows, n[0], last[0], last[1]);
+        }).whenCompleteAsync((page, ex) -> {
+            if (gen != generation) return;
+            // a failed page stays marked as loading so painting doesn't retry it in a loop; refresh() clears it
+            if (ex != null) return;
+            loading.remove(index);
+            pages.put(index, page);
+            if (page.size > 0) lastKeyOfPage.put(index, new long[]{page.lastTs, page.lastId});
+            int first = index * pageSize;
+            int last = Math.min(rowCount, first + pageSize) - 1;
+            if (last >= first) fireTableRowsUpdated(first, last);
+        }, AsyncDB.EDT);
+    }
+}
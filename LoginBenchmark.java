@@ -0,0 +1,170 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Login latency when many attempts arrive at once, e.g. a shift signing in, with plaintext passwords
+ * as before, with {@link DBHelper#authenticateRole} checking hashes directly, and with {@link LoginGuard}
+ * in front.
+ *
+ *   java -cp .;sqlite-jdbc-3.43.0.0.jar LoginBenchmark [attempts] [users]     (defaults: 200, 40)
+ *
+ * A fresh database file gets the users through {@link DBHelper#addUser}, hashed with
+ * PasswordHasher.DEFAULT, and a legacy_users table with the same users' passwords in plaintext for the
+ * query logins ran before. Every attempt runs on its own thread and all are released together. Each
+ * round reports wall time, per-attempt latency percentiles, how many password checks reached the
+ * database (each one a lookup and a hash, or a lookup and a comparison for plaintext), at the peak
+ * how many were running at once, and how many attempts failed with an error, such as a lookup that
+ * timed out waiting for a reader connection.
+ *
+ * - shift change: every user logs in attempts / users times (double clicks, retries, several
+ *   windows) and 10% of attempts carry a typo. Run twice with the guard: cold, then again while the
+ *   sessions from the first storm are still cached.
+ * - brute force: every attempt is a different wrong password for the same user.
+ */
+public class LoginBenchmark {
+
+    private static final double TYPO_RATE = 0.10;
+
+    /** Counts the checks that get past the caller and how many overlap. */
+    private static final class Counted implements LoginGuard.Verifier {
+        private final LoginGuard.Verifier target;
+        final AtomicInteger checks = new AtomicInteger(), active = new AtomicInteger(), peak = new AtomicInteger();
+
+        Counted(LoginGuard.Verifier target) {
+            this.target = target;
+        }
+
+        public String verify(String username, String password) {
+            checks.incrementAndGet();
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                return target.verify(username, password);
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+
+        void reset() {
+            checks.set(0);
+            peak.set(0);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int attempts = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int users = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        Path dir = Files.createTempDirectory("login-bench");
+        Path file = dir.resolve("inventory.db");
+        SQLiteConnectionPool pool = new SQLiteConnectionPool("jdbc:sqlite:" + file);
+        DBHelper db = new DBHelper(pool);
+        try {
+            long start = System.nanoTime();
+            for (int u = 0; u < users; u++) db.addUser("user" + u, "secret-" + u, "Staff");
+            System.out.printf("%d users hashed at %,d iterations in %d ms (%.0f ms per hash), %d cores%n%n", users,
+                    PasswordHasher.DEFAULT.iterations(), (System.nanoTime() - start) / 1_000_000,
+                    (System.nanoTime() - start) / 1e6 / users, Runtime.getRuntime().availableProcessors());
+            try (PooledConnection con = pool.writer(); Statement st = con.createStatement()) {
+                st.execute("CREATE TABLE legacy_users(username TEXT PRIMARY KEY, password TEXT NOT NULL, role TEXT NOT NULL)");
+                PreparedStatement ps = con.prepareCached("INSERT INTO legacy_users VALUES(?,?,'Staff')");
+                for (int u = 0; u < users; u++) {
+                    ps.setString(1, "user" + u);
+                    ps.setString(2, "secret-" + u);
+                    ps.executeUpdate();
+                }
+            }
+
+            String[][] shift = new String[attempts][];
+            Random rnd = new Random(42);
+            for (int i = 0; i < attempts; i++) {
+                int u = i % users;
+                shift[i] = new String[]{"user" + u, rnd.nextDouble() < TYPO_RATE ? "secret-" + u + "x" : "secret-" + u};
+            }
+            String[][] brute = new String[attempts][];
+            for (int i = 0; i < attempts; i++) brute[i] = new String[]{"user0", "guess-" + i};
+
+            Counted plaintext = new Counted((u, p) -> plaintext(pool, u, p));
+            Counted hashed = new Counted(db::authenticateRole);
+            System.out.printf("  %-26s %9s %9s %9s %9s %7s %6s %7s %6s%n",
+                    "", "wall", "p50", "p95", "max", "checks", "peak", "ok", "failed");
+            run("shift: plaintext (before)", shift, plaintext, plaintext);
+            run("shift: hashed", shift, hashed, hashed);
+            LoginGuard guard = new LoginGuard(hashed);
+            run("shift: guarded, cold", shift, (u, p) -> guard.login(u, p).role, hashed);
+            run("shift: guarded, warm", shift, (u, p) -> guard.login(u, p).role, hashed);
+            run("brute force: hashed", brute, hashed, hashed);
+            LoginGuard shared = new LoginGuard(hashed);
+            run("brute force: guarded", brute, (u, p) -> shared.login(u, p).role, hashed);
+        } finally {
+            db.close();
+            for (String suffix : new String[]{"", "-wal", "-shm", "-journal"}) {
+                Files.deleteIfExists(dir.resolve("inventory.db" + suffix));
+            }
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    /** The old query: WHERE username=? AND password=?. */
+    private static String plaintext(SQLiteConnectionPool pool, String username, String password) {
+        try (PooledConnection con = pool.reader()) {
+            PreparedStatement ps = con.prepareCached("SELECT role FROM legacy_users WHERE username=? AND password=?");
+            ps.setString(1, username);
+            ps.setString(2, password);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Auth failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static void run(String label, String[][] attempts, LoginGuard.Verifier login, Counted counted) throws InterruptedException {
+        counted.reset();
+        int n = attempts.length;
+        long[] latency = new long[n];
+        AtomicInteger ok = new AtomicInteger(), failed = new AtomicInteger();
+        CountDownLatch ready = new CountDownLatch(n), go = new CountDownLatch(1), done = new CountDownLatch(n);
+        List<Thread> threads = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int a = i;
+            Thread t = new Thread(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                    long t0 = System.nanoTime();
+                    try {
+                        if (login.verify(attempts[a][0], attempts[a][1]) != null) ok.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                    }
+                    latency[a] = System.nanoTime() - t0;
+                } catch (InterruptedException ignored) {
+                } finally {
+                    done.countDown();
+                }
+            });
+            t.start();
+            threads.add(t);
+        }
+        ready.await();
+        long start = System.nanoTime();
+        go.countDown();
+        done.await();
+        long wall = System.nanoTime() - start;
+        for (Thread t : threads) t.join();
+
+        Arrays.sort(latency);
+        System.out.printf("  %-26s %6d ms %6d ms %6d ms %6d ms %7d %6d %3d/%d %6d%n", label, wall / 1_000_000,
+                latency[n / 2] / 1_000_000, latency[n * 95 / 100] / 1_000_000, latency[n - 1] / 1_000_000,
+                counted.checks.get(), counted.peak.get(), ok.get(), n, failed.get());
+    }
+}
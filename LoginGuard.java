@@ -0,0 +1,234 @@
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sits in front of the slow password check ({@link DBHelper#authenticateRole}) so that login storms,
+ * such as a whole shift signing in at once, cost a bounded number of hashes and database reads.
+ *
+ * - Verified sessions: after a successful check, the user's role is kept together with an HMAC of
+ *   username and password under a key that never leaves this process. The same credentials within
+ *   the session lifetime are answered from that in microseconds, without hashing or SQL. Nothing
+ *   reversible is kept, and a wrong password never matches a cached entry.
+ * - One check per user at a time: attempts for the same username queue behind each other, and each
+ *   re-checks the session cache once it gets its turn, so a burst of identical attempts (double
+ *   clicks, retries, several windows) costs one hash.
+ * - Throttling: after {@link #FREE_FAILURES} wrong passwords the username is locked for a delay that
+ *   doubles with every further failure, up to {@link #MAX_LOCKOUT_MS}. Locked attempts are refused
+ *   with a retry-after before any hashing or SQL. A success clears the count, and a quiet
+ *   {@link #FAILURE_WINDOW_MS} forgets it. Unknown usernames are throttled the same way.
+ * - At most one hash per core runs at once; further checks wait for a permit instead of sharing the
+ *   CPU and all finishing late.
+ *
+ * Role or password changes made elsewhere are seen once the cached session expires, or at once after
+ * {@link #invalidate}. Thread-safe.
+ */
+public class LoginGuard {
+
+    /** The slow, authoritative check: the user's role, or null for wrong credentials. */
+    public interface Verifier {
+        String verify(String username, String password);
+    }
+
+    /** Outcome of {@link #login}: a role, a plain refusal, or a refusal because the user is locked. */
+    public static final class Result {
+        private static final Result DENIED = new Result(null, 0);
+
+        /** The user's role, or null when the login was refused. */
+        public final String role;
+        /** When throttled, how long until the next attempt will be considered; otherwise 0. */
+        public final long retryAfterMillis;
+
+        private Result(String role, long retryAfterMillis) {
+            this.role = role;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        public boolean succeeded() { return role != null; }
+
+        public boolean throttled() { return retryAfterMillis > 0; }
+    }
+
+    public static final int FREE_FAILURES = 3;
+    public static final long FIRST_LOCKOUT_MS = 1_000;
+    public static final long MAX_LOCKOUT_MS = 5 * 60_000;
+    public static final long FAILURE_WINDOW_MS = 15 * 60_000;
+    public static final long DEFAULT_SESSION_MS = 10 * 60_000;
+
+    // past this many tracked usernames, idle ones are swept so sprayed names cannot grow the map forever
+    private static final int SWEEP_THRESHOLD = 10_000;
+
+    private final Verifier verifier;
+    private final long sessionMillis;
+    private final Semaphore hashing;
+    private final SecretKeySpec fingerprintKey;
+    private final ConcurrentHashMap<String, Account> accounts = new ConcurrentHashMap<>();
+    private volatile long lastSweep;
+
+    // counters for benchmarks and diagnostics
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder refusals = new LongAdder();
+
+    public LoginGuard(Verifier verifier) {
+        this(verifier, DEFAULT_SESSION_MS, Runtime.getRuntime().availableProcessors());
+    }
+
+    public LoginGuard(Verifier verifier, long sessionMillis, int concurrentChecks) {
+        if (concurrentChecks < 1) throw new IllegalArgumentException("concurrentChecks must be >= 1");
+        this.verifier = verifier;
+        this.sessionMillis = sessionMillis;
+        this.hashing = new Semaphore(concurrentChecks, true);
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.fingerprintKey = new SecretKeySpec(key, "HmacSHA256");
+    }
+
+    /** Per username: the verified session, if any, and the failure count behind the throttle. */
+    private static final class Account {
+        final ReentrantLock lock = new ReentrantLock(true);
+        volatile byte[] fingerprint;
+        volatile String role;
+        volatile long sessionExpires;
+        int failures;          // guarded by lock
+        long lastFailure;      // guarded by lock
+        volatile long lockedUntil;
+
+        String session(byte[] fp, long now) {
+            byte[] cached = fingerprint;
+            String r = role;
+            return cached != null && now < sessionExpires && MessageDigest.isEqual(cached, fp) ? r : null;
+        }
+
+        long retryAfter(long now) {
+            return Math.max(0, lockedUntil - now);
+        }
+
+        void failed(long now) {
+            if (now - lastFailure > FAILURE_WINDOW_MS) failures = 0;
+            failures++;
+            lastFailure = now;
+            if (failures > FREE_FAILURES) {
+                int doublings = Math.min(failures - FREE_FAILURES - 1, 30);
+                lockedUntil = now + Math.min(MAX_LOCKOUT_MS, FIRST_LOCKOUT_MS << doublings);
+            }
+        }
+
+        boolean idle(long now) {
+            return fingerprint == null && !lock.isLocked() && lockedUntil <= now && now - lastFailure > FAILURE_WINDOW_MS;
+        }
+    }
+
+    /** Checks the credentials, from the session cache when possible. May block while hashing. */
+    public Result login(String username, String password) {
+        long now = System.currentTimeMillis();
+        byte[] fp = fingerprint(username, password);
+        Account account = accounts.get(username);
+        if (account != null) {
+            String role = account.session(fp, now);
+            if (role != null) {
+                cacheHits.increment();
+                return new Result(role, 0);
+            }
+            long wait = account.retryAfter(now);
+            if (wait > 0) { // refuse without queueing behind a check in progress
+                refusals.increment();
+                return new Result(null, wait);
+            }
+        } else {
+            if (accounts.size() >= SWEEP_THRESHOLD && now - lastSweep > 60_000) sweep(now);
+            account = accounts.computeIfAbsent(username, u -> new Account());
+        }
+
+        account.lock.lock();
+        try {
+            now = System.currentTimeMillis();
+            // an attempt ahead of us in the queue may just have verified these same credentials
+            String role = account.session(fp, now);
+            if (role != null) {
+                cacheHits.increment();
+                return new Result(role, 0);
+            }
+            long wait = account.retryAfter(now);
+            if (wait > 0) {
+                refusals.increment();
+                return new Result(null, wait);
+            }
+
+            role = check(username, password);
+            now = System.currentTimeMillis();
+            if (role == null) {
+                account.failed(now);
+                return Result.DENIED;
+            }
+            account.failures = 0;
+            account.lockedUntil = 0;
+            account.role = role;
+            account.sessionExpires = now + sessionMillis;
+            account.fingerprint = fp;
+            return new Result(role, 0);
+        } finally {
+            account.lock.unlock();
+        }
+    }
+
+    /** Forgets the user's verified session, e.g. after their password or role changed. */
+    public void invalidate(String username) {
+        Account account = accounts.get(username);
+        if (account != null) account.fingerprint = null;
+    }
+
+    /** Forgets every verified session (failure counts stay). */
+    public void invalidateAll() {
+        for (Account a : accounts.values()) a.fingerprint = null;
+    }
+
+    /** Logins answered from the session cache. */
+    public long cacheHits() { return cacheHits.sum(); }
+
+    /** Logins that went through to the verifier. */
+    public long checks() { return checks.sum(); }
+
+    /** Logins refused by the throttle without a check. */
+    public long throttled() { return refusals.sum(); }
+
+    private String check(String username, String password) {
+        hashing.acquireUninterruptibly();
+        try {
+            checks.increment();
+            return verifier.verify(username, password);
+        } finally {
+            hashing.release();
+        }
+    }
+
+    private byte[] fingerprint(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(fingerprintKey);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    private void sweep(long now) {
+        lastSweep = now;
+        for (Iterator<Map.Entry<String, Account>> it = accounts.entrySet().iterator(); it.hasNext(); ) {
+            Account a = it.next().getValue();
+            if (a.sessionExpires <= now) a.fingerprint = null;
+            if (a.idle(now)) it.remove();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+import javax.swing.table.DefaultTableModel;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Cost of the table-side work of a sell as the catalogue grows: finding the row by item name (the
+ * Exit panel) and then by SKU to write the new quantity back (InventoryModelSync), with the linear
+ * scans the handlers used to run and with {@link InventoryLookup}.
+ *
+ *   java LookupBenchmark [sizes] [sells]     (defaults: 10000,100000,1000000, 2000)
+ *
+ * For each catalogue size, a DefaultTableModel and an {@link InventoryTableModel} get the same items.
+ * Each sell picks a random item name. The old path loops over the rows comparing getValueAt(i, 1),
+ * reads the quantity with Integer.parseInt(getValueAt(i, 2).toString()), then loops again comparing
+ * getValueAt(i, 0) and calls setValueAt. The new path is rowOfName, getSku, rowOfSku and setQuantity.
+ * Both must land on the same row. Reported per size: median and 99th percentile microseconds per
+ * sell for each path. The new path should stay flat from 10k to 1M rows.
+ */
+public class LookupBenchmark {
+
+    public static void main(String[] args) {
+        int[] sizes = args.length > 0 ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray()
+                : new int[]{10_000, 100_000, 1_000_000};
+        int sells = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        System.out.printf("%,d sells per size; microseconds per sell%n%n", sells);
+        System.out.printf("  %-12s %10s %10s   %10s %10s %8s%n", "", "scan p50", "p99", "index p50", "p99", "p50 x");
+        for (int size : sizes) run(size, sells);
+    }
+
+    private static void run(int size, int sells) {
+        DefaultTableModel old = new DefaultTableModel(new Object[]{
+                "SKU", "Item Name", "Quantity", "Cost Price", "Selling Price", "Category", "Location", "Min Stock Threshold"}, 0);
+        InventoryTableModel model = new InventoryTableModel();
+        for (int i = 0; i < size; i++) {
+            String sku = String.format("UQ%07d", i), name = "Item " + i;
+            old.addRow(new Object[]{sku, name, 1_000_000, 1.5, 2.5, "Other", "Warehouse A", 10});
+            model.addRow(sku, name, 1_000_000, 1.5, 2.5, "Other", "Warehouse A", 10);
+        }
+
+        Random rnd = new Random(42);
+        String[] names = new String[sells];
+        for (int i = 0; i < sells; i++) names[i] = "Item " + rnd.nextInt(size);
+        int[] oldRows = new int[sells], newRows = new int[sells];
+        for (int i = 0; i < Math.min(sells, 200); i++) { // warm-up
+            sellByScan(old, names[i]);
+            sellByIndex(model, names[i]);
+        }
+
+        long[] scan = new long[sells], index = new long[sells];
+        for (int i = 0; i < sells; i++) {
+            long start = System.nanoTime();
+            oldRows[i] = sellByScan(old, names[i]);
+            scan[i] = System.nanoTime() - start;
+            start = System.nanoTime();
+            newRows[i] = sellByIndex(model, names[i]);
+            index[i] = System.nanoTime() - start;
+        }
+        if (!Arrays.equals(oldRows, newRows)) throw new IllegalStateException(size + " rows: the index found different rows");
+        for (int r = 0; r < size; r++) {
+            if (model.getQuantity(r) != (Integer) old.getValueAt(r, 2)) throw new IllegalStateException(size + " rows: quantities differ at row " + r);
+        }
+        Arrays.sort(scan);
+        Arrays.sort(index);
+        System.out.printf("  %,10d   %10.1f %10.1f   %10.2f %10.2f %7.0fx%n", size, pct(scan, 50), pct(scan, 99),
+                pct(index, 50), pct(index, 99), pct(scan, 50) / Math.max(0.001, pct(index, 50)));
+    }
+
+    /** The old handlers: one scan by name to find the item, one by SKU to write the quantity back. */
+    private static int sellByScan(DefaultTableModel model, String name) {
+        for (int i = 0; i < model.getRowCount(); i++) {
+            if (name.equals(model.getValueAt(i, 1))) {
+                int cur = Integer.parseInt(model.getValueAt(i, 2).toString());
+                String sku = model.getValueAt(i, 0).toString();
+                for (int j = 0; j < model.getRowCount(); j++) {
+                    if (sku.equals(model.getValueAt(j, 0))) {
+                        model.setValueAt(cur - 1, j, 2);
+                        return j;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static int sellByIndex(InventoryTableModel model, String name) {
+        int i = model.rowOfName(name);
+        if (i < 0) return -1;
+        int row = model.rowOfSku(model.getSku(i));
+        model.setQuantity(row, model.getQuantity(row) - 1);
+        return row;
+    }
+
+    private static double pct(long[] sorted, int p) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * p / 100)] / 1e3;
+    }
+}
@@ -0,0 +1,141 @@
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The items of an {@link InventoryTableModel} at or below their minimum stock (quantity <= min_stock).
+ *
+ * Kept up to date from the model's TableModelEvents the way {@link CategoryAggregates} is, so nothing
+ * rescans the model to find low stock: renderers ask {@link #isLow} per row in O(1) and reports walk
+ * the SKU-sorted {@link #skus} in O(k). Only updates that touch quantity or min stock re-check a row;
+ * inserts and deletes just add or drop theirs, and whole-table events rebuild.
+ *
+ * When an update moves an existing item across its threshold, {@link ThresholdListener}s hear about it;
+ * items that arrive already low (a load, a new entry) or leave by deletion only change the set, which
+ * ChangeListeners see. Must be used on the EDT, like the model.
+ */
+public class LowStockIndex implements TableModelListener {
+
+    /** Told when an item's stock falls to its minimum or below (low), or climbs back above it. */
+    public interface ThresholdListener {
+        void crossed(String sku, String name, int quantity, int minStock, boolean low);
+    }
+
+    private final InventoryTableModel model;
+    private final CopyOnWriteArrayList<ThresholdListener> thresholdListeners = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final TreeSet<String> low = new TreeSet<>();
+
+    // per model row: its SKU while the row is low, else null (deletes arrive after the row is gone)
+    private String[] lowSku = new String[16];
+    private int size;
+    private long version;
+
+    public LowStockIndex(InventoryTableModel model) {
+        this.model = model;
+        rebuild();
+        model.addTableModelListener(this);
+    }
+
+    /** Whether the model row is at or below its minimum stock. */
+    public boolean isLow(int row) { return row < size && lowSku[row] != null; }
+
+    public boolean contains(String sku) { return low.contains(sku); }
+
+    public int count() { return low.size(); }
+
+    /** SKUs of the low items in ascending order; a live read-only view. */
+    public SortedSet<String> skus() { return Collections.unmodifiableSortedSet(low); }
+
+    /** Bumped whenever an item joins or leaves the set. */
+    public long version() { return version; }
+
+    public void addThresholdListener(ThresholdListener l) { thresholdListeners.add(l); }
+    public void removeThresholdListener(ThresholdListener l) { thresholdListeners.remove(l); }
+    public void addChangeListener(ChangeListener l) { listeners.add(l); }
+    public void removeChangeListener(ChangeListener l) { listeners.remove(l); }
+
+    // ---------- TableModelListener ----------
+    public void tableChanged(TableModelEvent e) {
+        int first = e.getFirstRow(), last = e.getLastRow();
+        long before = version;
+        if (first == TableModelEvent.HEADER_ROW || last == Integer.MAX_VALUE) {
+            rebuild();
+        } else {
+            switch (e.getType()) {
+                case TableModelEvent.INSERT: inserted(first, last); break;
+                case TableModelEvent.DELETE: deleted(first, last); break;
+                default:
+                    if (e.getColumn() != TableModelEvent.ALL_COLUMNS && e.getColumn() != InventoryTableModel.COL_QUANTITY
+                            && e.getColumn() != InventoryTableModel.COL_MIN_STOCK) {
+                        return; // no threshold input moved
+                    }
+                    for (int r = first; r <= last; r++) updated(r);
+            }
+        }
+        if (version != before) {
+            ChangeEvent ev = new ChangeEvent(this);
+            for (ChangeListener l : listeners) l.stateChanged(ev);
+        }
+    }
+
+    private void rebuild() {
+        low.clear();
+        Arrays.fill(lowSku, 0, size, null);
+        size = 0;
+        inserted(0, model.getRowCount() - 1);
+        version++;
+    }
+
+    private void inserted(int first, int last) {
+        int n = last - first + 1;
+        if (n <= 0) return;
+        if (size + n > lowSku.length) lowSku = Arrays.copyOf(lowSku, Math.max(size + n, lowSku.length * 2));
+        int tail = size - first;
+        if (tail > 0) System.arraycopy(lowSku, first, lowSku, first + n, tail);
+        size += n;
+        for (int r = first; r <= last; r++) {
+            lowSku[r] = null;
+            if (model.getQuantity(r) <= model.getMinStock(r)) add(r);
+        }
+    }
+
+    private void deleted(int first, int last) {
+        for (int r = first; r <= last; r++) {
+            if (lowSku[r] != null) remove(r);
+        }
+        int tail = size - last - 1;
+        if (tail > 0) System.arraycopy(lowSku, last + 1, lowSku, first, tail);
+        int n = last - first + 1;
+        Arrays.fill(lowSku, size - n, size, null);
+        size -= n;
+    }
+
+    private void updated(int r) {
+        int qty = model.getQuantity(r), min = model.getMinStock(r);
+        boolean isLow = qty <= min;
+        String sku = model.getSku(r);
+        if (lowSku[r] != null && !lowSku[r].equals(sku)) remove(r); // the row now holds another item
+        if (isLow == (lowSku[r] != null)) return;
+        if (isLow) add(r); else remove(r);
+        for (ThresholdListener l : thresholdListeners) l.crossed(sku, model.getName(r), qty, min, isLow);
+    }
+
+    private void add(int r) {
+        lowSku[r] = model.getSku(r);
+        low.add(lowSku[r]);
+        version++;
+    }
+
+    private void remove(int r) {
+        low.remove(lowSku[r]);
+        lowSku[r] = null;
+        version++;
+    }
+}
@@ -0,0 +1,105 @@
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Salted, deliberately slow password hashes (PBKDF2-HMAC-SHA256) in a self-describing text form:
+ *
+ *   pbkdf2-sha256$<iterations>$<salt, base64>$<hash, base64>
+ *
+ * The iteration count travels with each hash, so raising {@link #DEFAULT}'s later only needs
+ * {@link #needsRehash} checks at login; old hashes keep verifying. At 600,000 iterations one hash
+ * costs a few hundred milliseconds of one core, which is the point: it is what makes a stolen users
+ * table expensive to crack, and also why logins must not be repeated needlessly (see {@link LoginGuard}).
+ */
+public final class PasswordHasher {
+
+    /** OWASP's 2023 recommendation for PBKDF2-HMAC-SHA256. */
+    public static final PasswordHasher DEFAULT = new PasswordHasher(600_000);
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256$";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BYTES = 32;
+
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+    private final String dummy;
+
+    public PasswordHasher(int iterations) {
+        if (iterations < 1) throw new IllegalArgumentException("iterations must be positive");
+        this.iterations = iterations;
+        // verifies nothing, but costs what a real check does (see burn)
+        this.dummy = encode(iterations, new byte[SALT_BYTES], new byte[HASH_BYTES]);
+    }
+
+    public int iterations() { return iterations; }
+
+    /** A new hash of the password under a fresh random salt. */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        return encode(iterations, salt, derive(password, salt, iterations));
+    }
+
+    /** Whether the password matches the stored hash; false for anything that is not one of ours. */
+    public boolean verify(String password, String stored) {
+        if (!isHashed(stored)) return false;
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) return false;
+        int n;
+        byte[] salt, expected;
+        try {
+            n = Integer.parseInt(parts[1]);
+            salt = Base64.getDecoder().decode(parts[2]);
+            expected = Base64.getDecoder().decode(parts[3]);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (n < 1 || expected.length == 0) return false;
+        return MessageDigest.isEqual(derive(password, salt, n), expected);
+    }
+
+    /**
+     * Spends the time of one verification. Used when the user does not exist, so response times do
+     * not reveal which usernames are real.
+     */
+    public void burn(String password) {
+        verify(password, dummy);
+    }
+
+    /** Whether the stored value is plaintext or was hashed with fewer iterations than this hasher uses. */
+    public boolean needsRehash(String stored) {
+        if (!isHashed(stored)) return true;
+        int end = stored.indexOf('$', PREFIX.length());
+        try {
+            return end < 0 || Integer.parseInt(stored.substring(PREFIX.length(), end)) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    /** Whether the stored value is in the hashed form rather than a legacy plaintext password. */
+    public static boolean isHashed(String stored) {
+        return stored != null && stored.startsWith(PREFIX);
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BYTES * 8);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " unavailable", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private static String encode(int iterations, byte[] salt, byte[] hash) {
+        Base64.Encoder b64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + "$" + b64.encodeToString(salt) + "$" + b64.encodeToString(hash);
+    }
+}
@@ -0,0 +1,106 @@
+import java.sql.*;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * A connection on loan from a {@link ConnectionProvider}.
+ * close() does not close the physical connection, it returns it to whoever handed it out. Closing a
+ * loan that has already been returned does nothing; the handle must not be used after close().
+ *
+ * Prepared statements obtained through {@link #prepareCached(String)} stay open for the life of the
+ * physical connection and are reused by later borrowers. A connection is only ever lent to one
+ * thread at a time, so the cache itself needs no locking.
+ */
+public final class PooledConnection implements AutoCloseable {
+    private static final int MAX_CACHED_STATEMENTS = 64;
+
+    private final Connection con;
+    private final Consumer<PooledConnection> onRelease;
+    private final StatementCacheStats stats;
+    private final Map<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicBoolean lent = new AtomicBoolean();
+
+    PooledConnection(Connection con, Consumer<PooledConnection> onRelease, StatementCacheStats stats) {
+        this.con = con;
+        this.onRelease = onRelease;
+        this.stats = stats;
+    }
+
+    public Connection connection() {
+        return con;
+    }
+
+    /**
+     * Returns the cached statement for this SQL, preparing it on first use.
+     * The caller must not close it; parameters from the previous use are already cleared, and so is
+     * any batch a failed previous use left unexecuted, so a rolled-back import cannot leak rows into
+     * the next one.
+     */
+    public PreparedStatement prepareCached(String sql) throws SQLException {
+        PreparedStatement ps = statements.get(sql);
+        if (ps != null && !ps.isClosed()) {
+            stats.hit();
+            ps.clearParameters();
+            ps.clearBatch();
+            return ps;
+        }
+        stats.miss();
+        ps = con.prepareStatement(sql);
+        statements.put(sql, ps);
+        if (statements.size() > MAX_CACHED_STATEMENTS) {
+            Iterator<PreparedStatement> eldest = statements.values().iterator();
+            closeQuietly(eldest.next());
+            eldest.remove();
+            stats.evicted(1);
+        }
+        return ps;
+    }
+
+    public Statement createStatement() throws SQLException {
+        return con.createStatement();
+    }
+
+    /** Marks the connection as on loan; the provider calls this each time it hands it out. */
+    PooledConnection lend() {
+        lent.set(true);
+        return this;
+    }
+
+    boolean isClosed() {
+        try {
+            return con.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    /** Closes every cached statement and counts them as evicted; runs as the physical connection closes. */
+    void invalidateStatements() {
+        if (statements.isEmpty()) return;
+        stats.evicted(statements.size());
+        for (PreparedStatement ps : statements.values()) closeQuietly(ps);
+        statements.clear();
+    }
+
+    /** Closes the physical connection; only the owning provider calls this. */
+    void closePhysical() {
+        invalidateStatements();
+        try {
+            con.close();
+        } catch (SQLException ignored) {}
+    }
+
+    private static void closeQuietly(PreparedStatement ps) {
+        try {
+            ps.close();
+        } catch (SQLException ignored) {}
+    }
+
+    @Override
+    public void close() {
+        if (lent.compareAndSet(true, false)) onRelease.accept(this);
+    }
+}
@@ -0,0 +1,144 @@
+import javax.swing.JLabel;
+import javax.swing.JTable;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableCellRenderer;
+import javax.swing.table.TableRowSorter;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Repaint throughput of the inventory table while scrolling, with the renderers the apps used before
+ * {@link InventoryCellRenderer} and with its two styles.
+ *
+ *   java -Djava.awt.headless=true RenderBenchmark [items] [frames]     (defaults: 1000000, 5000)
+ *
+ * Each frame paints one viewport (1100 x 640) of the table into an image, three rows further down
+ * than the last, the way a scroll wheel does. The "before" renderers are copies of the old ones:
+ * a JLabel and a DefaultTableCellRenderer that parse quantity and min stock out of getValueAt and
+ * allocate their colours per cell. Reported per renderer: frames per second, bytes allocated per
+ * frame on the painting thread, and collections during the run. What the new renderers still show
+ * is the Graphics copy CellRendererPane makes for every cell (about 400 bytes), which is JDK code.
+ */
+public class RenderBenchmark {
+
+    private static final int WIDTH = 1100, HEIGHT = 640, ROW_HEIGHT = 28;
+
+    public static void main(String[] args) {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        InventoryTableModel model = new InventoryTableModel();
+        InventoryTableModel.RowBatch batch = new InventoryTableModel.RowBatch(items);
+        Random rnd = new Random(42);
+        for (int i = 0; i < items; i++) {
+            batch.accept(String.format("UQ%07d", i), "Item " + i, rnd.nextInt(500), 1.25 + rnd.nextInt(100),
+                    2.5 + rnd.nextInt(10_000) / 100.0, "Electronics", "Shelf " + rnd.nextInt(4), 10);
+        }
+        model.appendBatch(batch);
+        LowStockIndex lowStock = new LowStockIndex(model);
+        System.out.printf("%,d items, %,d frames per renderer%n%n", items, frames);
+
+        run("before: modern", new JTable(model), new LegacyModernRenderer(), frames);
+        run("before: classic", new JTable(model), new LegacyClassicRenderer(model), frames);
+        run("striped", new InventoryTable(model), InventoryCellRenderer.striped(lowStock::isLow), frames);
+        run("plain", new InventoryTable(model), InventoryCellRenderer.plain(lowStock::isLow), frames);
+    }
+
+    static void run(String label, JTable table, TableCellRenderer renderer, int frames) {
+        table.setRowSorter(new TableRowSorter<>(table.getModel()));
+        table.setRowHeight(ROW_HEIGHT);
+        table.setShowGrid(false);
+        table.setDefaultRenderer(Object.class, renderer);
+        table.setDefaultRenderer(Number.class, renderer);
+        table.setDefaultRenderer(Double.class, renderer);
+        table.setSize(WIDTH, table.getRowCount() * ROW_HEIGHT);
+        table.doLayout();
+        table.setRowSelectionInterval(5, 5);
+
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        int maxTop = (table.getRowCount() - HEIGHT / ROW_HEIGHT - 1) * ROW_HEIGHT;
+        paint(table, image, frames / 5, maxTop); // warm-up
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long gcBefore = collections();
+        long bytesBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        paint(table, image, frames, maxTop);
+        long elapsed = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(thread) - bytesBefore;
+        System.out.printf("  %-16s %8.0f frames/s  %,10d bytes/frame  %4d GCs%n",
+                label, frames / (elapsed / 1e9), bytes / frames, collections() - gcBefore);
+    }
+
+    private static void paint(JTable table, BufferedImage image, int frames, int maxTop) {
+        for (int f = 0; f < frames; f++) {
+            int top = (int) ((long) f * 3 * ROW_HEIGHT % maxTop);
+            Graphics2D g = image.createGraphics();
+            g.translate(0, -top);
+            g.setClip(0, top, WIDTH, HEIGHT);
+            table.paint(g);
+            g.dispose();
+        }
+    }
+
+    private static long collections() {
+        long n = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) n += gc.getCollectionCount();
+        return n;
+    }
+
+    /** The modern app's renderer as it was. */
+    static class LegacyModernRenderer extends JLabel implements TableCellRenderer {
+        LegacyModernRenderer() {
+            setOpaque(true);
+            setBorder(new EmptyBorder(4, 8, 4, 8));
+        }
+
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+            setText(value == null ? "" : value.toString());
+            if (isSelected) {
+                setBackground(table.getSelectionBackground());
+                setForeground(table.getSelectionForeground());
+            } else {
+                Color bg = (row % 2 == 0) ? new Color(245, 245, 245) : Color.WHITE;
+                setBackground(bg);
+                setForeground(Color.BLACK);
+            }
+            try {
+                int modelRow = table.convertRowIndexToModel(row);
+                int qty = Integer.parseInt(table.getModel().getValueAt(modelRow, 2).toString());
+                int min = Integer.parseInt(table.getModel().getValueAt(modelRow, 7).toString());
+                if (qty <= min && !isSelected) setBackground(new Color(255, 220, 220));
+            } catch (Exception ignored) {}
+            return this;
+        }
+    }
+
+    /** The classic app's renderer as it was. */
+    private static class LegacyClassicRenderer extends DefaultTableCellRenderer {
+        private final InventoryTableModel model;
+
+        LegacyClassicRenderer(InventoryTableModel model) {
+            this.model = model;
+        }
+
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+            Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+            int modelRow = table.convertRowIndexToModel(row);
+            try {
+                int qty = Integer.parseInt(model.getValueAt(modelRow, 2).toString());
+                int min = Integer.parseInt(model.getValueAt(modelRow, 7).toString());
+                c.setBackground(qty <= min ? new Color(255, 200, 200) : isSelected ? table.getSelectionBackground() : Color.WHITE);
+            } catch (Exception ex) {
+                c.setBackground(isSelected ? table.getSelectionBackground() : Color.WHITE);
+            }
+            return c;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * "Revenue by category for the last 30 days" from the rollup tables ({@link DBHelper#revenueByCategory})
+ * against the same question asked of the raw sales table with GROUP BY, over a long history.
+ *
+ *   java -cp .;sqlite-jdbc-3.43.0.0.jar RollupBenchmark [rows] [runs]     (defaults: 50000000, 5)
+ *
+ * A fresh database file gets the sales table as the first release created it, filled with rows sales
+ * spread evenly over the two years up to now, in 12 categories plus one sale in 50 without a category.
+ * DBHelper then opens the file, which migrates it: the rollup tables are filled from the history in
+ * one grouped pass each (its time is printed) and the trigger takes over from there. A few sales are
+ * then recorded through {@link DBHelper#insertSale}, one of them uncategorised, so the trigger's
+ * share is in the answer too.
+ *
+ * Timed: the GROUP BY on the timestamp text, which is what the reports could write before (a full
+ * scan); the GROUP BY on the indexed ts column, the best an ad-hoc query does in this tree; and
+ * revenueByCategory(30), runs * 100 times. Printed per query: median milliseconds. All three must give
+ * the same revenue for every category, or the benchmark throws.
+ */
+public class RollupBenchmark {
+
+    private static final int DAYS = 730;
+    private static final int CATEGORIES = 12;
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private interface Query {
+        Map<String, Double> run() throws SQLException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        long rows = args.length > 0 ? Long.parseLong(args[0]) : 50_000_000L;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        Path dir = Files.createTempDirectory("rollup-bench");
+        Path file = dir.resolve("inventory.db");
+        String url = "jdbc:sqlite:" + file;
+        SQLiteConnectionPool raw = new SQLiteConnectionPool(url);
+        DBHelper db = null;
+        try {
+            long start = System.nanoTime();
+            fill(raw, rows);
+            System.out.printf("%,d sales over %d days written in %d s%n", rows, DAYS, (System.nanoTime() - start) / 1_000_000_000);
+
+            start = System.nanoTime();
+            db = new DBHelper(new SQLiteConnectionPool(url));
+            System.out.printf("migration (ts backfill, indexes, rollups): %d s%n", (System.nanoTime() - start) / 1_000_000_000);
+            String now = LocalDateTime.now().format(TIMESTAMP);
+            db.insertSale("UQ000001", "Item", "Category 1", 2, 9.5, now);
+            db.insertSale("UQ000002", "Item", null, 1, 4.25, now);
+            db.insertSale("UQ000003", "Item", "New category", 3, 1.5, now);
+
+            long[] fromMillis = new long[1];
+            try (PooledConnection con = raw.reader();
+                 ResultSet rs = con.createStatement().executeQuery(
+                         "SELECT CAST(strftime('%s', date('now', 'localtime', '-29 days'), 'utc') AS INTEGER) * 1000")) {
+                rs.next();
+                fromMillis[0] = rs.getLong(1);
+            }
+            DBHelper helper = db;
+            Map<String, Map<String, Double>> answers = new HashMap<>();
+            long[] text = time(runs, () -> put(answers, "text",
+                    groupBy(raw, "timestamp >= date('now', 'localtime', '-29 days')", null)));
+            long[] indexed = time(runs, () -> put(answers, "ts", groupBy(raw, "ts >= ?", fromMillis[0])));
+            long[] rollup = time(runs * 100, () -> put(answers, "rollup", helper.revenueByCategory(30)));
+
+            compare("GROUP BY on ts", answers.get("ts"), answers.get("text"));
+            compare("revenueByCategory(30)", answers.get("rollup"), answers.get("text"));
+            System.out.printf("%n%d categories in the last 30 days%n", answers.get("rollup").size());
+            System.out.printf("  %-30s %12s%n", "", "median ms");
+            report("GROUP BY, timestamp text", text);
+            report("GROUP BY, indexed ts", indexed);
+            report("revenueByCategory(30)", rollup);
+        } finally {
+            raw.close();
+            if (db != null) db.close();
+            for (String suffix : new String[]{"", "-wal", "-shm", "-journal"}) {
+                Files.deleteIfExists(dir.resolve("inventory.db" + suffix));
+            }
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    /** The sales table of the first release, filled in one statement, oldest sale first. */
+    private static void fill(SQLiteConnectionPool raw, long rows) throws SQLException {
+        long span = DAYS * 86_400L;
+        long first = System.currentTimeMillis() / 1000 - span;
+        try (PooledConnection con = raw.writer(); Statement st = con.createStatement()) {
+            st.execute("""
+                CREATE TABLE sales(
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    sku TEXT NOT NULL,
+                    name TEXT NOT NULL,
+                    category TEXT,
+                    qty INTEGER NOT NULL,
+                    price REAL NOT NULL,
+                    timestamp TEXT NOT NULL
+                )""");
+            st.executeUpdate("WITH RECURSIVE n(i) AS (SELECT 0 UNION ALL SELECT i + 1 FROM n WHERE i < " + (rows - 1) + ") " +
+                    "INSERT INTO sales(sku, name, category, qty, price, timestamp) " +
+                    "SELECT printf('UQ%06d', i * 7919 % 2000), 'Item', " +
+                    "CASE WHEN i % 50 = 0 THEN NULL ELSE 'Category ' || (i * 7919 % " + CATEGORIES + ") END, " +
+                    "1 + i % 3, 1.5 + i * 7919 % 2000 % 50, " +
+                    "strftime('%Y-%m-%d %H:%M:%S', " + first + " + i * " + span + " / " + rows + ", 'unixepoch', 'localtime') FROM n");
+        }
+    }
+
+    /** Revenue per category (uncategorised as '') of the sales matching where, highest first. */
+    private static Map<String, Double> groupBy(SQLiteConnectionPool raw, String where, Long param) throws SQLException {
+        try (PooledConnection con = raw.reader()) {
+            PreparedStatement ps = con.prepareCached("SELECT COALESCE(category, ''), SUM(qty * price) AS r FROM sales " +
+                    "WHERE " + where + " GROUP BY 1 ORDER BY r DESC");
+            if (param != null) ps.setLong(1, param);
+            Map<String, Double> out = new HashMap<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) out.put(rs.getString(1), rs.getDouble(2));
+            }
+            return out;
+        }
+    }
+
+    private static Map<String, Double> put(Map<String, Map<String, Double>> answers, String key, Map<String, Double> answer) {
+        answers.put(key, answer);
+        return answer;
+    }
+
+    private static void compare(String label, Map<String, Double> actual, Map<String, Double> expected) {
+        if (!actual.keySet().equals(expected.keySet())) {
+            throw new IllegalStateException(label + ": categories " + actual.keySet() + ", expected " + expected.keySet());
+        }
+        for (Map.Entry<String, Double> e : expected.entrySet()) {
+            double a = actual.get(e.getKey()), x = e.getValue();
+            if (Math.abs(a - x) > 1e-9 * Math.max(1, Math.abs(x))) {
+                throw new IllegalStateException(label + ": '" + e.getKey() + "' is " + a + ", expected " + x);
+            }
+        }
+    }
+
+    /** Nanoseconds per run, sorted. */
+    private static long[] time(int runs, Query query) throws SQLException {
+        query.run();
+        long[] nanos = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            query.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    private static void report(String label, long[] nanos) {
+        System.out.printf("  %-30s %12.3f%n", label, nanos[nanos.length / 2] / 1e6);
+    }
+}
@@ -0,0 +1,144 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Long-lived SQLite connections: one writer and a few readers.
+ * SQLite allows a single writer at a time anyway, so the writer is handed out under a lock
+ * instead of letting callers fight over the database lock. With WAL the readers never block on it.
+ * A thread that already holds the writer cannot borrow it again: it would get the same connection,
+ * inside whatever transaction the outer borrow has open.
+ * Every connection is configured once when it is opened, not per statement.
+ */
+public class SQLiteConnectionPool implements ConnectionProvider {
+    private static final long BORROW_TIMEOUT_MS = 10_000;
+
+    private final String url;
+    private final ReentrantLock writeLock = new ReentrantLock(true);
+    private final BlockingQueue<PooledConnection> readers;
+    private final List<PooledConnection> all = new ArrayList<>();
+    private final StatementCacheStats statementStats = new StatementCacheStats();
+    private PooledConnection writer;
+    private volatile boolean closed;
+
+    public SQLiteConnectionPool(String url) {
+        this(url, Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors())));
+    }
+
+    public SQLiteConnectionPool(String url, int readerCount) {
+        if (readerCount < 1) throw new IllegalArgumentException("readerCount must be >= 1");
+        this.url = url;
+        this.readers = new ArrayBlockingQueue<>(readerCount);
+        try {
+            // the writer has to be first: it switches the database file to WAL
+            writer = open(false);
+            for (int i = 0; i < readerCount; i++) readers.add(open(true));
+        } catch (SQLException e) {
+            close();
+            throw new RuntimeException("Opening connection pool failed: " + e.getMessage(), e);
+        }
+    }
+
+    private PooledConnection open(boolean readOnly) throws SQLException {
+        Connection con = DriverManager.getConnection(url);
+        try (Statement st = con.createStatement()) {
+            st.execute("PRAGMA journal_mode=WAL");
+            st.execute("PRAGMA synchronous=NORMAL");
+            st.execute("PRAGMA busy_timeout=5000");
+            st.execute("PRAGMA cache_size=-16000");     // 16 MB page cache per connection
+            st.execute("PRAGMA mmap_size=268435456");   // 256 MB memory-mapped I/O
+            st.execute("PRAGMA temp_store=MEMORY");
+            if (readOnly) st.execute("PRAGMA query_only=1");
+        } catch (SQLException e) {
+            con.close();
+            throw e;
+        }
+        PooledConnection pc = new PooledConnection(con, readOnly ? this::releaseReader : this::releaseWriter,
+                statementStats);
+        synchronized (all) {
+            all.add(pc);
+        }
+        return pc;
+    }
+
+    @Override
+    public PooledConnection reader() throws SQLException {
+        checkOpen();
+        try {
+            PooledConnection pc = readers.poll(BORROW_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            if (pc == null) throw new SQLException("Timed out waiting for a read connection");
+            return pc.lend();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a read connection", e);
+        }
+    }
+
+    @Override
+    public PooledConnection writer() throws SQLException {
+        checkOpen();
+        if (writeLock.isHeldByCurrentThread()) {
+            throw new IllegalStateException("This thread already holds the write connection");
+        }
+        try {
+            if (!writeLock.tryLock(BORROW_TIMEOUT_MS, TimeUnit.MILLISECONDS))
+                throw new SQLException("Timed out waiting for the write connection");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for the write connection", e);
+        }
+        return writer.lend();
+    }
+
+    private void releaseReader(PooledConnection pc) {
+        if (closed) return;
+        readers.add(pc.isClosed() ? recycle(pc, true) : pc);
+    }
+
+    private void releaseWriter(PooledConnection pc) {
+        try {
+            if (!closed && pc.isClosed()) writer = recycle(pc, false);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces a connection that died underneath us with a freshly configured one.
+     * Its cached statements go with it; the replacement starts with an empty cache.
+     */
+    private PooledConnection recycle(PooledConnection dead, boolean readOnly) {
+        synchronized (all) {
+            all.remove(dead);
+        }
+        dead.closePhysical();
+        try {
+            return open(readOnly);
+        } catch (SQLException e) {
+            throw new RuntimeException("Reopening connection failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public StatementCacheStats statementCacheStats() {
+        return statementStats;
+    }
+
+    private void checkOpen() throws SQLException {
+        if (closed) throw new SQLException("Connection pool is closed");
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (all) {
+            for (PooledConnection pc : all) pc.closePhysical();
+            all.clear();
+        }
+        readers.clear();
+    }
+}
@@ -0,0 +1,16 @@
+/** One line item as stored in the sales table. */
+public final class SaleLine {
+    public final String sku, name, category;
+    public final int qty;
+    public final double price;
+    public final String timestamp;
+
+    public SaleLine(String sku, String name, String category, int qty, double price, String timestamp) {
+        this.sku = sku;
+        this.name = name;
+        this.category = category;
+        this.qty = qty;
+        this.price = price;
+        this.timestamp = timestamp;
+    }
+}
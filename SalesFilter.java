@@ -0,0 +1,29 @@
+import java.time.LocalDate;
+
+/**
+ * Which sales a report shows: optionally one SKU, optionally a range of local days (both ends inclusive).
+ * A null field means "no restriction".
+ */
+public final class SalesFilter {
+    public static final SalesFilter ALL = new SalesFilter(null, null, null);
+
+    public final String sku;
+    public final LocalDate from;
+    public final LocalDate to;
+
+    public SalesFilter(String sku, LocalDate from, LocalDate to) {
+        this.sku = sku == null || sku.isBlank() ? null : sku.trim();
+        this.from = from;
+        this.to = to;
+    }
+
+    /** First day included, as yyyy-MM-dd; the earliest SQLite date when unrestricted. */
+    public String fromDay() {
+        return from == null ? "0000-01-01" : from.toString();
+    }
+
+    /** Last day included, as yyyy-MM-dd; the last day before SQLite's date limit when unrestricted. */
+    public String toDay() {
+        return to == null ? "9999-12-30" : to.toString();
+    }
+}
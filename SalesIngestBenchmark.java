@@ -0,0 +1,87 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sales ingestion throughput through {@link StockChangeBatcher} at different batch sizes.
+ *
+ *   java -cp .;sqlite-jdbc-3.43.0.0.jar SalesIngestBenchmark [seconds] [producers] [items]     (defaults: 5, 4, 10000)
+ *
+ * Over a fresh database file seeded with items (plenty of stock each), producer threads submit sales
+ * of one unit of a random SKU as fast as the writer takes them, each keeping up to 2,000 unconfirmed.
+ * Each configuration runs for the given seconds on a new batcher: maxBatch 1 (a commit per sale, as
+ * before), 10, 100 and 1000 with no time window, then 1000 with a 5 ms window. Reported: sales
+ * confirmed per second and the average number of sales per commit.
+ */
+public class SalesIngestBenchmark {
+
+    private static final int IN_FLIGHT = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int producers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int items = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        Path dir = Files.createTempDirectory("ingest-bench");
+        Path file = dir.resolve("inventory.db");
+        DBHelper db = new DBHelper(new SQLiteConnectionPool("jdbc:sqlite:" + file));
+        try {
+            db.importInventory(sink -> {
+                for (int i = 0; i < items; i++) sink.accept(sku(i), "Item " + i, 1_000_000_000, 1.5, 2.5, "Other", "Warehouse A", 10);
+            });
+            InventoryService service = new InventoryService(db);
+            service.load();
+            System.out.printf("%,d items, %d producers, %d s per run, %d cores%n%n", items, producers, seconds,
+                    Runtime.getRuntime().availableProcessors());
+            System.out.printf("  %-22s %10s %12s%n", "", "sales/s", "per commit");
+            run("batch 1", service, 1, 0, seconds, producers, items);
+            run("batch 10", service, 10, 0, seconds, producers, items);
+            run("batch 100", service, 100, 0, seconds, producers, items);
+            run("batch 1000", service, 1000, 0, seconds, producers, items);
+            run("batch 1000, 5 ms window", service, 1000, 5, seconds, producers, items);
+        } finally {
+            db.close();
+            for (String suffix : new String[]{"", "-wal", "-shm", "-journal"}) {
+                Files.deleteIfExists(dir.resolve("inventory.db" + suffix));
+            }
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private static void run(String label, InventoryService service, int maxBatch, long maxDelayMillis, int seconds,
+                            int producers, int items) throws InterruptedException {
+        StockChangeBatcher batcher = new StockChangeBatcher(service, maxBatch, maxDelayMillis, producers * IN_FLIGHT);
+        AtomicLong confirmed = new AtomicLong(), failed = new AtomicLong();
+        long start = System.nanoTime(), end = start + seconds * 1_000_000_000L;
+        List<Thread> started = new ArrayList<>(producers);
+        for (int t = 0; t < producers; t++) {
+            Thread thread = new Thread(() -> {
+                Semaphore window = new Semaphore(IN_FLIGHT);
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                while (System.nanoTime() < end) {
+                    window.acquireUninterruptibly();
+                    batcher.submit(StockChange.sale(sku(rnd.nextInt(items)), 1)).whenComplete((r, e) -> {
+                        if (e == null && r >= 0) confirmed.incrementAndGet(); else failed.incrementAndGet();
+                        window.release();
+                    });
+                }
+                window.acquireUninterruptibly(IN_FLIGHT); // until all of this producer's sales are answered
+            });
+            thread.start();
+            started.add(thread);
+        }
+        for (Thread t : started) t.join();
+        long took = System.nanoTime() - start;
+        batcher.close();
+        if (failed.get() > 0) throw new IllegalStateException(label + ": " + failed.get() + " sales failed");
+        System.out.printf("  %-22s %,10.0f %12.1f%n", label, confirmed.get() / (took / 1e9),
+                batcher.changeCount() / (double) Math.max(1, batcher.batchCount()));
+    }
+
+    private static String sku(int i) {
+        return String.format("UQ%06d", i);
+    }
+}
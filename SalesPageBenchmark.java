@@ -0,0 +1,158 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Walks the sales report's pages the way {@link LazySalesTableModel} does and checks them against a
+ * plain query, with many sales sharing a timestamp so page boundaries fall inside runs of equal ts.
+ *
+ *   java -cp .;sqlite-jdbc-3.43.0.0.jar SalesPageBenchmark [rows] [page]     (defaults: 1000000, 200)
+ *
+ * A fresh database gets rows sales through {@link DBHelper#importSales}, seven to each second-resolution
+ * timestamp (seven does not divide the page size, so runs straddle page boundaries), spread over the
+ * last year across 50 SKUs. For each filter (everything, one SKU, one month, the SKU in that month,
+ * one day) the benchmark:
+ * - reads every keyset page with {@link DBHelper#fetchSalesPage} and requires the ids to come in
+ *   strict (ts, id) descending order with none repeated, and to be exactly the ids a plain query over
+ *   the local day bounds returns, in the same order;
+ * - requires {@link DBHelper#countSales} to equal that number;
+ * - reads every tenth page again with {@link DBHelper#fetchSalesPageAt} and requires the same rows.
+ * Any difference throws. Printed per filter: the matching sales, and milliseconds for the median
+ * keyset page, the last keyset page and the positional read of the last page.
+ */
+public class SalesPageBenchmark {
+
+    private static final int BURST = 7;
+    private static final int SKUS = 50;
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int page = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        Path dir = Files.createTempDirectory("sales-page-bench");
+        Path file = dir.resolve("inventory.db");
+        String url = "jdbc:sqlite:" + file;
+        DBHelper db = new DBHelper(new SQLiteConnectionPool(url));
+        SQLiteConnectionPool raw = new SQLiteConnectionPool(url);
+        try {
+            LocalDateTime first = LocalDateTime.now().minusDays(365).withNano(0);
+            long step = Math.max(1, 365L * 86_400 * BURST / rows);
+            long start = System.nanoTime();
+            db.importSales(sink -> {
+                for (int i = 0; i < rows; i++) {
+                    sink.accept(new SaleLine(sku(i % SKUS), "Item " + i % SKUS, "Category " + i % 4, 1 + i % 3, 2.5,
+                            first.plusSeconds(i / BURST * step).format(TIMESTAMP)));
+                }
+            });
+            System.out.printf("%,d sales, %d per timestamp, written in %d s; %d-row pages%n%n", rows, BURST,
+                    (System.nanoTime() - start) / 1_000_000_000, page);
+
+            LocalDate month = first.toLocalDate().plusMonths(6).withDayOfMonth(1), day = month.plusDays(10);
+            System.out.printf("  %-24s %10s %8s %12s %12s %12s%n", "filter", "sales", "pages", "keyset p50", "keyset last", "offset last");
+            run(db, raw, "everything", SalesFilter.ALL, page);
+            run(db, raw, "one SKU", new SalesFilter(sku(7), null, null), page);
+            run(db, raw, "one month", new SalesFilter(null, month, month.plusMonths(1).minusDays(1)), page);
+            run(db, raw, "SKU in that month", new SalesFilter(sku(7), month, month.plusMonths(1).minusDays(1)), page);
+            run(db, raw, "one day", new SalesFilter(null, day, day), page);
+        } finally {
+            raw.close();
+            db.close();
+            for (String suffix : new String[]{"", "-wal", "-shm", "-journal"}) {
+                Files.deleteIfExists(dir.resolve("inventory.db" + suffix));
+            }
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private static void run(DBHelper db, SQLiteConnectionPool raw, String label, SalesFilter f, int page) throws SQLException {
+        long[] expected = expectedIds(raw, f);
+        int count = db.countSales(f);
+        if (count != expected.length) throw new IllegalStateException(label + ": countSales " + count + ", expected " + expected.length);
+
+        long[] ids = new long[expected.length];
+        int pages = (expected.length + page - 1) / page;
+        long[] nanos = new long[Math.max(1, pages)];
+        int[] n = {0};
+        long[] prev = {Long.MAX_VALUE, Long.MAX_VALUE};
+        Set<Long> seen = new HashSet<>();
+        DBHelper.SalesRowConsumer sink = (id, ts, timestamp, sku, name, category, qty, price) -> {
+            if (ts > prev[0] || ts == prev[0] && id >= prev[1]) {
+                throw new IllegalStateException(label + ": (" + ts + ", " + id + ") after (" + prev[0] + ", " + prev[1] + ")");
+            }
+            if (!seen.add(id)) throw new IllegalStateException(label + ": sale " + id + " delivered twice");
+            if (n[0] == ids.length) throw new IllegalStateException(label + ": more than " + ids.length + " sales delivered");
+            ids[n[0]++] = id;
+            prev[0] = ts;
+            prev[1] = id;
+        };
+        db.fetchSalesPage(f, Long.MAX_VALUE, Long.MAX_VALUE, page, (id, ts, timestamp, sku, name, category, qty, price) -> {});
+        long[] key = {Long.MAX_VALUE, Long.MAX_VALUE};
+        for (int p = 0; key != null; p++) {
+            long t = System.nanoTime();
+            key = db.fetchSalesPage(f, key[0], key[1], page, sink);
+            if (p < nanos.length) nanos[p] = System.nanoTime() - t;
+        }
+        if (!Arrays.equals(ids, expected)) {
+            int i = 0;
+            while (i < n[0] && ids[i] == expected[i]) i++;
+            throw new IllegalStateException(label + ": keyset pages differ from the plain query at row " + i + " of " + expected.length);
+        }
+
+        for (int p = 0; p < pages; p += 10) checkPositional(db, label, f, p, page, expected);
+        long lastAt = 0;
+        if (pages > 0) {
+            long t = System.nanoTime();
+            checkPositional(db, label, f, pages - 1, page, expected);
+            lastAt = System.nanoTime() - t;
+        }
+        long last = nanos[nanos.length - 1];
+        Arrays.sort(nanos);
+        System.out.printf("  %-24s %,10d %,8d %12.3f %12.3f %12.3f%n", label, expected.length, pages,
+                nanos[nanos.length / 2] / 1e6, last / 1e6, lastAt / 1e6);
+    }
+
+    private static void checkPositional(DBHelper db, String label, SalesFilter f, int p, int page, long[] expected) {
+        long[] got = new long[page];
+        int[] n = {0};
+        db.fetchSalesPageAt(f, p * page, page, (id, ts, timestamp, sku, name, category, qty, price) -> got[n[0]++] = id);
+        long[] want = Arrays.copyOfRange(expected, p * page, Math.min(expected.length, (p + 1) * page));
+        if (!Arrays.equals(Arrays.copyOf(got, n[0]), want)) throw new IllegalStateException(label + ": positional page " + p + " differs");
+    }
+
+    /** Ids of the filter's sales, newest first, from the local day bounds worked out here rather than in SQL. */
+    private static long[] expectedIds(SQLiteConnectionPool raw, SalesFilter f) throws SQLException {
+        ZoneId zone = ZoneId.systemDefault();
+        long from = f.from == null ? Long.MIN_VALUE : f.from.atStartOfDay(zone).toInstant().toEpochMilli();
+        long to = f.to == null ? Long.MAX_VALUE : f.to.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        try (PooledConnection con = raw.reader()) {
+            PreparedStatement ps = con.prepareCached("SELECT id FROM sales WHERE (? IS NULL OR sku = ?) AND ts >= ? AND ts < ? " +
+                    "ORDER BY ts DESC, id DESC");
+            ps.setString(1, f.sku);
+            ps.setString(2, f.sku);
+            ps.setLong(3, from);
+            ps.setLong(4, to);
+            long[] ids = new long[16];
+            int n = 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (n == ids.length) ids = Arrays.copyOf(ids, n * 2);
+                    ids[n++] = rs.getLong(1);
+                }
+            }
+            return Arrays.copyOf(ids, n);
+        }
+    }
+
+    private static String sku(int i) {
+        return String.format("UQ%06d", i);
+    }
+}
@@ -0,0 +1,163 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+/**
+ * Sales range queries over a long history, on the original sales table (text timestamps, no indexes)
+ * and after the migrations have added the epoch-millis ts column and the (sku, ts), (category, ts)
+ * and ts indexes.
+ *
+ *   java -cp .;sqlite-jdbc-3.43.0.0.jar SalesRangeBenchmark [rows] [skus] [runs]     (defaults: 10000000, 2000, 5)
+ *
+ * A fresh database file gets the sales table as the first release created it, filled with rows sales
+ * spread evenly over 2024 and 2025 across skus SKUs in 12 categories. Three queries are timed runs
+ * times on it, as the reports would have had to write them against the text column: one SKU's revenue
+ * over 30 days, one category's revenue over 7 days, and the newest 100 sales of one day. Then DBHelper
+ * opens the file, which migrates it (backfilling ts and building the indexes and rollups; its time is
+ * printed), and the same three questions go through revenueForSku, revenueForCategory and
+ * fetchSalesPage, runs * 100 times each. Printed per query: median milliseconds before and after and
+ * the speedup. The answers must match, or the benchmark throws.
+ */
+public class SalesRangeBenchmark {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+    private static final int DAYS = 731;
+    private static final LocalDate RANGE_FROM = LocalDate.of(2025, 6, 1);
+    private static final String SKU = "UQ000042";
+    private static final String CATEGORY = "Category 3";
+
+    private interface Query {
+        double run() throws SQLException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        long rows = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000L;
+        int skus = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        Path dir = Files.createTempDirectory("sales-range-bench");
+        Path file = dir.resolve("inventory.db");
+        String url = "jdbc:sqlite:" + file;
+        SQLiteConnectionPool raw = new SQLiteConnectionPool(url);
+        DBHelper db = null;
+        try {
+            long start = System.nanoTime();
+            fill(raw, rows, skus);
+            System.out.printf("%,d sales over %,d SKUs written in %d s%n%n", rows, skus, (System.nanoTime() - start) / 1_000_000_000);
+
+            LocalDate skuTo = RANGE_FROM.plusDays(30), categoryTo = RANGE_FROM.plusDays(7), day = RANGE_FROM.plusDays(14);
+            double[] skuBefore = new double[1], categoryBefore = new double[1], pageBefore = new double[1];
+            long[] tSku = time(runs, () -> skuBefore[0] = revenue(raw,
+                    "SELECT SUM(qty * price) FROM sales WHERE sku=? AND timestamp >= ? AND timestamp < ?", SKU, RANGE_FROM, skuTo));
+            long[] tCategory = time(runs, () -> categoryBefore[0] = revenue(raw,
+                    "SELECT SUM(qty * price) FROM sales WHERE category=? AND timestamp >= ? AND timestamp < ?", CATEGORY, RANGE_FROM, categoryTo));
+            long[] tPage = time(runs, () -> pageBefore[0] = page(raw, day));
+
+            start = System.nanoTime();
+            db = new DBHelper(new SQLiteConnectionPool(url));
+            System.out.printf("migration (ts backfill, indexes, rollups): %d s%n%n", (System.nanoTime() - start) / 1_000_000_000);
+
+            DBHelper helper = db;
+            double[] skuAfter = new double[1], categoryAfter = new double[1], pageAfter = new double[1];
+            long[] aSku = time(runs * 100, () -> skuAfter[0] = helper.revenueForSku(SKU, millis(RANGE_FROM), millis(skuTo)));
+            long[] aCategory = time(runs * 100, () -> categoryAfter[0] = helper.revenueForCategory(CATEGORY, millis(RANGE_FROM), millis(categoryTo)));
+            long[] aPage = time(runs * 100, () -> {
+                long[] first = {0};
+                helper.fetchSalesPage(new SalesFilter(null, day, day), Long.MAX_VALUE, Long.MAX_VALUE, 100,
+                        (id, ts, sku, name, category, time, qty, price) -> { if (first[0] == 0) first[0] = id; });
+                return pageAfter[0] = first[0];
+            });
+
+            System.out.printf("  %-28s %12s %12s %9s%n", "", "before ms", "after ms", "speedup");
+            report("SKU revenue, 30 days", tSku, aSku, skuBefore[0], skuAfter[0]);
+            report("category revenue, 7 days", tCategory, aCategory, categoryBefore[0], categoryAfter[0]);
+            report("newest 100 sales of a day", tPage, aPage, pageBefore[0], pageAfter[0]);
+        } finally {
+            raw.close();
+            if (db != null) db.close();
+            for (String suffix : new String[]{"", "-wal", "-shm", "-journal"}) {
+                Files.deleteIfExists(dir.resolve("inventory.db" + suffix));
+            }
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    /** The sales table of the first release, filled in one statement. */
+    private static void fill(SQLiteConnectionPool raw, long rows, int skus) throws SQLException {
+        long first = FIRST_DAY.toEpochDay() * 86_400L, span = DAYS * 86_400L;
+        try (PooledConnection con = raw.writer(); Statement st = con.createStatement()) {
+            st.execute("""
+                CREATE TABLE sales(
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    sku TEXT NOT NULL,
+                    name TEXT NOT NULL,
+                    category TEXT,
+                    qty INTEGER NOT NULL,
+                    price REAL NOT NULL,
+                    timestamp TEXT NOT NULL
+                )""");
+            st.executeUpdate("WITH RECURSIVE n(i) AS (SELECT 0 UNION ALL SELECT i + 1 FROM n WHERE i < " + (rows - 1) + ") " +
+                    "INSERT INTO sales(sku, name, category, qty, price, timestamp) " +
+                    "SELECT printf('UQ%06d', i * 7919 % " + skus + "), 'Item', 'Category ' || (i * 7919 % " + skus + " % 12), " +
+                    "1 + i % 3, 1.5 + i * 7919 % " + skus + " % 50, " +
+                    "strftime('%Y-%m-%d %H:%M:%S', " + first + " + i * " + span + " / " + rows + ", 'unixepoch') FROM n");
+        }
+    }
+
+    private static double revenue(SQLiteConnectionPool raw, String sql, String key, LocalDate from, LocalDate to) throws SQLException {
+        try (PooledConnection con = raw.reader()) {
+            PreparedStatement ps = con.prepareCached(sql);
+            ps.setString(1, key);
+            ps.setString(2, from.toString());
+            ps.setString(3, to.toString());
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getDouble(1) : 0.0;
+            }
+        }
+    }
+
+    /** Id of the newest sale of the day, reading the whole 100-row page. */
+    private static double page(SQLiteConnectionPool raw, LocalDate day) throws SQLException {
+        try (PooledConnection con = raw.reader()) {
+            PreparedStatement ps = con.prepareCached("SELECT id, sku, name, category, qty, price, timestamp FROM sales " +
+                    "WHERE timestamp >= ? AND timestamp < ? ORDER BY timestamp DESC, id DESC LIMIT 100");
+            ps.setString(1, day.toString());
+            ps.setString(2, day.plusDays(1).toString());
+            long first = 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) if (first == 0) first = rs.getLong(1);
+            }
+            return first;
+        }
+    }
+
+    private static long millis(LocalDate day) {
+        return day.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /** Nanoseconds per run, sorted. */
+    private static long[] time(int runs, Query query) throws SQLException {
+        query.run();
+        long[] nanos = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            query.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    private static void report(String label, long[] before, long[] after, double expected, double actual) {
+        if (Math.abs(expected - actual) > 1e-6 * Math.max(1, Math.abs(expected))) {
+            throw new IllegalStateException(label + ": " + actual + " after the migration, " + expected + " before");
+        }
+        double b = before[before.length / 2] / 1e6, a = after[after.length / 2] / 1e6;
+        System.out.printf("  %-28s %12.3f %12.3f %8.0fx%n", label, b, a, b / Math.max(0.001, a));
+    }
+}
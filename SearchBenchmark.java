@@ -0,0 +1,101 @@
+import javax.swing.RowFilter;
+import javax.swing.table.TableRowSorter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Keystroke-to-filter latency of the inventory search box, with {@link InventorySearchIndex} and with
+ * the old per-keystroke RowFilter.regexFilter.
+ *
+ *   java -Djava.awt.headless=true SearchBenchmark [items]     (default 1000000)
+ *
+ * Every prefix of a few typed queries counts as one keystroke. "index query" is the index lookup
+ * alone; "index + sorter" and "regex + sorter" include TableRowSorter applying the filter to every
+ * row, which is what the user waits for. Each series runs twice and the second run is reported.
+ * Also timed: building the index, and the index's share of single-row adds and deletes.
+ */
+public class SearchBenchmark {
+
+    private static final String[] ADJECTIVES = {"Blue", "Red", "Steel", "Large", "Small", "Organic", "Wireless", "Cotton", "Heavy", "Compact"};
+    private static final String[] NOUNS = {"Widget", "Cable", "Shirt", "Bottle", "Charger", "Chips", "Lamp", "Drill", "Notebook", "Speaker"};
+    private static final String[] CATEGORIES = {"Electronics", "Clothing", "Food", "Other"};
+    private static final String[] TYPED = {"wireless char", "UQ00123", "org", "steel drill 77", "clothing cot"};
+
+    public static void main(String[] args) {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        InventoryTableModel model = new InventoryTableModel();
+        InventoryTableModel.RowBatch batch = new InventoryTableModel.RowBatch(items);
+        Random rnd = new Random(42);
+        for (int i = 0; i < items; i++) {
+            batch.accept(String.format("UQ%07d", i),
+                    ADJECTIVES[rnd.nextInt(ADJECTIVES.length)] + " " + NOUNS[rnd.nextInt(NOUNS.length)] + " " + rnd.nextInt(1000),
+                    rnd.nextInt(500), 1.5, 2.5, CATEGORIES[rnd.nextInt(CATEGORIES.length)], "Shelf 1", 10);
+        }
+        model.appendBatch(batch);
+
+        // listeners are notified newest first, so these two bracket the index's own event handling
+        long[] stamp = new long[2];
+        model.addTableModelListener(e -> stamp[1] = System.nanoTime());
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        InventorySearchIndex index = new InventorySearchIndex(model);
+        long built = System.nanoTime() - start;
+        model.addTableModelListener(e -> stamp[0] = System.nanoTime());
+        System.out.printf("%,d items; index built in %d ms, ~%d MB heap%n%n", items, built / 1_000_000, (usedHeap() - heapBefore) >> 20);
+
+        TableRowSorter<InventoryTableModel> sorter = new TableRowSorter<>(model);
+        for (int run = 0; run < 2; run++) {
+            List<Long> query = new ArrayList<>(), indexed = new ArrayList<>(), regex = new ArrayList<>();
+            for (String typed : TYPED) {
+                for (int k = 1; k <= typed.length(); k++) {
+                    String q = typed.substring(0, k);
+                    long t0 = System.nanoTime();
+                    RowFilter<InventoryTableModel, Integer> f = index.filter(q);
+                    long t1 = System.nanoTime();
+                    sorter.setRowFilter(f);
+                    long t2 = System.nanoTime();
+                    query.add(t1 - t0);
+                    indexed.add(t2 - t0);
+                    if (run == 1 || items <= 200_000) {
+                        long t3 = System.nanoTime();
+                        sorter.setRowFilter(RowFilter.regexFilter("(?i)" + q.trim(), 0, 1, 5));
+                        regex.add(System.nanoTime() - t3);
+                    }
+                }
+            }
+            if (run == 1) {
+                report("index query", query);
+                report("index + sorter", indexed);
+                report("regex + sorter", regex);
+            }
+        }
+        sorter.setRowFilter(null);
+
+        List<Long> adds = new ArrayList<>(), deletes = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            model.addRow("NEW" + i, "Blue Widget " + i, 1, 1, 2, "Other", "Shelf 2", 0);
+            adds.add(stamp[1] - stamp[0]);
+        }
+        for (int i = 0; i < 500; i++) {
+            model.removeRow(rnd.nextInt(model.getRowCount()));
+            deletes.add(stamp[1] - stamp[0]);
+        }
+        System.out.println();
+        report("index update on addRow", adds);
+        report("index update on removeRow", deletes);
+        System.out.printf("%nafter updates: \"blue widget\" matches %,d items%n", index.count("blue widget"));
+    }
+
+    private static void report(String label, List<Long> nanos) {
+        long[] t = nanos.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.printf("  %-26s p50 %9.3f ms  p99 %9.3f ms  max %9.3f ms  (%d samples)%n", label,
+                t[t.length / 2] / 1e6, t[Math.min(t.length - 1, t.length * 99 / 100)] / 1e6, t[t.length - 1] / 1e6, t.length);
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
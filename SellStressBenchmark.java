@@ -0,0 +1,142 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Many tills selling the last units of a few SKUs at once, with the two-call path the Exit panel used
+ * before {@link DBHelper#sell} and with sell itself.
+ *
+ *   java -cp .;sqlite-jdbc-3.43.0.0.jar SellStressBenchmark [threads] [skus] [stock]     (defaults: 8, 4, 5000)
+ *
+ * Each round starts from a fresh database file with skus items of stock units each. Every thread
+ * sells one unit of a random SKU at a time until all SKUs are sold out. The two-call path reads the
+ * quantity, writes back one less with updateQuantity and records the sale with insertSale, as the
+ * panel did with its model's copy of the quantity. Printed per round: sales per second, units sold
+ * according to the sales table, stock left, lost updates (sales whose decrement was overwritten by
+ * another till) and SKUs whose stock went below zero.
+ *
+ * sell must lose nothing: every SKU has to end at exactly zero, with exactly stock sales recorded;
+ * otherwise the benchmark throws.
+ */
+public class SellStressBenchmark {
+
+    private interface Till {
+        /** Sells one unit; false once the SKU is sold out. */
+        boolean sellOne(String sku) throws SQLException;
+    }
+
+    private interface Round {
+        Till open(DBHelper db, SQLiteConnectionPool raw);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int skus = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int stock = args.length > 2 ? Integer.parseInt(args[2]) : 5000;
+        System.out.printf("%d threads, %d SKUs of %,d units, %d cores%n%n", threads, skus, stock,
+                Runtime.getRuntime().availableProcessors());
+        System.out.printf("  %-28s %10s %8s %8s %8s %8s%n", "", "sales/s", "sold", "left", "lost", "negative");
+        run("before: read, update, insert", threads, skus, stock, false, (db, raw) -> sku -> {
+            int q = quantity(raw, sku);
+            if (q < 1) return false;
+            db.updateQuantity(sku, q - 1);
+            db.insertSale(sku, "Item", "Other", 1, 2.5, "2026-01-01 12:00:00");
+            return true;
+        });
+        run("sell", threads, skus, stock, true, (db, raw) -> sku ->
+                db.sell(sku, 1, 2.5, "2026-01-01 12:00:00") != DBHelper.INSUFFICIENT_STOCK);
+    }
+
+    private static void run(String label, int threads, int skus, int stock, boolean strict, Round round) throws Exception {
+        Path dir = Files.createTempDirectory("sell-stress");
+        Path file = dir.resolve("inventory.db");
+        DBHelper db = new DBHelper(new SQLiteConnectionPool("jdbc:sqlite:" + file));
+        SQLiteConnectionPool raw = new SQLiteConnectionPool("jdbc:sqlite:" + file);
+        try {
+            String[] names = new String[skus];
+            for (int i = 0; i < skus; i++) names[i] = String.format("UQ%06d", i);
+            db.importInventory(sink -> {
+                for (String sku : names) sink.accept(sku, "Item", stock, 1.5, 2.5, "Other", "Warehouse A", 10);
+            });
+            Till till = round.open(db, raw);
+            AtomicIntegerArray soldOut = new AtomicIntegerArray(skus);
+            AtomicLong sales = new AtomicLong();
+            List<Throwable> failures = new ArrayList<>();
+            List<Thread> started = new ArrayList<>(threads);
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                Thread thread = new Thread(() -> {
+                    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                    try {
+                        while (true) {
+                            int open = 0;
+                            for (int i = 0; i < skus; i++) if (soldOut.get(i) == 0) open++;
+                            if (open == 0) return;
+                            int i = rnd.nextInt(skus);
+                            if (soldOut.get(i) != 0) continue;
+                            if (till.sellOne(names[i])) sales.incrementAndGet(); else soldOut.set(i, 1);
+                        }
+                    } catch (Throwable e) {
+                        synchronized (failures) {
+                            failures.add(e);
+                        }
+                    }
+                });
+                thread.start();
+                started.add(thread);
+            }
+            for (Thread t : started) t.join();
+            long took = System.nanoTime() - start;
+            if (!failures.isEmpty()) throw new IllegalStateException(label + " failed", failures.get(0));
+
+            long recorded = 0, left = 0, lost = 0;
+            int negative = 0;
+            for (String sku : names) {
+                int q = quantity(raw, sku);
+                long sold = salesOf(raw, sku);
+                recorded += sold;
+                left += q;
+                lost += sold - (stock - q);
+                if (q < 0) negative++;
+            }
+            System.out.printf("  %-28s %,10.0f %,8d %,8d %,8d %8d%n", label, sales.get() / (took / 1e9), recorded, left, lost, negative);
+            if (strict && (negative > 0 || lost != 0 || left != 0 || recorded != (long) skus * stock)) {
+                throw new IllegalStateException(label + ": " + recorded + " sold, " + left + " left, " + lost + " lost, " + negative + " negative");
+            }
+        } finally {
+            raw.close();
+            db.close();
+            for (String suffix : new String[]{"", "-wal", "-shm", "-journal"}) {
+                Files.deleteIfExists(dir.resolve("inventory.db" + suffix));
+            }
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private static int quantity(SQLiteConnectionPool raw, String sku) throws SQLException {
+        try (PooledConnection con = raw.reader()) {
+            PreparedStatement ps = con.prepareCached("SELECT quantity FROM inventory WHERE sku=?");
+            ps.setString(1, sku);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    private static long salesOf(SQLiteConnectionPool raw, String sku) throws SQLException {
+        try (PooledConnection con = raw.reader()) {
+            PreparedStatement ps = con.prepareCached("SELECT COALESCE(SUM(qty), 0) FROM sales WHERE sku=?");
+            ps.setString(1, sku);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+}
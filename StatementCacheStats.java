@@ -0,0 +1,27 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/** Hit/miss counters for the prepared-statement caches of one {@link ConnectionProvider}. */
+public final class StatementCacheStats {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    void hit() { hits.increment(); }
+    void miss() { misses.increment(); }
+    void evicted(int n) { evictions.add(n); }
+
+    public long hits() { return hits.sum(); }
+    public long misses() { return misses.sum(); }
+    public long evictions() { return evictions.sum(); }
+
+    public double hitRatio() {
+        long h = hits(), total = h + misses();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return "hits=" + hits() + ", misses=" + misses() + ", evictions=" + evictions() +
+                ", hitRatio=" + String.format("%.3f", hitRatio());
+    }
+}
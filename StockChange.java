@@ -0,0 +1,39 @@
+/** One sale or restock of a SKU, as applied in bulk by {@link InventoryService#applyAll}. */
+public final class StockChange {
+    public final String sku;
+    /** Units added to stock: positive for a restock, negative for a sale. */
+    public final int delta;
+    /** Unit price a sale is recorded at; unused for restocks. */
+    public final double price;
+
+    private StockChange(String sku, int delta, double price) {
+        this.sku = sku;
+        this.delta = delta;
+        this.price = price;
+    }
+
+    /** A sale of quantity units, at the item's selling price when applied. */
+    public static StockChange sale(String sku, int quantity) {
+        check(sku, quantity);
+        return new StockChange(sku, -quantity, 0);
+    }
+
+    public static StockChange restock(String sku, int quantity) {
+        check(sku, quantity);
+        return new StockChange(sku, quantity, 0);
+    }
+
+    public boolean isSale() { return delta < 0; }
+
+    /** Units sold or restocked. */
+    public int quantity() { return Math.abs(delta); }
+
+    StockChange at(double unitPrice) {
+        return new StockChange(sku, delta, unitPrice);
+    }
+
+    private static void check(String sku, int quantity) {
+        if (sku == null || sku.isEmpty()) throw new IllegalArgumentException("SKU is required");
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity must be positive");
+    }
+}
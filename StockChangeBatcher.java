@@ -0,0 +1,152 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Funnels sales and restocks from many threads into {@link InventoryService#applyAll} on one writer
+ * thread, so concurrent callers share database transactions instead of taking turns at one commit each.
+ * This is the group-commit path for sales ingestion: a sale's stock decrement and its sales row are
+ * written in the same transaction.
+ *
+ * The writer takes whatever has queued up while the previous batch was committing, up to maxBatch
+ * changes, and applies it in order as one batch. With maxDelayMillis at 0 an idle writer applies a lone
+ * change at once, so light traffic waits for nothing; under load the batches grow by themselves. A
+ * positive maxDelayMillis makes the writer wait up to that long after a batch's first change for the
+ * batch to fill, trading that much latency for fewer commits when traffic is steady but thin. At most
+ * maxQueued changes may wait; beyond that {@link #submit} fails fast with RejectedExecutionException.
+ *
+ * {@link #close} lets the writer apply everything queued before it and waits for that; the writer is
+ * never interrupted, because an interrupt would abort the batch it is writing.
+ */
+public class StockChangeBatcher implements AutoCloseable {
+
+    private static final class Pending {
+        final StockChange change;
+        final CompletableFuture<Integer> result = new CompletableFuture<>();
+
+        Pending(StockChange change) {
+            this.change = change;
+        }
+    }
+
+    /** Queued by close(): the writer stops once it has taken this. */
+    private static final Pending STOP = new Pending(null);
+
+    private final InventoryService service;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final BlockingQueue<Pending> queue;
+    private final Thread writer;
+    private final LongAdder batches = new LongAdder(), changes = new LongAdder();
+    private volatile boolean closed;
+
+    public StockChangeBatcher(InventoryService service) {
+        this(service, 256, 0, 10_000);
+    }
+
+    public StockChangeBatcher(InventoryService service, int maxBatch, long maxDelayMillis, int maxQueued) {
+        if (maxBatch < 1 || maxDelayMillis < 0 || maxQueued < 1) {
+            throw new IllegalArgumentException("maxBatch and maxQueued must be >= 1, maxDelayMillis >= 0");
+        }
+        this.service = service;
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.queue = new LinkedBlockingQueue<>(maxQueued);
+        this.writer = new Thread(this::run, "stock-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Queues the change; resolves to what {@link InventoryService#sell} or {@link InventoryService#restock} returns. */
+    public CompletableFuture<Integer> submit(StockChange change) {
+        if (closed) return CompletableFuture.failedFuture(closedException());
+        Pending p = new Pending(change);
+        if (!queue.offer(p)) {
+            return CompletableFuture.failedFuture(closed ? closedException()
+                    : new RejectedExecutionException("Too many stock changes queued"));
+        }
+        // close() may have begun after the check above; if this change is still queued behind STOP
+        // nobody would answer it, so take it back. If it is gone, the writer or close() has it.
+        if (closed && queue.remove(p)) p.result.completeExceptionally(closedException());
+        return p.result;
+    }
+
+    private static RejectedExecutionException closedException() {
+        return new RejectedExecutionException("Stock writer is closed");
+    }
+
+    public long batchCount() { return batches.sum(); }
+
+    public long changeCount() { return changes.sum(); }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        List<StockChange> list = new ArrayList<>(maxBatch);
+        boolean stop = false;
+        while (!stop) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatch) {
+                    // take whatever is already waiting before looking at the clock
+                    if (queue.drainTo(batch, maxBatch - batch.size()) > 0) continue;
+                    long left = deadline - System.nanoTime();
+                    if (left <= 0 || closed) break;
+                    Pending next = queue.poll(left, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // nothing here interrupts the writer; write what has been taken and carry on
+            }
+            stop = batch.remove(STOP);
+            if (batch.isEmpty()) continue;
+            for (Pending p : batch) list.add(p.change);
+            try {
+                int[] out = service.applyAll(list);
+                for (int i = 0; i < out.length; i++) batch.get(i).result.complete(out[i]);
+            } catch (Throwable t) {
+                for (Pending p : batch) p.result.completeExceptionally(t);
+            }
+            batches.increment();
+            changes.add(batch.size());
+            batch.clear();
+            list.clear();
+        }
+    }
+
+    /**
+     * Stops taking changes, waits until the writer has applied every change queued before this call,
+     * and fails the few that raced in after it. Calling it again does nothing.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(STOP); // waits for room if the queue is full; the writer is still draining it
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        List<Pending> left = new ArrayList<>();
+        queue.drainTo(left);
+        for (Pending p : left) p.result.completeExceptionally(closedException());
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+}
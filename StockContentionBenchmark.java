@@ -0,0 +1,173 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stock-change throughput when many threads (HTTP handlers, imports, the GUI) hit a few hot SKUs,
+ * for {@link StockLedger} with one stripe (a single lock, as InventoryService had), with the default
+ * stripes, and for the old unlocked read-modify-write of the quantity.
+ *
+ *   java StockContentionBenchmark [millisPerCell] [storeMicros]     (defaults: 500, 5)
+ *
+ * The store is an in-memory stand-in that can take writes to different SKUs at the same time and
+ * spends storeMicros of CPU per write, so what is measured is the ledger's own coordination rather
+ * than SQLite's single writer. The mix per operation, on a random hot SKU: 60% sell 1, 20% reserve 1
+ * and commit, 15% reserve 1 and release, 5% restock 5. Each cell of the sweep (hot SKUs x threads)
+ * prints thousands of operations per second. Afterwards every SKU's quantity in the store is checked
+ * against the starting stock plus the changes reported as done; the difference is lost updates.
+ */
+public class StockContentionBenchmark {
+
+    private static final int[] HOT_SKUS = {1, 4, 16, 256, 4096};
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 64};
+    private static final int START = 1_000_000_000;
+
+    public static void main(String[] args) throws Exception {
+        int millis = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        long storeNanos = (args.length > 1 ? Long.parseLong(args[1]) : 5) * 1000;
+        System.out.printf("%d ms per cell, %d us per store write, %d cores; k ops/s%n", millis, storeNanos / 1000,
+                Runtime.getRuntime().availableProcessors());
+        sweep("single lock (1 stripe)", millis, hot -> new LedgerRun(hot, 1, storeNanos));
+        sweep("striped (" + StockLedger.DEFAULT_STRIPES + " stripes)", millis, hot -> new LedgerRun(hot, StockLedger.DEFAULT_STRIPES, storeNanos));
+        sweep("unlocked read-modify-write", millis, hot -> new UnlockedRun(hot, storeNanos));
+    }
+
+    private interface Setup {
+        Run create(int hot);
+    }
+
+    /** One cell: a fresh store and ledger. */
+    private abstract static class Run {
+        final String[] skus;
+        final Map<String, AtomicInteger> store = new ConcurrentHashMap<>();
+        final Map<String, AtomicLong> expected = new ConcurrentHashMap<>();
+        final long storeNanos;
+
+        Run(int hot, long storeNanos) {
+            this.storeNanos = storeNanos;
+            skus = new String[hot];
+            for (int i = 0; i < hot; i++) {
+                skus[i] = String.format("UQ%06d", i);
+                store.put(skus[i], new AtomicInteger(START));
+                expected.put(skus[i], new AtomicLong(START));
+            }
+        }
+
+        /** One operation on the SKU. */
+        abstract void op(String sku, int dice);
+
+        void done(String sku, int delta) {
+            expected.get(sku).addAndGet(delta);
+        }
+
+        long lost() {
+            long lost = 0;
+            for (String sku : skus) lost += Math.abs(expected.get(sku).get() - store.get(sku).get());
+            return lost;
+        }
+
+        void work() {
+            long end = System.nanoTime() + storeNanos;
+            while (System.nanoTime() < end) Thread.onSpinWait();
+        }
+    }
+
+    private static final class LedgerRun extends Run {
+        final StockLedger ledger;
+
+        LedgerRun(int hot, int stripes, long storeNanos) {
+            super(hot, storeNanos);
+            ledger = new StockLedger(this::write, (sku, onHand) -> { }, stripes);
+            for (String sku : skus) ledger.put(sku, START);
+        }
+
+        private int[] write(List<StockChange> changes) {
+            int[] out = new int[changes.size()];
+            for (int i = 0; i < out.length; i++) {
+                StockChange c = changes.get(i);
+                work();
+                AtomicInteger q = store.get(c.sku);
+                int now = q.addAndGet(c.delta);
+                if (now < 0) {
+                    q.addAndGet(-c.delta);
+                    now = StockLedger.INSUFFICIENT_STOCK;
+                }
+                out[i] = now;
+            }
+            return out;
+        }
+
+        void op(String sku, int dice) {
+            if (dice < 60) {
+                if (ledger.apply(List.of(StockChange.sale(sku, 1)))[0] >= 0) done(sku, -1);
+            } else if (dice < 80) {
+                if (ledger.reserve(sku, 1) >= 0 && ledger.commit(StockChange.sale(sku, 1)) >= 0) done(sku, -1);
+            } else if (dice < 95) {
+                if (ledger.reserve(sku, 1) >= 0) ledger.release(sku, 1);
+            } else {
+                if (ledger.apply(List.of(StockChange.restock(sku, 5)))[0] >= 0) done(sku, 5);
+            }
+        }
+    }
+
+    /** What sell and restock did before: read the quantity, check it, write back the new value. */
+    private static final class UnlockedRun extends Run {
+        UnlockedRun(int hot, long storeNanos) {
+            super(hot, storeNanos);
+        }
+
+        void op(String sku, int dice) {
+            AtomicInteger q = store.get(sku);
+            int delta = dice < 80 ? -1 : dice < 95 ? 0 : 5;
+            if (delta == 0) return;
+            int before = q.get();
+            if (before + delta < 0) return;
+            work();
+            q.set(before + delta);
+            done(sku, delta);
+        }
+    }
+
+    private static void sweep(String label, int millis, Setup setup) throws InterruptedException {
+        System.out.printf("%n%s%n  %10s", label, "hot \\ thr");
+        for (int t : THREADS) System.out.printf(" %8d", t);
+        System.out.println();
+        long lost = 0;
+        for (int hot : HOT_SKUS) {
+            System.out.printf("  %10d", hot);
+            for (int threads : THREADS) {
+                Run run = setup.create(hot);
+                System.out.printf(" %8.1f", cell(run, threads, millis) / 1e3);
+                lost += run.lost();
+            }
+            System.out.println();
+        }
+        System.out.printf("  lost updates: %,d%n", lost);
+    }
+
+    /** Operations per second. */
+    private static double cell(Run run, int threads, int millis) throws InterruptedException {
+        AtomicLong ops = new AtomicLong();
+        long start = System.nanoTime(), end = start + millis * 1_000_000L;
+        List<Thread> started = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                long n = 0;
+                while (System.nanoTime() < end) {
+                    run.op(run.skus[rnd.nextInt(run.skus.length)], rnd.nextInt(100));
+                    n++;
+                }
+                ops.addAndGet(n);
+            });
+            thread.start();
+            started.add(thread);
+        }
+        for (Thread t : started) t.join();
+        return ops.get() / ((System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,315 @@
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds on stock while a basket is built at a till or an online checkout is in progress. A hold
+ * {@link InventoryService#reserve reserves} units, so they drop out of what is available, without
+ * touching the inventory row; it ends by being {@link #sell sold}, {@link #release released}, or
+ * expiring when its time to live runs out.
+ *
+ * Holds are kept in primitive arrays rather than as objects, in a few segments with a lock each
+ * picked at random per hold: 28 bytes of array slots per open hold with compressed references, 29
+ * as HoldBenchmark measures it with growth slack. A hold's id encodes its segment and slot
+ * plus a generation, so ids are never reused and looking one up needs no map.
+ *
+ * Expiry is a hashed timer wheel: every hold sits in the bucket of the tick its deadline falls in,
+ * and one daemon thread, once per tick, releases the holds in the bucket that has come due. Holds due
+ * more than one turn of the wheel away stay in their bucket until the turn they are due. A hold
+ * expires at most one tick after its deadline, and open holds cost nothing between ticks.
+ */
+public class StockHolds implements AutoCloseable {
+
+    /** Returned by {@link #sell} for a hold that was already sold, released or expired, or never existed. */
+    public static final int NO_SUCH_HOLD = -3;
+
+    private static final int SEGMENTS = 16;
+    private static final int WHEEL = 1024;
+    private static final int SLOT_BITS = 28;
+    private static final long DEFAULT_TICK_MILLIS = 100;
+
+    private final InventoryService service;
+    private final long tickMillis;
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long origin = System.nanoTime();
+    private final Thread expiry;
+    private final LongAdder expired = new LongAdder();
+    private volatile boolean closed;
+
+    public StockHolds(InventoryService service) {
+        this(service, DEFAULT_TICK_MILLIS);
+    }
+
+    public StockHolds(InventoryService service, long tickMillis) {
+        this.service = service;
+        this.tickMillis = tickMillis;
+        for (int i = 0; i < SEGMENTS; i++) segments[i] = new Segment(i);
+        expiry = new Thread(this::expireLoop, "hold-expiry");
+        expiry.setDaemon(true);
+        expiry.start();
+    }
+
+    /**
+     * Holds quantity units of the SKU for ttlMillis.
+     *
+     * @return the hold's id (positive), {@link InventoryService#INSUFFICIENT_STOCK} or {@link InventoryService#UNKNOWN_SKU}
+     * @throws IllegalArgumentException if quantity or ttlMillis is not positive
+     * @throws IllegalStateException once the holds are closed
+     */
+    public long hold(String sku, int quantity, long ttlMillis) {
+        if (ttlMillis <= 0) throw new IllegalArgumentException("Time to live must be positive");
+        if (closed) throw new IllegalStateException("Holds are closed");
+        int r = service.reserve(sku, quantity);
+        if (r < 0) return r;
+        try {
+            InventoryService.Item it = service.item(sku);
+            String shared = it != null ? it.sku : sku; // not the caller's copy, which would cost a String per hold
+            return segments[ThreadLocalRandom.current().nextInt(SEGMENTS)].add(shared, quantity, now() + ttlMillis);
+        } catch (RuntimeException | Error e) {
+            giveBack(sku, quantity); // no hold was recorded, so nothing else would ever release the units
+            throw e;
+        }
+    }
+
+    /**
+     * Sells the held units at the current selling price. The hold ends first, so it is either sold or
+     * expires, never both; if the database then refuses the sale the units go back to stock.
+     *
+     * @return the remaining quantity, {@link #NO_SUCH_HOLD}, {@link InventoryService#INSUFFICIENT_STOCK}
+     *         or {@link InventoryService#UNKNOWN_SKU}
+     */
+    public int sell(long id) {
+        Segment s = segment(id);
+        if (s == null) return NO_SUCH_HOLD;
+        String sku;
+        int quantity;
+        s.lock.lock();
+        try {
+            int slot = s.find(id);
+            if (slot < 0) return NO_SUCH_HOLD;
+            sku = s.skus[slot];
+            quantity = s.quantities[slot];
+            s.free(slot);
+        } finally {
+            s.lock.unlock();
+        }
+        return service.commitReservation(sku, quantity);
+    }
+
+    /** Ends the hold and gives its units back; false if it had already ended. */
+    public boolean release(long id) {
+        Segment s = segment(id);
+        if (s == null) return false;
+        s.lock.lock();
+        try {
+            int slot = s.find(id);
+            if (slot < 0) return false;
+            giveBack(s.skus[slot], s.quantities[slot]);
+            s.free(slot);
+            return true;
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+    /** Gives the hold ttlMillis from now; false if it had already ended. */
+    public boolean renew(long id, long ttlMillis) {
+        if (ttlMillis <= 0) throw new IllegalArgumentException("Time to live must be positive");
+        Segment s = segment(id);
+        if (s == null) return false;
+        s.lock.lock();
+        try {
+            int slot = s.find(id);
+            if (slot < 0) return false;
+            s.unlink(slot);
+            s.deadlines[slot] = now() + ttlMillis;
+            s.link(slot);
+            return true;
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+    public int openHolds() {
+        int n = 0;
+        for (Segment s : segments) {
+            s.lock.lock();
+            try {
+                n += s.open;
+            } finally {
+                s.lock.unlock();
+            }
+        }
+        return n;
+    }
+
+    /** Holds that ran out of time since the start. */
+    public long expiredCount() {
+        return expired.sum();
+    }
+
+    /** Stops expiring and releases every open hold, so no stock stays held by holds nobody can end. */
+    @Override
+    public void close() {
+        closed = true;
+        expiry.interrupt();
+        for (Segment s : segments) {
+            s.lock.lock();
+            try {
+                for (int b = 0; b < WHEEL; b++) {
+                    while (s.heads[b] >= 0) {
+                        int slot = s.heads[b];
+                        giveBack(s.skus[slot], s.quantities[slot]);
+                        s.free(slot);
+                    }
+                }
+            } finally {
+                s.lock.unlock();
+            }
+        }
+    }
+
+    // ---------- Expiry ----------
+
+    private void expireLoop() {
+        long done = now() / tickMillis; // every tick before this one has been swept
+        while (!closed) {
+            try {
+                Thread.sleep(tickMillis - now() % tickMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long now = now(), current = now / tickMillis;
+            // ticks that ended are swept once, a whole turn at most even after a long stall
+            for (long t = Math.max(done, current - WHEEL); t < current; t++) {
+                for (Segment s : segments) s.expire((int) (t & (WHEEL - 1)), now);
+            }
+            done = current;
+        }
+    }
+
+    private void giveBack(String sku, int quantity) {
+        try {
+            service.release(sku, quantity);
+        } catch (IllegalStateException e) {
+            // the SKU was deleted and loaded again since the hold began, and its reservations with it
+        }
+    }
+
+    private long now() {
+        return (System.nanoTime() - origin) / 1_000_000;
+    }
+
+    private Segment segment(long id) {
+        if (id <= 0) return null;
+        return segments[(int) (id >>> SLOT_BITS) & (SEGMENTS - 1)];
+    }
+
+    /** Open holds in parallel arrays by slot, each linked into its wheel bucket; free slots in a list. */
+    private final class Segment {
+        final ReentrantLock lock = new ReentrantLock();
+        final int index;
+        final int[] heads = new int[WHEEL];
+        String[] skus = new String[256];
+        int[] quantities = new int[256], generations = new int[256], next = new int[256], prev = new int[256];
+        long[] deadlines = new long[256];
+        int used, freeList = -1, open;
+
+        Segment(int index) {
+            this.index = index;
+            Arrays.fill(heads, -1);
+            Arrays.fill(generations, 1);
+        }
+
+        long add(String sku, int quantity, long deadline) {
+            lock.lock();
+            try {
+                // close() sets closed before it sweeps each segment under this lock, so a hold added
+                // after the sweep is refused here instead of being left behind
+                if (closed) throw new IllegalStateException("Holds are closed");
+                int slot;
+                if (freeList >= 0) {
+                    slot = freeList;
+                    freeList = next[slot];
+                } else {
+                    if (used == skus.length) grow();
+                    slot = used++;
+                }
+                skus[slot] = sku;
+                quantities[slot] = quantity;
+                deadlines[slot] = deadline;
+                link(slot);
+                open++;
+                return (long) generations[slot] << 32 | (long) index << SLOT_BITS | slot;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /** The slot of an open hold, or -1. Under lock. */
+        int find(long id) {
+            int slot = (int) (id & ((1 << SLOT_BITS) - 1));
+            if (slot >= used || skus[slot] == null || generations[slot] != (int) (id >>> 32)) return -1;
+            return slot;
+        }
+
+        /** Ends the hold in the slot; its id stops working. Under lock. */
+        void free(int slot) {
+            unlink(slot);
+            skus[slot] = null;
+            generations[slot] = generations[slot] == Integer.MAX_VALUE ? 1 : generations[slot] + 1;
+            next[slot] = freeList;
+            freeList = slot;
+            open--;
+        }
+
+        void link(int slot) {
+            int b = (int) ((deadlines[slot] / tickMillis) & (WHEEL - 1));
+            prev[slot] = -1;
+            next[slot] = heads[b];
+            if (heads[b] >= 0) prev[heads[b]] = slot;
+            heads[b] = slot;
+        }
+
+        void unlink(int slot) {
+            if (prev[slot] >= 0) {
+                next[prev[slot]] = next[slot];
+            } else {
+                heads[(int) ((deadlines[slot] / tickMillis) & (WHEEL - 1))] = next[slot];
+            }
+            if (next[slot] >= 0) prev[next[slot]] = prev[slot];
+        }
+
+        /** Releases the bucket's holds that are due by now; the rest are due on a later turn. */
+        void expire(int bucket, long now) {
+            lock.lock();
+            try {
+                for (int slot = heads[bucket]; slot >= 0; ) {
+                    int after = next[slot];
+                    if (deadlines[slot] <= now) {
+                        giveBack(skus[slot], quantities[slot]);
+                        free(slot);
+                        expired.increment();
+                    }
+                    slot = after;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void grow() {
+            int n = skus.length * 2;
+            if (n > 1 << SLOT_BITS) throw new IllegalStateException("Too many open holds");
+            skus = Arrays.copyOf(skus, n);
+            quantities = Arrays.copyOf(quantities, n);
+            next = Arrays.copyOf(next, n);
+            prev = Arrays.copyOf(prev, n);
+            deadlines = Arrays.copyOf(deadlines, n);
+            int old = generations.length;
+            generations = Arrays.copyOf(generations, n);
+            Arrays.fill(generations, old, n, 1);
+        }
+    }
+}
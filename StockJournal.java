@@ -0,0 +1,135 @@
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Stock quantities derived from the stock-movement journal. {@link DBHelper} appends a
+ * {@link StockMovement} for every receipt, sale, adjustment and delete in the same transaction that
+ * changes the inventory row, so the journal is the full history of every quantity and never
+ * disagrees with it.
+ *
+ * Replaying the whole history would get slower every day, so now and then the quantities are written
+ * down as a snapshot, tagged with the id of the last movement they include. {@link #replay} starts
+ * from the latest snapshot and applies only the movements after it; {@link #snapshotIfDue} writes a
+ * new snapshot once that tail has grown to {@link #SNAPSHOT_EVERY} movements. Only the latest
+ * snapshot is kept: the journal itself is never pruned, and {@link #replayAll} rebuilds everything
+ * from the first movement.
+ *
+ * Each replay is a single read, so it sees a consistent prefix of the journal even while sales go
+ * on, and a snapshot can be taken without stopping them. Snapshot writes take turns, and one never
+ * replaces a snapshot that already covers more of the journal.
+ */
+public class StockJournal {
+
+    /** Movements after the latest snapshot that make the next one due. */
+    public static final int SNAPSHOT_EVERY = 1_000_000;
+
+    /** Quantities as of one point in the journal. */
+    public static final class Replay {
+        private final Map<String, int[]> quantities;
+        /** Id of the last movement included; replay again from here. */
+        public final long through;
+        /** Movements applied on top of the snapshot, and how long loading and applying took. */
+        public final long replayed, nanos;
+
+        Replay(Map<String, int[]> quantities, long through, long replayed, long nanos) {
+            this.quantities = quantities;
+            this.through = through;
+            this.replayed = replayed;
+            this.nanos = nanos;
+        }
+
+        /** The SKU's quantity, or {@link StockLedger#UNKNOWN_SKU} if it was never added or was deleted. */
+        public int quantity(String sku) {
+            int[] q = quantities.get(sku);
+            return q == null ? StockLedger.UNKNOWN_SKU : q[0];
+        }
+
+        public int size() {
+            return quantities.size();
+        }
+
+        public void forEach(ObjIntConsumer<String> consumer) {
+            for (Map.Entry<String, int[]> e : quantities.entrySet()) consumer.accept(e.getKey(), e.getValue()[0]);
+        }
+    }
+
+    private final DBHelper db;
+    private final int snapshotEvery;
+
+    public StockJournal(DBHelper db) {
+        this(db, SNAPSHOT_EVERY);
+    }
+
+    public StockJournal(DBHelper db, int snapshotEvery) {
+        if (snapshotEvery <= 0) throw new IllegalArgumentException("Snapshot interval must be positive");
+        this.db = db;
+        this.snapshotEvery = snapshotEvery;
+    }
+
+    public int snapshotEvery() {
+        return snapshotEvery;
+    }
+
+    /** The quantities now: the latest snapshot plus the movements after it. */
+    public Replay replay() {
+        long start = System.nanoTime();
+        Map<String, int[]> quantities = new HashMap<>();
+        long through = db.loadSnapshot((sku, qty) -> quantities.put(sku, new int[]{qty}));
+        return tail(quantities, through, start);
+    }
+
+    /** The quantities now, from the first movement on; slow, for checking snapshots and for benchmarks. */
+    public Replay replayAll() {
+        return tail(new HashMap<>(), 0, System.nanoTime());
+    }
+
+    private Replay tail(Map<String, int[]> quantities, long after, long start) {
+        long[] n = {0};
+        long through = db.streamMovements(after, (id, ts, sku, kind, delta) -> {
+            n[0]++;
+            if (kind == StockMovement.DELETE) {
+                quantities.remove(sku);
+                return;
+            }
+            int[] q = quantities.get(sku);
+            if (q == null) quantities.put(sku, new int[]{delta});
+            else q[0] += delta;
+        });
+        return new Replay(quantities, through, n[0], System.nanoTime() - start);
+    }
+
+    /**
+     * Writes the replay's quantities as the latest snapshot, unless the latest one already goes at
+     * least as far.
+     *
+     * @return whether a snapshot was written
+     */
+    public synchronized boolean snapshot(Replay replay) {
+        if (replay.through <= db.lastSnapshotThrough()) return false;
+        db.writeSnapshot(replay.through, replay::forEach);
+        return true;
+    }
+
+    /**
+     * Replays and writes a snapshot if at least {@link #snapshotEvery} movements came after the
+     * latest one; the check itself costs two indexed lookups.
+     *
+     * @return whether a snapshot was written
+     */
+    public synchronized boolean snapshotIfDue() {
+        if (db.lastMovementId() - db.lastSnapshotThrough() < snapshotEvery) return false;
+        return snapshot(replay());
+    }
+
+    /** The SKU's movements before beforeId (0 for the newest), newest first. */
+    public List<StockMovement> history(String sku, long beforeId, int limit) {
+        return db.fetchMovements(sku, beforeId, limit);
+    }
+
+    /** Appends the movements, e.g. corrections for stock changed behind the database helper's back. */
+    public void append(List<StockMovement> movements) {
+        if (!movements.isEmpty()) db.appendMovements(movements);
+    }
+}
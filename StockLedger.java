@@ -0,0 +1,268 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory stock per SKU, on hand and reserved, with every committed change written through to a
+ * {@link Store} (the database) first. {@link InventoryService} keeps its stock here.
+ *
+ * On hand and reserved live together in one AtomicLong per SKU, so {@link #reserve} and
+ * {@link #release} are a compare-and-set each: no lock, no database, and never held up by a write in
+ * progress. Changes that reach the store run under the SKU's stripe, one of a fixed set of locks
+ * picked by the SKU's hash, held from the write until the counters and the {@link Observer} have
+ * caught up. Changes to one SKU therefore happen one at a time and in the store's order, while
+ * changes to SKUs on different stripes run side by side. A batch locks all its stripes, in index
+ * order so that batches cannot deadlock each other. With one stripe this is the old single lock.
+ *
+ * Sales always reserve first, so they can never sell units another caller is holding.
+ */
+public class StockLedger {
+
+    public static final int INSUFFICIENT_STOCK = DBHelper.INSUFFICIENT_STOCK;
+    public static final int UNKNOWN_SKU = InventoryService.UNKNOWN_SKU;
+    public static final int DEFAULT_STRIPES = 64;
+
+    /** Where changes are written: applies them in order and returns what DBHelper.applyStockChanges does. */
+    public interface Store {
+        int[] apply(List<StockChange> changes);
+    }
+
+    /** Told each new on-hand quantity (UNKNOWN_SKU once the store no longer has the SKU), under its stripe. */
+    public interface Observer {
+        void stockChanged(String sku, int onHand);
+    }
+
+    private final Store store;
+    private final Observer observer;
+    private final ReentrantLock[] stripes;
+    private final Map<String, AtomicLong> counts = new ConcurrentHashMap<>(); // onHand << 32 | reserved
+
+    public StockLedger(Store store, Observer observer) {
+        this(store, observer, DEFAULT_STRIPES);
+    }
+
+    /** stripes is rounded up to a power of two. */
+    public StockLedger(Store store, Observer observer, int stripes) {
+        this.store = store;
+        this.observer = observer;
+        int n = Integer.highestOneBit(Math.max(1, stripes - 1) << 1);
+        this.stripes = new ReentrantLock[stripes <= 1 ? 1 : n];
+        for (int i = 0; i < this.stripes.length; i++) this.stripes[i] = new ReentrantLock();
+    }
+
+    // ---------- Catalogue (call under the SKU's stripe, see locked) ----------
+
+    /** Sets the on-hand quantity, keeping any reservation. */
+    public void put(String sku, int onHand) {
+        AtomicLong c = counts.computeIfAbsent(sku, k -> new AtomicLong());
+        long s;
+        do {
+            s = c.get();
+        } while (!c.compareAndSet(s, pack(onHand, reserved(s))));
+    }
+
+    /** Forgets the SKU and its reservations. */
+    public void remove(String sku) {
+        counts.remove(sku);
+    }
+
+    /** Keeps only the given SKUs, at the given quantities; reservations of kept SKUs stay. */
+    public void replaceAll(Map<String, Integer> onHand) {
+        counts.keySet().retainAll(onHand.keySet());
+        for (Map.Entry<String, Integer> e : onHand.entrySet()) put(e.getKey(), e.getValue());
+    }
+
+    /** Runs work holding the SKU's stripe, e.g. to add or delete it together with the store. */
+    public void locked(String sku, Runnable work) {
+        ReentrantLock lock = stripes[stripe(sku)];
+        lock.lock();
+        try {
+            work.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Runs work holding every stripe, e.g. to reload from the store. */
+    public void lockedAll(Runnable work) {
+        for (ReentrantLock lock : stripes) lock.lock();
+        try {
+            work.run();
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) stripes[i].unlock();
+        }
+    }
+
+    // ---------- Reads ----------
+
+    /** Units on the shelf, or UNKNOWN_SKU. */
+    public int onHand(String sku) {
+        AtomicLong c = counts.get(sku);
+        return c == null ? UNKNOWN_SKU : onHand(c.get());
+    }
+
+    /** Units held by reservations, or 0 for an unknown SKU. */
+    public int reserved(String sku) {
+        AtomicLong c = counts.get(sku);
+        return c == null ? 0 : reserved(c.get());
+    }
+
+    /** Units that can still be reserved or sold, or UNKNOWN_SKU. */
+    public int available(String sku) {
+        AtomicLong c = counts.get(sku);
+        if (c == null) return UNKNOWN_SKU;
+        long s = c.get();
+        return Math.max(0, onHand(s) - reserved(s));
+    }
+
+    public int stripeCount() {
+        return stripes.length;
+    }
+
+    // ---------- Operations ----------
+
+    /**
+     * Holds quantity units of the SKU until they are {@link #commit committed} or {@link #release released}.
+     *
+     * @return units still available afterwards, {@link #INSUFFICIENT_STOCK} or {@link #UNKNOWN_SKU}
+     */
+    public int reserve(String sku, int quantity) {
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity must be positive");
+        AtomicLong c = counts.get(sku);
+        if (c == null) return UNKNOWN_SKU;
+        while (true) {
+            long s = c.get();
+            int available = onHand(s) - reserved(s);
+            if (available < quantity) return INSUFFICIENT_STOCK;
+            if (c.compareAndSet(s, pack(onHand(s), reserved(s) + quantity))) return available - quantity;
+        }
+    }
+
+    /**
+     * Gives back reserved units. Releasing units of a SKU that has since been removed does nothing.
+     *
+     * @throws IllegalStateException if more is released than is reserved
+     */
+    public void release(String sku, int quantity) {
+        AtomicLong c = counts.get(sku);
+        if (c == null) return;
+        while (true) {
+            long s = c.get();
+            if (reserved(s) < quantity) throw new IllegalStateException("Releasing " + quantity + " of " + sku + ", " + reserved(s) + " reserved");
+            if (c.compareAndSet(s, pack(onHand(s), reserved(s) - quantity))) return;
+        }
+    }
+
+    /**
+     * Sells units reserved earlier: writes the sale through, then takes them off both on hand and
+     * reserved. If the store refuses the sale the reservation is released.
+     *
+     * @return the new on-hand quantity, {@link #INSUFFICIENT_STOCK} or {@link #UNKNOWN_SKU}
+     */
+    public int commit(StockChange sale) {
+        if (!sale.isSale()) throw new IllegalArgumentException("Only sales can be committed");
+        ReentrantLock lock = stripes[stripe(sale.sku)];
+        lock.lock();
+        try {
+            int[] done;
+            try {
+                done = store.apply(List.of(sale));
+            } catch (RuntimeException e) {
+                release(sale.sku, sale.quantity());
+                throw e;
+            }
+            return settle(sale, done[0]);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies unreserved sales and restocks in order with one write to the store. Sales reserve their
+     * units first and are refused without touching the store when the SKU lacks them.
+     *
+     * @return per change the new on-hand quantity, {@link #INSUFFICIENT_STOCK} or {@link #UNKNOWN_SKU}
+     */
+    public int[] apply(List<StockChange> changes) {
+        int[] out = new int[changes.size()];
+        List<StockChange> pending = new ArrayList<>(changes.size());
+        boolean[] held = new boolean[stripes.length];
+        for (int i = 0; i < out.length; i++) {
+            StockChange c = changes.get(i);
+            int r = c.isSale() ? reserve(c.sku, c.quantity()) : 0;
+            if (r < 0) {
+                out[i] = r;
+            } else {
+                pending.add(c);
+                held[stripe(c.sku)] = true;
+            }
+        }
+        if (pending.isEmpty()) return out;
+
+        for (int s = 0; s < held.length; s++) if (held[s]) stripes[s].lock();
+        try {
+            int[] done;
+            try {
+                done = store.apply(pending);
+            } catch (RuntimeException e) {
+                for (StockChange c : pending) if (c.isSale()) release(c.sku, c.quantity());
+                throw e;
+            }
+            for (int i = 0, k = 0; i < out.length; i++) {
+                if (out[i] < 0) continue;
+                out[i] = settle(pending.get(k), done[k]);
+                k++;
+            }
+            return out;
+        } finally {
+            for (int s = held.length - 1; s >= 0; s--) if (held[s]) stripes[s].unlock();
+        }
+    }
+
+    // ---------- Internals ----------
+
+    /** Brings the counters in line with what the store answered for a change; a sale was reserved. */
+    private int settle(StockChange c, int result) {
+        AtomicLong counter = counts.get(c.sku);
+        int reservedHere = c.isSale() ? c.quantity() : 0;
+        if (result < 0) {
+            if (c.isSale()) {
+                release(c.sku, reservedHere);
+                return INSUFFICIENT_STOCK;
+            }
+            if (counter != null) {
+                counts.remove(c.sku);
+                observer.stockChanged(c.sku, UNKNOWN_SKU);
+            }
+            return UNKNOWN_SKU;
+        }
+        if (counter != null) {
+            long s;
+            do {
+                s = counter.get();
+            } while (!counter.compareAndSet(s, pack(result, Math.max(0, reserved(s) - reservedHere))));
+            observer.stockChanged(c.sku, result);
+        }
+        return result;
+    }
+
+    private int stripe(String sku) {
+        int h = sku.hashCode();
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+
+    private static long pack(int onHand, int reserved) {
+        return (long) onHand << 32 | (reserved & 0xFFFFFFFFL);
+    }
+
+    private static int onHand(long s) {
+        return (int) (s >>> 32);
+    }
+
+    private static int reserved(long s) {
+        return (int) s;
+    }
+}
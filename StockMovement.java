@@ -0,0 +1,32 @@
+/** One change to a SKU's stock as recorded in the stock_movements journal; see {@link StockJournal}. */
+public final class StockMovement {
+    /** Units came in: a restock, or a new item's opening stock. */
+    public static final int RECEIPT = 1;
+    public static final int SALE = 2;
+    /** Quantity set outright: an edit, a CSV import, a stocktake correction. */
+    public static final int ADJUSTMENT = 3;
+    /** The item was deleted; delta takes its stock to zero. */
+    public static final int DELETE = 4;
+
+    public final long id, ts;
+    public final String sku;
+    public final int kind, delta;
+
+    public StockMovement(long id, long ts, String sku, int kind, int delta) {
+        this.id = id;
+        this.ts = ts;
+        this.sku = sku;
+        this.kind = kind;
+        this.delta = delta;
+    }
+
+    public static String kindName(int kind) {
+        switch (kind) {
+            case RECEIPT: return "Receipt";
+            case SALE: return "Sale";
+            case ADJUSTMENT: return "Adjustment";
+            case DELETE: return "Delete";
+            default: return "Unknown";
+        }
+    }
+}
@@ -0,0 +1,167 @@
+import javax.swing.JTable;
+import javax.swing.table.DefaultTableModel;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Scanning and painting the inventory with the DefaultTableModel the apps used before and with the
+ * columnar {@link InventoryTableModel}.
+ *
+ *   java -Djava.awt.headless=true TableModelBenchmark [items] [passes] [frames]     (defaults: 1000000, 20, 2000)
+ *
+ * Both models hold the same generated catalogue, the old one as Vector rows of boxed values the way
+ * loadInventoryFromDB filled it. Printed first is the heap each model retains. The scans are the
+ * loops the old apps ran over every row: inventory value and stock per category for the two charts,
+ * the low-stock list and computeNextSku. On the DefaultTableModel they read getValueAt(...).toString()
+ * and parse, as the old code did; on the columnar model they use the typed getters and category
+ * codes. Each scan runs passes times and the median is reported; a scan whose two versions disagree
+ * throws. Painting uses {@link RenderBenchmark}'s loop: the old renderer on each model, which
+ * separates the model's share from the renderer's, and then the columnar model with
+ * {@link InventoryCellRenderer}.
+ */
+public class TableModelBenchmark {
+
+    private static final String[] CATEGORIES = {"Electronics", "Clothing", "Food", "Toys", "Books", "Garden", "Tools", "Other"};
+
+    private interface Scan {
+        long run();
+    }
+
+    public static void main(String[] args) {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int passes = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int frames = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+
+        long heap = usedHeap();
+        DefaultTableModel old = new DefaultTableModel(new Object[]{
+                "SKU", "Item Name", "Quantity", "Cost Price", "Selling Price", "Category", "Location", "Min Stock Threshold"}, 0);
+        generate(items, (sku, name, qty, cost, sell, cat, loc, min) -> old.addRow(new Object[]{sku, name, qty, cost, sell, cat, loc, min}));
+        long oldHeap = usedHeap() - heap;
+
+        heap = usedHeap();
+        InventoryTableModel model = new InventoryTableModel();
+        generate(items, model::addRow);
+        long newHeap = usedHeap() - heap;
+
+        System.out.printf("%,d items, %d passes per scan, %,d frames per paint%n%n", items, passes, frames);
+        System.out.printf("  %-22s %12s %12s %9s%n", "", "Default", "columnar", "ratio");
+        System.out.printf("  %-22s %10.1f MB %9.1f MB %8.1fx%n", "retained heap", oldHeap / 1e6, newHeap / 1e6, oldHeap / (double) newHeap);
+        System.out.printf("%n  %-22s %9s ms %9s ms %8s%n", "", "Default", "columnar", "speedup");
+
+        compare("value by category", passes, () -> {
+            Map<String, Double> map = new LinkedHashMap<>();
+            for (int i = 0; i < old.getRowCount(); i++) {
+                String cat = old.getValueAt(i, 5).toString();
+                int q = Integer.parseInt(old.getValueAt(i, 2).toString());
+                double c = Double.parseDouble(old.getValueAt(i, 3).toString());
+                map.put(cat, map.getOrDefault(cat, 0.0) + q * c);
+            }
+            return Math.round(map.values().stream().mapToDouble(d -> d).sum());
+        }, () -> {
+            double[] byCode = new double[model.categoryCount()];
+            for (int i = 0; i < model.getRowCount(); i++) byCode[model.getCategoryCode(i)] += model.getQuantity(i) * model.getCostPrice(i);
+            return Math.round(Arrays.stream(byCode).sum());
+        });
+        compare("stock by category", passes, () -> {
+            Map<String, Integer> map = new LinkedHashMap<>();
+            long total = 0;
+            for (int i = 0; i < old.getRowCount(); i++) {
+                String cat = old.getValueAt(i, 5).toString();
+                int q = Integer.parseInt(old.getValueAt(i, 2).toString());
+                map.put(cat, map.getOrDefault(cat, 0) + q);
+                total += q;
+            }
+            return total;
+        }, () -> {
+            long[] byCode = new long[model.categoryCount()];
+            long total = 0;
+            for (int i = 0; i < model.getRowCount(); i++) {
+                byCode[model.getCategoryCode(i)] += model.getQuantity(i);
+                total += model.getQuantity(i);
+            }
+            return total;
+        });
+        compare("low-stock list", passes, () -> {
+            StringBuilder low = new StringBuilder();
+            for (int i = 0; i < old.getRowCount(); i++) {
+                int q = Integer.parseInt(old.getValueAt(i, 2).toString());
+                int mn = Integer.parseInt(old.getValueAt(i, 7).toString());
+                if (q <= mn) low.append(old.getValueAt(i, 0)).append(" - ").append(old.getValueAt(i, 1)).append("\n");
+            }
+            return low.length();
+        }, () -> {
+            StringBuilder low = new StringBuilder();
+            for (int i = 0; i < model.getRowCount(); i++) {
+                if (model.getQuantity(i) <= model.getMinStock(i)) low.append(model.getSku(i)).append(" - ").append(model.getName(i)).append("\n");
+            }
+            return low.length();
+        });
+        compare("computeNextSku", passes, () -> {
+            int max = 0;
+            for (int i = 0; i < old.getRowCount(); i++) {
+                String sku = old.getValueAt(i, 0).toString();
+                try {
+                    int n = Integer.parseInt(sku.replaceAll("\\D+", ""));
+                    if (n > max) max = n;
+                } catch (Exception ignored) {}
+            }
+            return max + 1;
+        }, () -> {
+            int max = 0;
+            for (int i = 0; i < model.getRowCount(); i++) max = Math.max(max, digits(model.getSku(i)));
+            return max + 1;
+        });
+
+        System.out.println();
+        RenderBenchmark.run("Default, old", new JTable(old), new RenderBenchmark.LegacyModernRenderer(), frames);
+        RenderBenchmark.run("columnar, old", new JTable(model), new RenderBenchmark.LegacyModernRenderer(), frames);
+        LowStockIndex lowStock = new LowStockIndex(model);
+        RenderBenchmark.run("columnar, striped", new InventoryTable(model), InventoryCellRenderer.striped(lowStock::isLow), frames);
+    }
+
+    /** The same catalogue on every call, with its own strings so neither model shares the other's. */
+    private static void generate(int items, DBHelper.InventoryRowConsumer sink) {
+        Random rnd = new Random(42);
+        for (int i = 0; i < items; i++) {
+            sink.accept(String.format("UQ%07d", i), "Item " + i, rnd.nextInt(500), 1.25 + rnd.nextInt(100),
+                    2.5 + rnd.nextInt(10_000) / 100.0, CATEGORIES[rnd.nextInt(CATEGORIES.length)], "Shelf " + rnd.nextInt(4), 10);
+        }
+    }
+
+    /** Prints the median milliseconds of each scan; both must compute the same answer. */
+    private static void compare(String label, int passes, Scan before, Scan after) {
+        long[] b = new long[passes], a = new long[passes];
+        long expected = before.run(), actual = after.run();
+        if (expected != actual) throw new IllegalStateException(label + ": " + actual + " on the columnar model, " + expected + " before");
+        for (int p = 0; p < passes; p++) {
+            long start = System.nanoTime();
+            before.run();
+            b[p] = System.nanoTime() - start;
+            start = System.nanoTime();
+            after.run();
+            a[p] = System.nanoTime() - start;
+        }
+        Arrays.sort(b);
+        Arrays.sort(a);
+        double bm = b[passes / 2] / 1e6, am = a[passes / 2] / 1e6;
+        System.out.printf("  %-22s %12.2f %12.2f %8.1fx%n", label, bm, am, bm / Math.max(0.001, am));
+    }
+
+    /** The number made of the SKU's digits, as computeNextSku's regex reads it, without the regex. */
+    private static int digits(String sku) {
+        int n = 0;
+        for (int k = 0; k < sku.length(); k++) {
+            char ch = sku.charAt(k);
+            if (ch >= '0' && ch <= '9') n = n * 10 + (ch - '0');
+        }
+        return n;
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}